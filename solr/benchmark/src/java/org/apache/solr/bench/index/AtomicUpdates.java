@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.bench.MiniClusterState;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Warmup(time = 10, iterations = 2)
+@Measurement(time = 30, iterations = 4)
+@Fork(value = 1)
+// A benchmark of small atomic updates (one "inc") on documents with many stored fields, which
+// requires the previous version of the whole document to be read from the index.
+public class AtomicUpdates {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    static final String COLLECTION = "testCollection";
+
+    @Param({"10", "200"})
+    int numFields;
+
+    @Param("20000")
+    int numDocs;
+
+    String basePath;
+
+    @Setup(Level.Trial)
+    public void doSetup(MiniClusterState.MiniClusterBenchState miniClusterState) throws Exception {
+      miniClusterState.startMiniCluster(1);
+      miniClusterState.createCollection(COLLECTION, 1, 1);
+
+      Docs docs =
+          docs().field("id", integers().incrementing()).field("counter_is", integers().all());
+      for (int i = 0; i < numFields; i++) {
+        docs.field("field" + i + "_ts", strings().basicLatinAlphabet().ofLengthBetween(10, 64));
+      }
+      miniClusterState.index(COLLECTION, docs, numDocs, false);
+      basePath = miniClusterState.nodes.get(0);
+    }
+  }
+
+  @Benchmark
+  public Object incrementOneField(
+      MiniClusterState.MiniClusterBenchState miniClusterState, BenchState state) throws Exception {
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.setField("id", String.valueOf(miniClusterState.getRandom().nextInt(state.numDocs)));
+    doc.setField("counter_is", Map.of("inc", 1));
+    UpdateRequest updateRequest = new UpdateRequest();
+    updateRequest.setBasePath(state.basePath);
+    updateRequest.add(doc);
+    return miniClusterState.client.request(updateRequest, BenchState.COLLECTION);
+  }
+}
@@ -17,7 +17,6 @@
 
 package org.apache.solr.cloud;
 
-import static java.util.Collections.singletonMap;
 import static org.apache.solr.cloud.overseer.ZkStateWriter.NO_OP;
 import static org.apache.solr.common.cloud.ZkStateReader.COLLECTIONS_ZKNODE;
 import static org.apache.solr.common.params.CollectionParams.CollectionAction.ADDREPLICA;
@@ -34,9 +33,13 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import org.apache.solr.client.solrj.cloud.SolrCloudManager;
 import org.apache.solr.client.solrj.impl.ZkClientClusterStateProvider;
 import org.apache.solr.cloud.api.collections.CollectionHandlingUtils;
@@ -59,7 +62,6 @@ import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.CollectionParams;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.Pair;
-import org.apache.solr.common.util.Utils;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.data.Stat;
@@ -80,6 +82,25 @@ public class DistributedClusterStateUpdater {
    */
   private final boolean useDistributedStateUpdate;
 
+  /**
+   * The commands that {@link #doSingleStateUpdate} batches with the other changes made concurrently
+   * to the same collection. These are the frequent changes of replicas and shards, e.g. when nodes
+   * restart, that only write per replica states when the collection has some.
+   */
+  private static final Set<MutatingCommand> BATCHED_COMMANDS =
+      EnumSet.of(
+          MutatingCommand.ReplicaSetState,
+          MutatingCommand.ReplicaAddReplicaProperty,
+          MutatingCommand.ReplicaDeleteReplicaProperty,
+          MutatingCommand.SliceSetShardLeader,
+          MutatingCommand.SliceUpdateShardState);
+
+  // the number of batches a thread writes before handing the writing of the collection over
+  private static final int MAX_BATCHES_PER_WRITER = 10;
+
+  private final ConcurrentHashMap<String, CollectionStateUpdates> collectionStateUpdates =
+      new ConcurrentHashMap<>();
+
   /**
    * Builds an instance with the specified behavior regarding distribution of state updates,
    * allowing to know distributed updates are not enabled (parameter {@code
@@ -129,12 +150,266 @@ public class DistributedClusterStateUpdater {
           "Not expecting to execute doSingleStateUpdate when not using distributed state update");
     }
     String collectionName = command.getCollectionName(message);
+    if (BATCHED_COMMANDS.contains(command) && collectionName != null) {
+      doBatchedStateUpdate(
+          collectionName, new PendingStateUpdate(command, message), scm, zkStateReader);
+      return;
+    }
     final StateChangeRecorder scr =
         new StateChangeRecorder(collectionName, command.isCollectionCreation());
     scr.record(command, message);
     scr.executeStateUpdates(scm, zkStateReader);
   }
 
+  /**
+   * Applies the given update along with the other pending updates of the same collection. If no
+   * thread is writing updates of the collection, this thread writes all the pending ones with a
+   * single conditional update of {@code state.json}, then the ones that became pending in the
+   * meantime, until none are left or it wrote {@code MAX_BATCHES_PER_WRITER} batches. It then
+   * hands the writing over to the thread of the oldest pending update, so that no caller keeps
+   * writing the updates of others indefinitely. Otherwise the update is written by the writing
+   * thread and this one waits for it, or for its turn to write.
+   */
+  private void doBatchedStateUpdate(
+      String collectionName,
+      PendingStateUpdate update,
+      SolrCloudManager scm,
+      ZkStateReader zkStateReader)
+      throws KeeperException, InterruptedException {
+    CollectionStateUpdates updates =
+        collectionStateUpdates.computeIfAbsent(collectionName, CollectionStateUpdates::new);
+    boolean write;
+    synchronized (updates) {
+      updates.pending.add(update);
+      write = !updates.writing;
+      updates.writing = true;
+    }
+    try {
+      if (!write) {
+        try {
+          CompletableFuture.anyOf(update.done, update.writeTurn).get();
+        } catch (InterruptedException e) {
+          updates.abandon(update);
+          throw e;
+        }
+        // the writing thread handed over while this update was still pending
+        write = update.writeTurn.isDone();
+      }
+      if (write) {
+        updates.writePending(scm, zkStateReader);
+        collectionStateUpdates.computeIfPresent(
+            collectionName, (name, u) -> u == updates && u.isIdle() ? null : u);
+      }
+      update.done.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof KeeperException) {
+        throw (KeeperException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          "Could not update the state of collection " + collectionName,
+          cause);
+    }
+  }
+
+  /** A state change waiting to be written with the other changes of its collection */
+  private static class PendingStateUpdate {
+    final MutatingCommand command;
+    final ZkNodeProps message;
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    // completed when the thread waiting for this update must write the pending updates
+    final CompletableFuture<Void> writeTurn = new CompletableFuture<>();
+
+    PendingStateUpdate(MutatingCommand command, ZkNodeProps message) {
+      this.command = command;
+      this.message = message;
+    }
+  }
+
+  /**
+   * The state changes of a collection that are pending, and whether a thread is writing them. At
+   * most one thread writes the changes of a collection at a time, in batches.
+   */
+  private static class CollectionStateUpdates {
+    private final String collectionName;
+    // guarded by this
+    private List<PendingStateUpdate> pending = new ArrayList<>();
+    private boolean writing = false;
+
+    CollectionStateUpdates(String collectionName) {
+      this.collectionName = collectionName;
+    }
+
+    synchronized boolean isIdle() {
+      return !writing && pending.isEmpty();
+    }
+
+    /**
+     * Removes an update whose thread stopped waiting, handing the writing over again if it was that
+     * thread's turn to write
+     */
+    synchronized void abandon(PendingStateUpdate update) {
+      if (!pending.remove(update)) return; // already taken by a batch
+      update.done.cancel(false);
+      if (update.writeTurn.isDone()) {
+        if (pending.isEmpty()) {
+          writing = false;
+        } else {
+          pending.get(0).writeTurn.complete(null);
+        }
+      }
+    }
+
+    /** Returns the pending updates and clears them */
+    synchronized List<PendingStateUpdate> takePending() {
+      List<PendingStateUpdate> taken = pending;
+      pending = new ArrayList<>();
+      return taken;
+    }
+
+    /**
+     * Writes the pending updates in batches until there are none left, or hands the writing over
+     * after {@code MAX_BATCHES_PER_WRITER} batches
+     */
+    void writePending(SolrCloudManager scm, ZkStateReader zkStateReader) {
+      for (int batch = 0; ; batch++) {
+        synchronized (this) {
+          if (pending.isEmpty()) {
+            writing = false;
+            return;
+          }
+          if (batch == MAX_BATCHES_PER_WRITER) {
+            // writing stays true: the next writer is the thread of the oldest pending update
+            pending.get(0).writeTurn.complete(null);
+            return;
+          }
+        }
+        BatchedMutationsPlayer player = new BatchedMutationsPlayer(scm, this);
+        try {
+          ZkUpdateApplicator.applyUpdate(zkStateReader, player);
+          player.complete(null);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          player.complete(e);
+          // fail the updates that are still pending rather than write them
+          synchronized (this) {
+            for (PendingStateUpdate update : takePending()) {
+              update.done.completeExceptionally(e);
+            }
+            writing = false;
+          }
+          return;
+        } catch (Throwable t) {
+          if (player.updates.size() > 1) {
+            // find out which updates can't be written rather than failing all of them
+            writeOneByOne(player.updates, scm, zkStateReader);
+          } else {
+            player.complete(t);
+          }
+        }
+      }
+    }
+
+    private void writeOneByOne(
+        List<PendingStateUpdate> updates, SolrCloudManager scm, ZkStateReader zkStateReader) {
+      for (PendingStateUpdate update : updates) {
+        if (update.done.isDone()) continue; // its mutation failed
+        BatchedMutationsPlayer player = new BatchedMutationsPlayer(scm, this, update);
+        try {
+          ZkUpdateApplicator.applyUpdate(zkStateReader, player);
+          player.complete(null);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          player.complete(e);
+        } catch (Throwable t) {
+          player.complete(t);
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the changes of a batch of pending state updates of a collection. The batch takes the
+   * updates that are pending when it is computed, including when the conditional update of {@code
+   * state.json} is retried, so that a retry also writes the updates requested in the meantime.
+   * Per replica states are only written by the first attempt though, so retries of collections
+   * with per replica states don't take new updates.
+   *
+   * <p>The updates are applied one at a time: an update whose mutation can't be applied fails on
+   * its own, without failing the rest of the batch.
+   */
+  private static class BatchedMutationsPlayer extends StateChangeRecorder.RecordedMutationsPlayer {
+    private final CollectionStateUpdates collectionStateUpdates;
+    private final List<PendingStateUpdate> updates = new ArrayList<>();
+    // whether pending updates are added to the batch
+    private final boolean takePending;
+
+    BatchedMutationsPlayer(SolrCloudManager scm, CollectionStateUpdates collectionStateUpdates) {
+      super(scm, collectionStateUpdates.collectionName, false, new ArrayList<>());
+      this.collectionStateUpdates = collectionStateUpdates;
+      this.takePending = true;
+    }
+
+    /** A batch of the given update only */
+    BatchedMutationsPlayer(
+        SolrCloudManager scm,
+        CollectionStateUpdates collectionStateUpdates,
+        PendingStateUpdate update) {
+      super(scm, collectionStateUpdates.collectionName, false, new ArrayList<>());
+      this.collectionStateUpdates = collectionStateUpdates;
+      this.takePending = false;
+      updates.add(update);
+      mutations.add(new Pair<>(update.command, update.message));
+    }
+
+    @Override
+    public void computeUpdates(ClusterState clusterState, SolrZkClient client) {
+      DocCollection collection = clusterState.getCollectionOrNull(getCollectionName());
+      if (takePending
+          && (updates.isEmpty() || (collection != null && !collection.isPerReplicaState()))) {
+        for (PendingStateUpdate update : collectionStateUpdates.takePending()) {
+          updates.add(update);
+          mutations.add(new Pair<>(update.command, update.message));
+        }
+      }
+      super.computeUpdates(clusterState, client);
+    }
+
+    /**
+     * Skips the updates that already failed, e.g. when the conditional update of {@code state.json}
+     * is retried after their mutation failed: their callers were told so.
+     */
+    @Override
+    boolean isMutationSkipped(int index) {
+      return updates.get(index).done.isDone();
+    }
+
+    @Override
+    void onMutationFailure(int index, Exception e) {
+      log.warn("Could not apply the state update {}", mutations.get(index).second(), e);
+      updates.get(index).done.completeExceptionally(e);
+    }
+
+    /**
+     * Completes the updates of the batch that didn't fail on their own, exceptionally if the given
+     * failure isn't null
+     */
+    void complete(Throwable failure) {
+      for (PendingStateUpdate update : updates) {
+        if (failure == null) {
+          update.done.complete(null);
+        } else {
+          update.done.completeExceptionally(failure);
+        }
+      }
+    }
+  }
+
   public void executeNodeDownStateUpdate(String nodeName, ZkStateReader zkStateReader) {
     if (!useDistributedStateUpdate) {
       throw new IllegalStateException(
@@ -593,7 +868,7 @@ public class DistributedClusterStateUpdater {
       } else {
         // Collection update or creation
         DocCollection collection = updatedState.getCollection(updater.getCollectionName());
-        byte[] stateJson = Utils.toJSON(singletonMap(updater.getCollectionName(), collection));
+        byte[] stateJson = ClusterState.serializeCollectionState(collection);
 
         if (updater.isCollectionCreation()) {
           // The state.json file does not exist yet (more precisely it is assumed not to exist)
@@ -813,9 +1088,10 @@ public class DistributedClusterStateUpdater {
       public void computeUpdates(ClusterState clusterState, SolrZkClient client) {
         boolean hasJsonUpdates = false;
         List<PerReplicaStatesOps> perReplicaStateOps = new ArrayList<>();
-        for (Pair<MutatingCommand, ZkNodeProps> mutation : mutations) {
-          MutatingCommand mutatingCommand = mutation.first();
-          ZkNodeProps message = mutation.second();
+        for (int i = 0; i < mutations.size(); i++) {
+          if (isMutationSkipped(i)) continue;
+          MutatingCommand mutatingCommand = mutations.get(i).first();
+          ZkNodeProps message = mutations.get(i).second();
           try {
             ZkWriteCommand zkcmd = mutatingCommand.buildWriteCommand(scm, clusterState, message);
             if (zkcmd != ZkStateWriter.NO_OP) {
@@ -826,16 +1102,7 @@ public class DistributedClusterStateUpdater {
               perReplicaStateOps.add(zkcmd.ops);
             }
           } catch (Exception e) {
-            // Seems weird to skip rather than fail, but that's what Overseer is doing (see
-            // ClusterStateUpdater.processQueueItem()). Maybe in the new distributed update world we
-            // should make the caller fail? (something Overseer cluster state updater can't do) To
-            // be reconsidered once Collection API commands are distributed because then cluster
-            // updates are done synchronously and have the opportunity to make the Collection API
-            // call fail directly.
-            log.error(
-                "Distributed cluster state update could not process the current clusterstate state update message, skipping the message: {}",
-                message,
-                e);
+            onMutationFailure(i, e);
           }
         }
 
@@ -843,6 +1110,31 @@ public class DistributedClusterStateUpdater {
         replicaOpsList = perReplicaStateOps.isEmpty() ? null : perReplicaStateOps;
       }
 
+      /**
+       * @return true if the mutation at the given index of {@link #mutations} must not be applied
+       *     (anymore)
+       */
+      boolean isMutationSkipped(int index) {
+        return false;
+      }
+
+      /**
+       * Called when the mutation at the given index of {@link #mutations} can't be applied. It is
+       * skipped, the other mutations are still applied.
+       */
+      void onMutationFailure(int index, Exception e) {
+        // Seems weird to skip rather than fail, but that's what Overseer is doing (see
+        // ClusterStateUpdater.processQueueItem()). Maybe in the new distributed update world we
+        // should make the caller fail? (something Overseer cluster state updater can't do) To
+        // be reconsidered once Collection API commands are distributed because then cluster
+        // updates are done synchronously and have the opportunity to make the Collection API
+        // call fail directly.
+        log.error(
+            "Distributed cluster state update could not process the current clusterstate state update message, skipping the message: {}",
+            mutations.get(index).second(),
+            e);
+      }
+
       @Override
       public ClusterState getUpdatedClusterState() {
         return computedState;
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.ReplicationHandler;
+import org.apache.solr.update.UpdateShardHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Announces the commits of a shard leader to the TLOG and PULL replicas of the shard, so that they
+ * fetch the new segments right away rather than at their next poll.
+ *
+ * <p>An announcement carries the generation of the commit and the size of the files it added since
+ * the previous one. Replicas then run their regular index fetch, which only downloads the files
+ * they don't have yet, i.e. the new segments.
+ *
+ * <p>Segments produced by merges are announced too, as soon as the merge is done: replicas fetch
+ * their files ahead of the commit, so that a large merge doesn't hold the next commit back.
+ *
+ * @see ReplicateFromLeader#onLeaderIndexChanged(long, long)
+ */
+public class IndexChangeAnnouncer {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** The minimum size of a merged segment to be pre-copied by the replicas, in bytes */
+  public static final String PRECOPY_MIN_BYTES_PROP = "solr.replication.preCopyMinBytes";
+
+  private final SolrCore core;
+
+  // the files of the previously announced commit
+  private Set<String> announcedFiles;
+
+  public IndexChangeAnnouncer(SolrCore core) {
+    this.core = core;
+    IndexCommit latestCommit = core.getDeletionPolicy().getLatestCommit();
+    this.announcedFiles =
+        latestCommit == null ? Collections.emptySet() : getFileNames(latestCommit);
+  }
+
+  /**
+   * Announces the given commit to the TLOG and PULL replicas on live nodes, if this core is the
+   * leader of its shard. The notifications are sent asynchronously and failures are only logged:
+   * replicas still poll.
+   */
+  public synchronized void announce(IndexCommit commit) {
+    if (!isLeader()) return;
+
+    Set<String> files = getFileNames(commit);
+    List<Replica> replicas = getReplicasToNotify();
+    if (replicas.isEmpty()) {
+      // e.g. a shard of NRT replicas only: the files don't need to be looked at
+      announcedFiles = files;
+      return;
+    }
+    long newBytes = 0;
+    for (String file : files) {
+      if (!announcedFiles.contains(file)) {
+        try {
+          newBytes += commit.getDirectory().fileLength(file);
+        } catch (IOException e) {
+          log.debug("Could not get the length of {}", file, e);
+        }
+      }
+    }
+    announcedFiles = files;
+
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(ReplicationHandler.COMMAND, ReplicationHandler.CMD_INDEX_CHANGED);
+    params.set(ReplicationHandler.GENERATION, Long.toString(commit.getGeneration()));
+    params.set(ReplicationHandler.NEW_BYTES, Long.toString(newBytes));
+    notifyReplicas(replicas, params);
+  }
+
+  /**
+   * Announces a segment that was just merged, and isn't committed yet, to the TLOG and PULL
+   * replicas on live nodes if this core is the leader of its shard, so that they start fetching its
+   * files right away. Segments smaller than {@link #PRECOPY_MIN_BYTES_PROP} (1MB by default) are
+   * fetched along with the commit.
+   *
+   * <p>This is called by the merge thread, so the files are read and the announcement is sent
+   * asynchronously.
+   *
+   * @see ReplicateFromLeader#onLeaderMergedSegment(List, Long)
+   */
+  public void announceMergedSegment(SegmentCommitInfo mergedSegment) {
+    if (!isLeader()) return;
+    List<Replica> replicas = getReplicasToNotify();
+    if (replicas.isEmpty()) return;
+
+    try {
+      core.getCoreContainer()
+          .getUpdateShardHandler()
+          .getUpdateExecutor()
+          .execute(() -> doAnnounceMergedSegment(mergedSegment, replicas));
+    } catch (RejectedExecutionException e) {
+      // shutting down
+    }
+  }
+
+  private void doAnnounceMergedSegment(SegmentCommitInfo mergedSegment, List<Replica> replicas) {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(ReplicationHandler.COMMAND, ReplicationHandler.CMD_MERGED_SEGMENT);
+    // replicas discard the files if they aren't part of one of the next commits
+    IndexCommit latestCommit = core.getDeletionPolicy().getLatestCommit();
+    if (latestCommit != null) {
+      params.set(ReplicationHandler.GENERATION, Long.toString(latestCommit.getGeneration()));
+    }
+    Directory dir = mergedSegment.info.dir;
+    try {
+      Collection<String> files = mergedSegment.files();
+      long size = 0;
+      for (String file : files) {
+        size += dir.fileLength(file);
+      }
+      if (size < Long.getLong(PRECOPY_MIN_BYTES_PROP, 1024 * 1024)) return;
+      for (String file : files) {
+        long checksum;
+        try (IndexInput in = dir.openInput(file, IOContext.READONCE)) {
+          checksum = CodecUtil.retrieveChecksum(in);
+        }
+        params.add(ReplicationHandler.FILE, file);
+        params.add(ReplicationHandler.SIZE, Long.toString(dir.fileLength(file)));
+        params.add(ReplicationHandler.CHECKSUM, Long.toString(checksum));
+      }
+    } catch (IOException e) {
+      // e.g. the segment was already merged away
+      log.debug("Could not read the files of merged segment {}", mergedSegment, e);
+      return;
+    }
+    notifyReplicas(replicas, params);
+  }
+
+  private boolean isLeader() {
+    CloudDescriptor cloudDescriptor = core.getCoreDescriptor().getCloudDescriptor();
+    return cloudDescriptor != null
+        && core.getCoreContainer().getZkController() != null
+        && cloudDescriptor.isLeader();
+  }
+
+  /** The TLOG and PULL replicas of the shard that are on live nodes */
+  private List<Replica> getReplicasToNotify() {
+    CloudDescriptor cloudDescriptor = core.getCoreDescriptor().getCloudDescriptor();
+    ClusterState clusterState = core.getCoreContainer().getZkController().getClusterState();
+    DocCollection collection =
+        clusterState.getCollectionOrNull(cloudDescriptor.getCollectionName());
+    Slice slice = collection == null ? null : collection.getSlice(cloudDescriptor.getShardId());
+    if (slice == null) return Collections.emptyList();
+    List<Replica> replicas = new ArrayList<>();
+    for (Replica replica : slice.getReplicas(EnumSet.of(Replica.Type.TLOG, Replica.Type.PULL))) {
+      if (!replica.getName().equals(cloudDescriptor.getCoreNodeName())
+          && clusterState.liveNodesContain(replica.getNodeName())) {
+        replicas.add(replica);
+      }
+    }
+    return replicas;
+  }
+
+  private void notifyReplicas(List<Replica> replicas, ModifiableSolrParams params) {
+    UpdateShardHandler updateShardHandler = core.getCoreContainer().getUpdateShardHandler();
+    for (Replica replica : replicas) {
+      try {
+        updateShardHandler
+            .getUpdateExecutor()
+            .execute(() -> notifyReplica(updateShardHandler, replica, params));
+      } catch (RejectedExecutionException e) {
+        // shutting down
+        return;
+      }
+    }
+  }
+
+  private void notifyReplica(
+      UpdateShardHandler updateShardHandler, Replica replica, ModifiableSolrParams params) {
+    ExecutorUtil.setServerThreadFlag(true); // so PKI auth works
+    try {
+      GenericSolrRequest request =
+          new GenericSolrRequest(SolrRequest.METHOD.POST, ReplicationHandler.PATH, params);
+      request.setBasePath(replica.getCoreUrl());
+      updateShardHandler.getUpdateOnlyHttpClient().request(request);
+    } catch (Exception e) {
+      log.warn(
+          "Could not send {} to {}",
+          params.get(ReplicationHandler.COMMAND),
+          replica.getCoreUrl(),
+          e);
+    } finally {
+      ExecutorUtil.setServerThreadFlag(null);
+    }
+  }
+
+  private static Set<String> getFileNames(IndexCommit commit) {
+    try {
+      Collection<String> files = commit.getFileNames();
+      return new HashSet<>(files);
+    } catch (IOException e) {
+      log.warn("Could not list the files of commit {}", commit.getGeneration(), e);
+      return Collections.emptySet();
+    }
+  }
+}
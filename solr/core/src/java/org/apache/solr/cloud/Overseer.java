@@ -158,6 +158,12 @@ public class Overseer implements SolrCloseable {
       Integer.getInteger("solr.OverseerStateUpdateBatchSize", 10000);
   public static final int STATE_UPDATE_MAX_QUEUE =
       Integer.getInteger("solr.OverseerStateUpdateMaxQueueSize", 20000);
+  /**
+   * The number of partitions of the collections whose pending state updates are written to ZK in
+   * parallel. 1 writes them all on the cluster state updater thread.
+   */
+  public static final int STATE_UPDATE_PARTITIONS =
+      Integer.getInteger("solr.OverseerStateUpdatePartitions", 8);
 
   public static final int NUM_RESPONSES_TO_STORE = 10000;
   public static final String OVERSEER_ELECT = "/overseer_elect";
@@ -179,7 +185,9 @@ public class Overseer implements SolrCloseable {
    * <code>/overseer/queue</code> and executing the requested cluster change (essentially writing or
    * updating <code>state.json</code> for a collection).
    *
-   * <p>The cluster state updater is a single thread dequeueing and executing requests.
+   * <p>The cluster state updater is a single thread dequeueing and executing requests. The state
+   * updates it batches are written to ZooKeeper in parallel by partitions of the collections, see
+   * {@link #STATE_UPDATE_PARTITIONS}.
    */
   private class ClusterStateUpdater implements Runnable, Closeable {
 
@@ -207,6 +215,9 @@ public class Overseer implements SolrCloseable {
 
     private final Compressor compressor;
 
+    // null when all the state updates are written on the updater thread
+    private final ZkStateWriter.WritePartitions writePartitions;
+
     private boolean isClosed = false;
 
     public ClusterStateUpdater(
@@ -233,6 +244,21 @@ public class Overseer implements SolrCloseable {
           true,
           "stateUpdateQueueSize",
           "queue");
+
+      if (STATE_UPDATE_PARTITIONS > 1) {
+        writePartitions = new ZkStateWriter.WritePartitions(STATE_UPDATE_PARTITIONS);
+        for (int i = 0; i < STATE_UPDATE_PARTITIONS; i++) {
+          final int partition = i;
+          clusterStateUpdaterMetricContext.gauge(
+              () -> writePartitions.getPendingUpdates(partition),
+              true,
+              "partition" + partition,
+              "queue",
+              "pendingStateUpdates");
+        }
+      } else {
+        writePartitions = null;
+      }
     }
 
     public Stats getStateUpdateQueueStats() {
@@ -279,7 +305,8 @@ public class Overseer implements SolrCloseable {
               reader.forciblyRefreshAllClusterStateSlow();
               clusterState = reader.getClusterState();
               zkStateWriter =
-                  new ZkStateWriter(reader, stats, minStateByteLenForCompression, compressor);
+                  new ZkStateWriter(
+                      reader, stats, minStateByteLenForCompression, compressor, writePartitions);
               refreshClusterState = false;
 
               // if there were any errors while processing
@@ -413,6 +440,7 @@ public class Overseer implements SolrCloseable {
         if (log.isInfoEnabled()) {
           log.info("Overseer Loop exiting : {}", LeaderElector.getNodeName(myId));
         }
+        IOUtils.closeQuietly(writePartitions);
         // do this in a separate thread because any wait is interrupted in this main thread
         new Thread(this::checkIfIamStillLeader, "OverseerExitThread").start();
       }
@@ -17,8 +17,13 @@
 
 package org.apache.solr.cloud;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.SegmentCommitInfo;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.params.ModifiableSolrParams;
@@ -45,6 +50,11 @@ public class ReplicateFromLeader {
   private volatile ReplicationHandler replicationProcess;
   private volatile long lastVersion = 0;
 
+  // the latest commit announced by the leader and not replicated yet, see onLeaderIndexChanged
+  private long pendingGeneration = -1;
+  private long pendingBytes = 0;
+  private long pendingSinceNs = 0;
+
   public ReplicateFromLeader(CoreContainer cc, String coreName) {
     this.cc = cc;
     this.coreName = coreName;
@@ -122,27 +132,104 @@ public class ReplicateFromLeader {
       }
 
       replicationProcess = new ReplicationHandler();
-      if (switchTransactionLog) {
-        replicationProcess.setPollListener(
-            (solrCore, fetchResult) -> {
-              if (fetchResult == IndexFetcher.IndexFetchResult.INDEX_FETCH_SUCCESS) {
-                String commitVersion = getCommitVersion(core);
-                if (commitVersion == null) return;
-                if (Long.parseLong(commitVersion) == lastVersion) return;
-                UpdateLog updateLog = solrCore.getUpdateHandler().getUpdateLog();
-                SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams());
-                CommitUpdateCommand cuc = new CommitUpdateCommand(req, false);
-                cuc.setVersion(Long.parseLong(commitVersion));
-                updateLog.commitAndSwitchToNewTlog(cuc);
-                lastVersion = Long.parseLong(commitVersion);
-              }
-            });
-      }
+      replicationProcess.setPollListener(
+          (solrCore, fetchResult) -> {
+            if (switchTransactionLog
+                && fetchResult == IndexFetcher.IndexFetchResult.INDEX_FETCH_SUCCESS) {
+              String commitVersion = getCommitVersion(core);
+              if (commitVersion == null) return;
+              if (Long.parseLong(commitVersion) == lastVersion) return;
+              UpdateLog updateLog = solrCore.getUpdateHandler().getUpdateLog();
+              SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams());
+              CommitUpdateCommand cuc = new CommitUpdateCommand(req, false);
+              cuc.setVersion(Long.parseLong(commitVersion));
+              updateLog.commitAndSwitchToNewTlog(cuc);
+              lastVersion = Long.parseLong(commitVersion);
+            }
+          });
       replicationProcess.init(replicationConfig);
       replicationProcess.inform(core);
     }
   }
 
+  /**
+   * Called when the leader announces a new commit: the index is fetched right away rather than at
+   * the next poll.
+   *
+   * @param generation the generation of the commit of the leader
+   * @param newBytes the size of the files added by that commit
+   * @see IndexChangeAnnouncer
+   */
+  public void onLeaderIndexChanged(long generation, long newBytes) {
+    log.debug("The leader announced commit generation {} adding {} bytes", generation, newBytes);
+    synchronized (this) {
+      if (generation > pendingGeneration) {
+        pendingGeneration = generation;
+        pendingBytes += newBytes;
+        if (pendingSinceNs == 0) pendingSinceNs = System.nanoTime();
+      } else if (generation < pendingGeneration) {
+        // a new leader, with an older generation
+        pendingGeneration = generation;
+        pendingBytes = newBytes;
+        pendingSinceNs = System.nanoTime();
+      }
+    }
+    ReplicationHandler replicationHandler = replicationProcess;
+    if (replicationHandler != null) {
+      replicationHandler.fetchNow();
+    }
+  }
+
+  /**
+   * Called when the leader announces a segment it just merged: its files are fetched in the
+   * background so that the fetch of the commit that references them doesn't have to.
+   *
+   * @param files the name, size and checksum of each file of the merged segment
+   * @param generation the generation of the leader's latest commit when the segment was merged, or
+   *     null if unknown
+   * @see IndexChangeAnnouncer#announceMergedSegment(SegmentCommitInfo)
+   */
+  public void onLeaderMergedSegment(List<Map<String, Object>> files, Long generation) {
+    log.debug("The leader announced a merged segment with {} files", files.size());
+    ReplicationHandler replicationHandler = replicationProcess;
+    if (replicationHandler != null) {
+      replicationHandler.preCopy(files, generation);
+    }
+  }
+
+  /**
+   * Called once a fetch from the leader succeeded, whatever triggered it, so that the commits it
+   * replicated don't count in the replication lag anymore
+   */
+  public void onFetchComplete(SolrCore core) throws IOException {
+    long generation =
+        core.withSearcher(searcher -> searcher.getIndexReader().getIndexCommit().getGeneration());
+    synchronized (this) {
+      if (generation >= pendingGeneration) {
+        pendingBytes = 0;
+        pendingSinceNs = 0;
+      }
+    }
+  }
+
+  /**
+   * @return how long ago the leader announced the oldest commit this replica hasn't replicated yet,
+   *     0 if it is up-to-date
+   */
+  public synchronized long getReplicationLagMs() {
+    return pendingSinceNs == 0
+        ? 0
+        : TimeUnit.MILLISECONDS.convert(System.nanoTime() - pendingSinceNs, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return the size of the files added by the commits announced by the leader and not replicated
+   *     yet
+   */
+  public synchronized long getReplicationLagBytes() {
+    return pendingBytes;
+  }
+
   public static String getCommitVersion(SolrCore solrCore) {
     IndexCommit commit = solrCore.getDeletionPolicy().getLatestCommit();
     try {
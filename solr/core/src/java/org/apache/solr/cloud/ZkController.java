@@ -1452,6 +1452,14 @@ public class ZkController implements Closeable {
     }
   }
 
+  /**
+   * @return the background replication from the leader of the given core, null if it isn't a TLOG
+   *     or PULL replica replicating from its leader
+   */
+  public ReplicateFromLeader getReplicateFromLeader(String coreName) {
+    return replicateFromLeaders.get(coreName);
+  }
+
   // timeoutms is the timeout for the first call to get the leader - there is then
   // a longer wait to make sure that leader matches our local state
   private String getLeader(final CloudDescriptor cloudDesc, int timeoutms) {
@@ -595,6 +595,7 @@ public class Assign {
         placementPlugin = (new SimplePlacementFactory()).createPluginInstance();
       }
     }
-    return new PlacementPluginAssignStrategy(placementPlugin);
+    return new PlacementPluginAssignStrategy(
+        placementPlugin, coreContainer.getAsyncTaskExecutor());
   }
 }
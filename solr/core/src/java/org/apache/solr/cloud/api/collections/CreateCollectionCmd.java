@@ -192,7 +192,7 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
         ZkWriteCommand command =
             new ClusterStateMutator(ccc.getSolrCloudManager())
                 .createCollection(clusterState, message);
-        byte[] data = Utils.toJSON(Collections.singletonMap(collectionName, command.collection));
+        byte[] data = ClusterState.serializeCollectionState(command.collection);
         ccc.getZkStateReader()
             .getZkClient()
             .create(collectionPath, data, CreateMode.PERSISTENT, true);
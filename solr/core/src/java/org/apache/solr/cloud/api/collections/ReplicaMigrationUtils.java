@@ -24,13 +24,20 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.cloud.NodeStateProvider;
 import org.apache.solr.cloud.ActiveReplicaWatcher;
+import org.apache.solr.cluster.placement.impl.ReplicaMetricImpl;
 import org.apache.solr.common.SolrCloseableLatch;
 import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.CollectionStateWatcher;
@@ -48,12 +55,23 @@ import org.slf4j.LoggerFactory;
 public class ReplicaMigrationUtils {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /**
+   * The maximum number of replicas moved to or from each node at the same time. Moving replicas
+   * copies their index, so limiting the moves limits the network and disk usage of the nodes while
+   * they keep serving queries. Unlimited by default.
+   */
+  public static final String MAX_MOVES_PER_NODE_PROP = "solr.maxReplicaMovesPerNode";
+
   /**
    * Code to migrate replicas to already chosen nodes. This will create new replicas, and delete the
    * old replicas after the creation is done.
    *
    * <p>If an error occurs during the creation of new replicas, all new replicas will be deleted.
    *
+   * <p>If the number of moves per node is limited by {@link #MAX_MOVES_PER_NODE_PROP}, replicas
+   * are moved in successive rounds, largest first, each one waiting for the final state of its new
+   * replicas. If a round fails, the replicas moved by the previous rounds stay on their new nodes.
+   *
    * @param ccc The collection command context to use from the API that calls this method
    * @param movements a map from replica to the new node that the replica should live on
    * @param parallel whether the replica creations should be done in parallel
@@ -73,6 +91,108 @@ public class ReplicaMigrationUtils {
       String asyncId,
       NamedList<Object> results)
       throws IOException, InterruptedException, KeeperException {
+    int maxMovesPerNode = Integer.getInteger(MAX_MOVES_PER_NODE_PROP, 0);
+    if (maxMovesPerNode <= 0 || movements.size() <= maxMovesPerNode) {
+      return migrateReplicasAtOnce(
+          ccc, movements, parallel, waitForFinalState, timeout, asyncId, results);
+    }
+
+    Map<Replica, Long> indexSizes = getIndexSizes(ccc, movements.keySet());
+    List<Replica> pendingReplicas = new ArrayList<>(movements.keySet());
+    pendingReplicas.sort(Comparator.comparing((Replica r) -> indexSizes.get(r)).reversed());
+    long totalBytes = indexSizes.values().stream().mapToLong(Long::longValue).sum();
+    long movedBytes = 0;
+    int movedReplicas = 0;
+    long startNanos = System.nanoTime();
+    while (!pendingReplicas.isEmpty()) {
+      Map<Replica, String> roundMovements = new LinkedHashMap<>();
+      Map<String, Integer> movesPerNode = new HashMap<>();
+      for (Iterator<Replica> it = pendingReplicas.iterator(); it.hasNext(); ) {
+        Replica replica = it.next();
+        String sourceNode = replica.getNodeName();
+        String targetNode = movements.get(replica);
+        if (movesPerNode.getOrDefault(sourceNode, 0) < maxMovesPerNode
+            && movesPerNode.getOrDefault(targetNode, 0) < maxMovesPerNode) {
+          roundMovements.put(replica, targetNode);
+          movesPerNode.merge(sourceNode, 1, Integer::sum);
+          movesPerNode.merge(targetNode, 1, Integer::sum);
+          it.remove();
+        }
+      }
+      // wait for the final state of the new replicas, i.e. for their recovery to be done, before
+      // moving more replicas from or to their nodes
+      if (!migrateReplicasAtOnce(ccc, roundMovements, parallel, true, timeout, asyncId, results)) {
+        return false;
+      }
+      movedReplicas += roundMovements.size();
+      for (Replica replica : roundMovements.keySet()) {
+        movedBytes += indexSizes.get(replica);
+      }
+      if (log.isInfoEnabled()) {
+        long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+        long remainingSeconds =
+            movedBytes > 0
+                ? elapsedSeconds * (totalBytes - movedBytes) / movedBytes
+                : elapsedSeconds * pendingReplicas.size() / movedReplicas;
+        log.info(
+            "Moved {} of {} replicas ({} of {} bytes) in {}s, about {}s remaining",
+            movedReplicas,
+            movements.size(),
+            movedBytes,
+            totalBytes,
+            elapsedSeconds,
+            remainingSeconds);
+      }
+    }
+    return true;
+  }
+
+  /** Returns the index size of the replicas, 0 if it isn't known */
+  private static Map<Replica, Long> getIndexSizes(
+      CollectionCommandContext ccc, Collection<Replica> replicas) {
+    String sizeKey = ReplicaMetricImpl.INDEX_SIZE_GB.getInternalName();
+    Map<String, Long> coreSizes = new HashMap<>();
+    NodeStateProvider nodeStateProvider = ccc.getSolrCloudManager().getNodeStateProvider();
+    Set<String> nodes = replicas.stream().map(Replica::getNodeName).collect(Collectors.toSet());
+    for (String node : nodes) {
+      try {
+        nodeStateProvider
+            .getReplicaInfo(node, Set.of(sizeKey))
+            .forEach(
+                (collection, shards) ->
+                    shards.forEach(
+                        (shard, shardReplicas) -> {
+                          for (Replica replica : shardReplicas) {
+                            Object size = replica.get(sizeKey);
+                            if (size instanceof Number) {
+                              coreSizes.put(
+                                  collection + "/" + replica.getCoreName(),
+                                  ((Number) size).longValue());
+                            }
+                          }
+                        }));
+      } catch (RuntimeException e) {
+        log.warn("Unable to get the index size of the replicas of {}", node, e);
+      }
+    }
+    Map<Replica, Long> indexSizes = new HashMap<>();
+    for (Replica replica : replicas) {
+      indexSizes.put(
+          replica,
+          coreSizes.getOrDefault(replica.getCollection() + "/" + replica.getCoreName(), 0L));
+    }
+    return indexSizes;
+  }
+
+  private static boolean migrateReplicasAtOnce(
+      CollectionCommandContext ccc,
+      Map<Replica, String> movements,
+      boolean parallel,
+      boolean waitForFinalState,
+      int timeout,
+      String asyncId,
+      NamedList<Object> results)
+      throws IOException, InterruptedException, KeeperException {
     // how many leaders are we moving? for these replicas we have to make sure that either:
     // * another existing replica can become a leader, or
     // * we wait until the newly created replica completes recovery (and can become the new leader)
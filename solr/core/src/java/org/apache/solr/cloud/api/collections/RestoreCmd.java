@@ -45,8 +45,13 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.solr.cloud.DistributedClusterStateUpdater;
 import org.apache.solr.cloud.Overseer;
 import org.apache.solr.cloud.api.collections.CollectionHandlingUtils.ShardRequestTracker;
@@ -70,8 +75,10 @@ import org.apache.solr.common.params.CollectionParams;
 import org.apache.solr.common.params.CoreAdminParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.CollectionUtil;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.StrUtils;
 import org.apache.solr.core.ConfigSetService;
 import org.apache.solr.core.CoreContainer;
@@ -87,6 +94,10 @@ import org.slf4j.LoggerFactory;
 public class RestoreCmd implements CollApiCmds.CollectionApiCommand {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /** The maximum number of shards of a new collection whose index is restored concurrently */
+  public static final String MAX_CONCURRENT_SHARD_RESTORES_PROP =
+      "solr.restore.maxConcurrentShards";
+
   private final CollectionCommandContext ccc;
 
   public RestoreCmd(CollectionCommandContext ccc) {
@@ -112,7 +123,7 @@ public class RestoreCmd implements CollApiCmds.CollectionApiCommand {
 
   private void requestReplicasToRestore(
       NamedList<Object> results,
-      DocCollection restoreCollection,
+      Collection<Slice> slices,
       ClusterState clusterState,
       BackupProperties backupProperties,
       URI backupPath,
@@ -122,7 +133,7 @@ public class RestoreCmd implements CollApiCmds.CollectionApiCommand {
     ShardRequestTracker shardRequestTracker =
         CollectionHandlingUtils.asyncRequestTracker(asyncId, ccc);
     // Copy data from backed up index to each replica
-    for (Slice slice : restoreCollection.getSlices()) {
+    for (Slice slice : slices) {
       ModifiableSolrParams params = new ModifiableSolrParams();
       params.set(CoreAdminParams.ACTION, CoreAdminParams.CoreAdminAction.RESTORECORE.toString());
       Optional<ShardBackupId> shardBackupId = backupProperties.getShardBackupIdFor(slice.getName());
@@ -291,17 +302,7 @@ public class RestoreCmd implements CollApiCmds.CollectionApiCommand {
       // refresh the location copy of collection state
       restoreCollection =
           rc.zkStateReader.getClusterState().getCollection(rc.restoreCollectionName);
-      requestReplicasToRestore(
-          results,
-          restoreCollection,
-          clusterState,
-          rc.backupProperties,
-          rc.backupPath,
-          rc.repo,
-          rc.shardHandler,
-          rc.asyncId);
-      markAllShardsAsActive(restoreCollection);
-      addReplicasToShards(results, clusterState, restoreCollection, replicaPositions, rc.asyncId);
+      restoreShards(results, restoreCollection, clusterState, replicaPositions, rc);
       restoringAlias(rc.backupProperties);
 
       log.info("Completed restoring collection={} backupName={}", restoreCollection, rc.backupName);
@@ -509,13 +510,137 @@ public class RestoreCmd implements CollApiCmds.CollectionApiCommand {
       }
     }
 
-    // Mark all shards in ACTIVE STATE
-    private void markAllShardsAsActive(DocCollection restoreCollection)
+    /**
+     * Restores the index of the shards concurrently, up to {@link
+     * #MAX_CONCURRENT_SHARD_RESTORES_PROP} (8 by default) at a time. Each shard is marked active,
+     * then gets its other replicas, as soon as its own index is restored, without waiting for the
+     * other shards.
+     *
+     * <p>If a shard fails, the shards that didn't start yet aren't restored, the ones being
+     * restored are waited for, and then the new collection is deleted, like when its initial
+     * replicas can't be created: a partially restored collection, missing documents, is never left
+     * behind.
+     */
+    private void restoreShards(
+        NamedList<Object> results,
+        DocCollection restoreCollection,
+        ClusterState clusterState,
+        List<ReplicaPosition> replicaPositions,
+        RestoreContext rc)
+        throws Exception {
+      Collection<Slice> slices = restoreCollection.getSlices();
+      AtomicInteger numRestoredShards = new AtomicInteger();
+      int maxConcurrentShards =
+          Math.max(1, Integer.getInteger(MAX_CONCURRENT_SHARD_RESTORES_PROP, 8));
+      AtomicBoolean shardFailed = new AtomicBoolean();
+      ExecutorService executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              Math.min(slices.size(), maxConcurrentShards),
+              new SolrNamedThreadFactory("restoreShard"));
+      try {
+        List<Future<NamedList<Object>>> futures = new ArrayList<>(slices.size());
+        for (Slice slice : slices) {
+          List<ReplicaPosition> sliceReplicaPositions = new ArrayList<>();
+          for (ReplicaPosition replicaPosition : replicaPositions) {
+            if (Objects.equals(replicaPosition.shard, slice.getName())) {
+              sliceReplicaPositions.add(replicaPosition);
+            }
+          }
+          // the core admin requests of each shard are tracked concurrently, so their async ids must
+          // not depend on the time they are sent at only
+          String sliceAsyncId =
+              rc.asyncId == null ? null : rc.asyncId + "_" + slice.getName() + "_";
+          futures.add(
+              executor.submit(
+                  () -> {
+                    if (shardFailed.get()) return null;
+                    try {
+                      NamedList<Object> sliceResults = new NamedList<>();
+                      List<Slice> sliceList = List.of(slice);
+                      requestReplicasToRestore(
+                          sliceResults,
+                          sliceList,
+                          clusterState,
+                          rc.backupProperties,
+                          rc.backupPath,
+                          rc.repo,
+                          ccc.newShardHandler(),
+                          sliceAsyncId);
+                      markShardsAsActive(restoreCollection, sliceList);
+                      int numRestored = numRestoredShards.incrementAndGet();
+                      if (log.isInfoEnabled()) {
+                        log.info(
+                            "Restored shard={} collection={} ({} of {} shards)",
+                            slice.getName(),
+                            restoreCollection.getName(),
+                            numRestored,
+                            slices.size());
+                      }
+                      addReplicasToShards(
+                          sliceResults,
+                          clusterState,
+                          restoreCollection,
+                          sliceList,
+                          sliceReplicaPositions,
+                          sliceAsyncId);
+                      return sliceResults;
+                    } catch (Exception e) {
+                      shardFailed.set(true);
+                      throw e;
+                    }
+                  }));
+        }
+        Exception failure = null;
+        for (Future<NamedList<Object>> future : futures) {
+          try {
+            NamedList<Object> sliceResults = future.get();
+            if (sliceResults != null) { // null if skipped because another shard failed
+              mergeResults(results, sliceResults);
+            }
+          } catch (ExecutionException e) {
+            log.error("Error restoring collection={}", restoreCollection.getName(), e.getCause());
+            if (failure == null) {
+              failure =
+                  e.getCause() instanceof Exception
+                      ? (Exception) e.getCause()
+                      : new SolrException(ErrorCode.SERVER_ERROR, e.getCause());
+            }
+          }
+        }
+        if (failure != null) {
+          log.error(
+              "Restore failed to restore the shards, deleting collection={}",
+              restoreCollection.getName());
+          CollectionHandlingUtils.cleanupCollection(
+              restoreCollection.getName(), new NamedList<>(), ccc);
+          throw failure;
+        }
+      } finally {
+        ExecutorUtil.shutdownNowAndAwaitTermination(executor);
+      }
+    }
+
+    /** Adds the success and failure responses of a shard to the results */
+    private void mergeResults(NamedList<Object> results, NamedList<Object> sliceResults) {
+      for (Map.Entry<String, Object> entry : sliceResults) {
+        Object value = results.get(entry.getKey());
+        if (value instanceof NamedList && entry.getValue() instanceof NamedList) {
+          @SuppressWarnings("unchecked")
+          NamedList<Object> namedList = (NamedList<Object>) value;
+          namedList.addAll((NamedList<?>) entry.getValue());
+        } else {
+          results.add(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
+    // Mark shards in ACTIVE STATE
+    private void markShardsAsActive(DocCollection restoreCollection, Collection<Slice> slices)
         throws KeeperException, InterruptedException {
       LinkedHashMapWriter<Object> propMap = new LinkedHashMapWriter<>();
       propMap.put(Overseer.QUEUE_OPERATION, OverseerAction.UPDATESHARDSTATE.toLower());
       propMap.put(ZkStateReader.COLLECTION_PROP, restoreCollection.getName());
-      for (Slice shard : restoreCollection.getSlices()) {
+      for (Slice shard : slices) {
         propMap.put(shard.getName(), Slice.State.ACTIVE.toString());
       }
       if (ccc.getDistributedClusterStateUpdater().isDistributedStateUpdate()) {
@@ -534,6 +659,7 @@ public class RestoreCmd implements CollApiCmds.CollectionApiCommand {
         NamedList<Object> results,
         ClusterState clusterState,
         DocCollection restoreCollection,
+        Collection<Slice> slices,
         List<ReplicaPosition> replicaPositions,
         String asyncId)
         throws Exception {
@@ -542,7 +668,7 @@ public class RestoreCmd implements CollApiCmds.CollectionApiCommand {
         if (log.isInfoEnabled()) {
           log.info("Adding replicas to restored collection={}", restoreCollection.getName());
         }
-        for (Slice slice : restoreCollection.getSlices()) {
+        for (Slice slice : slices) {
 
           // Add the remaining replicas for each shard, considering it's type
           // We already created either a replica as leader.
@@ -644,7 +770,7 @@ public class RestoreCmd implements CollApiCmds.CollectionApiCommand {
       try {
         requestReplicasToRestore(
             results,
-            restoreCollection,
+            restoreCollection.getSlices(),
             clusterState,
             rc.backupProperties,
             rc.backupPath,
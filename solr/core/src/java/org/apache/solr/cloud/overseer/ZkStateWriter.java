@@ -16,24 +16,30 @@
  */
 package org.apache.solr.cloud.overseer;
 
-import static java.util.Collections.singletonMap;
-
 import com.codahale.metrics.Timer;
+import java.io.Closeable;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.Function;
 import org.apache.solr.cloud.Overseer;
 import org.apache.solr.cloud.Stats;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.PerReplicaStatesOps;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.util.Compressor;
-import org.apache.solr.common.util.Utils;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.data.Stat;
@@ -53,6 +59,9 @@ import org.slf4j.LoggerFactory;
  * #writePendingUpdates()} throws a {@link org.apache.zookeeper.KeeperException.BadVersionException}
  * then the internal buffered state of the class is suspect and the current instance of the class
  * should be discarded and a new instance should be created and used for any future updates.
+ *
+ * <p>When given {@link WritePartitions}, pending updates are written to ZooKeeper in parallel, one
+ * thread per partition of the collections.
  */
 public class ZkStateWriter {
   private static final long MAX_FLUSH_INTERVAL =
@@ -84,11 +93,23 @@ public class ZkStateWriter {
 
   protected Compressor compressor;
 
+  // null to write pending updates on the calling thread
+  protected final WritePartitions partitions;
+
   public ZkStateWriter(
       ZkStateReader zkStateReader,
       Stats stats,
       int minStateByteLenForCompression,
       Compressor compressor) {
+    this(zkStateReader, stats, minStateByteLenForCompression, compressor, null);
+  }
+
+  public ZkStateWriter(
+      ZkStateReader zkStateReader,
+      Stats stats,
+      int minStateByteLenForCompression,
+      Compressor compressor,
+      WritePartitions partitions) {
     assert zkStateReader != null;
 
     this.reader = zkStateReader;
@@ -96,6 +117,11 @@ public class ZkStateWriter {
     this.clusterState = zkStateReader.getClusterState();
     this.minStateByteLenForCompression = minStateByteLenForCompression;
     this.compressor = compressor;
+    this.partitions = partitions;
+    if (partitions != null) {
+      // the updates pending in a previous instance were discarded with it
+      partitions.resetPendingUpdates();
+    }
   }
 
   /**
@@ -152,7 +178,11 @@ public class ZkStateWriter {
         if (updates.containsKey(cmd.name)) {
           // this should not happen
           // but let's get those updates out anyway
-          writeUpdate(updates.remove(cmd.name));
+          ZkWriteCommand pending = updates.remove(cmd.name);
+          if (partitions != null) {
+            partitions.pendingUpdates.decrementAndGet(partitions.getPartition(cmd.name));
+          }
+          writeUpdate(pending);
         }
         // now let's write the current message
         try {
@@ -175,7 +205,9 @@ public class ZkStateWriter {
     for (ZkWriteCommand cmd : cmds) {
       if (cmd == NO_OP) continue;
       prevState = prevState.copyWith(cmd.name, cmd.collection);
-      updates.put(cmd.name, cmd);
+      if (updates.put(cmd.name, cmd) == null && partitions != null) {
+        partitions.pendingUpdates.incrementAndGet(partitions.getPartition(cmd.name));
+      }
       numUpdates++;
     }
     clusterState = prevState;
@@ -260,80 +292,21 @@ public class ZkStateWriter {
     boolean success = false;
     try {
       if (!updates.isEmpty()) {
-        for (Map.Entry<String, ZkWriteCommand> entry : updates.entrySet()) {
-          String name = entry.getKey();
-          String path = DocCollection.getCollectionPath(name);
-          ZkWriteCommand cmd = entry.getValue();
-          DocCollection c = cmd.collection;
-
-          // Update the Per Replica State znodes if needed
-          if (cmd.ops != null) {
-            cmd.ops.persist(path, reader.getZkClient());
-
-            clusterState =
-                clusterState.copyWith(
-                    name,
-                    cmd.collection.setPerReplicaStates(
-                        PerReplicaStatesOps.fetch(
-                            cmd.collection.getZNode(), reader.getZkClient(), null)));
-          }
-
-          // Update the state.json file if needed
-          if (!cmd.persistJsonState) continue;
-          if (c == null) {
-            // let's clean up the state.json of this collection only, the rest should be cleaned by
-            // delete collection cmd
-            log.debug("going to delete state.json {}", path);
-            reader.getZkClient().clean(path);
-          } else {
-            byte[] data = Utils.toJSON(singletonMap(c.getName(), c));
-            if (minStateByteLenForCompression > -1 && data.length > minStateByteLenForCompression) {
-              // When compressing state.json, we expect at least a 10:1 compression ratio.
-              data = compressor.compressBytes(data, data.length / 10);
-            }
-            if (reader.getZkClient().exists(path, true)) {
-              if (log.isDebugEnabled()) {
-                log.debug("going to update_collection {} version: {}", path, c.getZNodeVersion());
-              }
-              Stat stat = reader.getZkClient().setData(path, data, c.getZNodeVersion(), true);
-              DocCollection newCollection =
-                  DocCollection.create(
-                      name,
-                      c.getSlicesMap(),
-                      c.getProperties(),
-                      c.getRouter(),
-                      stat.getVersion(),
-                      PerReplicaStatesOps.getZkClientPrsSupplier(reader.getZkClient(), path));
-              clusterState = clusterState.copyWith(name, newCollection);
-            } else {
-              log.debug("going to create_collection {}", path);
-              reader.getZkClient().create(path, data, CreateMode.PERSISTENT, true);
-              DocCollection newCollection =
-                  DocCollection.create(
-                      name,
-                      c.getSlicesMap(),
-                      c.getProperties(),
-                      c.getRouter(),
-                      0,
-                      PerReplicaStatesOps.getZkClientPrsSupplier(reader.getZkClient(), path));
-              clusterState = clusterState.copyWith(name, newCollection);
-            }
-          }
-
-          if (cmd.ops == null && cmd.isPerReplicaStateCollection) {
-            DocCollection currentCollState = clusterState.getCollection(cmd.name);
-            if (currentCollState != null) {
-              clusterState =
-                  clusterState.copyWith(
-                      name,
-                      currentCollState.setPerReplicaStates(
-                          PerReplicaStatesOps.fetch(
-                              currentCollState.getZNode(), reader.getZkClient(), null)));
+        if (partitions == null || updates.size() == 1) {
+          for (Map.Entry<String, ZkWriteCommand> entry : updates.entrySet()) {
+            DocCollection written = writeCollection(clusterState, entry.getKey(), entry.getValue());
+            if (written != null) {
+              clusterState = clusterState.copyWith(entry.getKey(), written);
             }
           }
+        } else {
+          writeInParallel(updates);
         }
 
         updates.clear();
+        if (updates == this.updates && partitions != null) {
+          partitions.resetPendingUpdates();
+        }
       }
 
       if (resetPendingUpdateCounters) {
@@ -357,6 +330,132 @@ public class ZkStateWriter {
     return clusterState;
   }
 
+  /**
+   * Writes the update of a single collection to ZooKeeper
+   *
+   * @param state the cluster state before the update is written
+   * @return the state of the collection once written, or null if the given cluster state doesn't
+   *     need to change
+   */
+  private DocCollection writeCollection(ClusterState state, String name, ZkWriteCommand cmd)
+      throws KeeperException, InterruptedException {
+    String path = DocCollection.getCollectionPath(name);
+    DocCollection c = cmd.collection;
+    DocCollection written = null;
+
+    // Update the Per Replica State znodes if needed
+    if (cmd.ops != null) {
+      cmd.ops.persist(path, reader.getZkClient());
+
+      written =
+          cmd.collection.setPerReplicaStates(
+              PerReplicaStatesOps.fetch(cmd.collection.getZNode(), reader.getZkClient(), null));
+    }
+
+    // Update the state.json file if needed
+    if (!cmd.persistJsonState) return written;
+    if (c == null) {
+      // let's clean up the state.json of this collection only, the rest should be cleaned by
+      // delete collection cmd
+      log.debug("going to delete state.json {}", path);
+      reader.getZkClient().clean(path);
+    } else {
+      byte[] data = ClusterState.serializeCollectionState(c);
+      if (minStateByteLenForCompression > -1 && data.length > minStateByteLenForCompression) {
+        // When compressing state.json, we expect at least a 10:1 compression ratio.
+        data = compressor.compressBytes(data, data.length / 10);
+      }
+      if (reader.getZkClient().exists(path, true)) {
+        if (log.isDebugEnabled()) {
+          log.debug("going to update_collection {} version: {}", path, c.getZNodeVersion());
+        }
+        Stat stat = reader.getZkClient().setData(path, data, c.getZNodeVersion(), true);
+        written =
+            DocCollection.create(
+                name,
+                c.getSlicesMap(),
+                c.getProperties(),
+                c.getRouter(),
+                stat.getVersion(),
+                PerReplicaStatesOps.getZkClientPrsSupplier(reader.getZkClient(), path));
+      } else {
+        log.debug("going to create_collection {}", path);
+        reader.getZkClient().create(path, data, CreateMode.PERSISTENT, true);
+        written =
+            DocCollection.create(
+                name,
+                c.getSlicesMap(),
+                c.getProperties(),
+                c.getRouter(),
+                0,
+                PerReplicaStatesOps.getZkClientPrsSupplier(reader.getZkClient(), path));
+      }
+    }
+
+    if (cmd.ops == null && cmd.isPerReplicaStateCollection) {
+      DocCollection currentCollState = written != null ? written : state.getCollection(cmd.name);
+      if (currentCollState != null) {
+        written =
+            currentCollState.setPerReplicaStates(
+                PerReplicaStatesOps.fetch(currentCollState.getZNode(), reader.getZkClient(), null));
+      }
+    }
+    return written;
+  }
+
+  /**
+   * Writes the updates of each partition of the collections on its own thread, and applies the
+   * written ones to the cluster state even if some failed.
+   */
+  private void writeInParallel(Map<String, ZkWriteCommand> updates)
+      throws KeeperException, InterruptedException {
+    List<List<ZkWriteCommand>> partitionUpdates = new ArrayList<>(partitions.size());
+    for (int i = 0; i < partitions.size(); i++) {
+      partitionUpdates.add(new ArrayList<>());
+    }
+    for (Map.Entry<String, ZkWriteCommand> entry : updates.entrySet()) {
+      partitionUpdates.get(partitions.getPartition(entry.getKey())).add(entry.getValue());
+    }
+
+    ClusterState state = clusterState;
+    List<Future<Map<String, DocCollection>>> futures = new ArrayList<>();
+    for (List<ZkWriteCommand> cmds : partitionUpdates) {
+      if (cmds.isEmpty()) continue;
+      futures.add(
+          partitions.executor.submit(
+              () -> {
+                Map<String, DocCollection> written = new HashMap<>();
+                for (ZkWriteCommand cmd : cmds) {
+                  DocCollection collection = writeCollection(state, cmd.name, cmd);
+                  if (collection != null) written.put(cmd.name, collection);
+                }
+                return written;
+              }));
+    }
+
+    // wait for all partitions, so that no write is still in progress after a failure
+    Throwable failure = null;
+    for (Future<Map<String, DocCollection>> future : futures) {
+      try {
+        for (Map.Entry<String, DocCollection> entry : future.get().entrySet()) {
+          clusterState = clusterState.copyWith(entry.getKey(), entry.getValue());
+        }
+      } catch (ExecutionException e) {
+        if (failure == null) failure = e.getCause();
+      }
+    }
+    if (failure instanceof KeeperException) {
+      throw (KeeperException) failure;
+    } else if (failure instanceof InterruptedException) {
+      throw (InterruptedException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure != null) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Could not write cluster state", failure);
+    }
+  }
+
   public void resetPendingUpdateCounters() {
     lastUpdatedTime = System.nanoTime();
     numUpdates = 0;
@@ -373,4 +472,47 @@ public class ZkStateWriter {
     /** Called by ZkStateWriter if state is flushed to ZK */
     void onWrite() throws Exception;
   }
+
+  /**
+   * Partitions of the collections, by hash of their name, whose pending updates are written to
+   * ZooKeeper in parallel. All the updates of a collection belong to the same partition and are
+   * written in order. Instances outlive the {@link ZkStateWriter} instances using them and must be
+   * closed.
+   */
+  public static class WritePartitions implements Closeable {
+    private final ExecutorService executor;
+    // the number of collections of each partition with updates that aren't written yet
+    private final AtomicIntegerArray pendingUpdates;
+
+    public WritePartitions(int numPartitions) {
+      this.executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              numPartitions, new SolrNamedThreadFactory("overseerStateWriter"));
+      this.pendingUpdates = new AtomicIntegerArray(numPartitions);
+    }
+
+    public int size() {
+      return pendingUpdates.length();
+    }
+
+    public int getPartition(String collection) {
+      return Math.floorMod(collection.hashCode(), size());
+    }
+
+    /** The number of collections of the given partition with updates not written to ZK yet */
+    public int getPendingUpdates(int partition) {
+      return pendingUpdates.get(partition);
+    }
+
+    private void resetPendingUpdates() {
+      for (int i = 0; i < size(); i++) {
+        pendingUpdates.set(i, 0);
+      }
+    }
+
+    @Override
+    public void close() {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
 }
@@ -18,14 +18,23 @@
 package org.apache.solr.cluster.placement.impl;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.cloud.NodeStateProvider;
 import org.apache.solr.client.solrj.cloud.SolrCloudManager;
 import org.apache.solr.client.solrj.impl.NodeValueFetcher;
 import org.apache.solr.cluster.Node;
@@ -45,10 +54,20 @@ import org.slf4j.LoggerFactory;
 /**
  * Implementation of {@link AttributeFetcher} that uses {@link SolrCloudManager} to access Solr
  * cluster details.
+ *
+ * <p>Attributes are fetched from up to {@value #MAX_FETCH_THREADS} nodes concurrently, waiting at
+ * most {@link #FETCH_TIMEOUT_MS_PROP} milliseconds for all of them. Like for nodes that can't be
+ * reached, there are no values for nodes that failed or didn't answer in time.
  */
 public class AttributeFetcherImpl implements AttributeFetcher {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /** The maximum number of nodes attributes are fetched from concurrently */
+  static final int MAX_FETCH_THREADS = 16;
+
+  /** How long to wait for the attributes of all the nodes, in milliseconds */
+  public static final String FETCH_TIMEOUT_MS_PROP = "solr.placement.attributeFetchTimeoutMs";
+
   Set<String> requestedNodeSystemSnitchTags = new HashSet<>();
   Set<NodeMetric<?>> requestedNodeMetricSnitchTags = new HashSet<>();
   Map<SolrCollection, Set<ReplicaMetric<?>>> requestedCollectionMetrics = new HashMap<>();
@@ -56,9 +75,15 @@ public class AttributeFetcherImpl implements AttributeFetcher {
   Set<Node> nodes = Collections.emptySet();
 
   private final SolrCloudManager cloudManager;
+  private final ExecutorService executor;
+  private final long fetchTimeoutMs = Long.getLong(FETCH_TIMEOUT_MS_PROP, 60000);
 
-  AttributeFetcherImpl(SolrCloudManager cloudManager) {
+  /**
+   * @param executor a shared executor to fetch from the nodes concurrently, it isn't shut down
+   */
+  AttributeFetcherImpl(SolrCloudManager cloudManager, ExecutorService executor) {
     this.cloudManager = cloudManager;
+    this.executor = executor;
   }
 
   @Override
@@ -138,14 +163,21 @@ public class AttributeFetcherImpl implements AttributeFetcher {
                               }));
         });
 
-    // Now that we know everything we need to fetch (and where to put it), just do it.
-    // TODO: we could probably fetch this in parallel - for large clusters this could
-    // significantly shorten the execution time
-    for (Node node : nodes) {
-      Map<String, Object> tagValues =
-          cloudManager
-              .getNodeStateProvider()
-              .getNodeValues(node.getName(), allSnitchTagsToInsertion.keySet());
+    // Now that we know everything we need to fetch (and where to put it), just do it, from all the
+    // nodes in parallel. The node state provider reads the whole cluster state, so it is only
+    // created once.
+    NodeStateProvider nodeStateProvider = cloudManager.getNodeStateProvider();
+    Map<Node, Map<String, Object>> nodeToTagValues =
+        allSnitchTagsToInsertion.isEmpty()
+            ? Collections.emptyMap()
+            : fetchFromNodes(
+                nodes,
+                node ->
+                    nodeStateProvider.getNodeValues(
+                        node.getName(), allSnitchTagsToInsertion.keySet()));
+    for (Map.Entry<Node, Map<String, Object>> nodeTagValues : nodeToTagValues.entrySet()) {
+      Node node = nodeTagValues.getKey();
+      Map<String, Object> tagValues = nodeTagValues.getValue();
       for (Map.Entry<String, Object> e : tagValues.entrySet()) {
         String tag = e.getKey();
         Object value = e.getValue(); // returned value from the node
@@ -160,10 +192,13 @@ public class AttributeFetcherImpl implements AttributeFetcher {
       }
     }
 
-    for (Node node : nodeToReplicaInternalTags.keySet()) {
-      Set<String> tags = nodeToReplicaInternalTags.get(node);
-      Map<String, Map<String, List<Replica>>> infos =
-          cloudManager.getNodeStateProvider().getReplicaInfo(node.getName(), tags);
+    Map<Node, Map<String, Map<String, List<Replica>>>> nodeToReplicaInfos =
+        fetchFromNodes(
+            nodeToReplicaInternalTags.keySet(),
+            node ->
+                nodeStateProvider.getReplicaInfo(
+                    node.getName(), nodeToReplicaInternalTags.get(node)));
+    for (Map<String, Map<String, List<Replica>>> infos : nodeToReplicaInfos.values()) {
       infos.entrySet().stream()
           .filter(entry -> requestedCollectionNamesMetrics.containsKey(entry.getKey()))
           .forEach(
@@ -216,6 +251,77 @@ public class AttributeFetcherImpl implements AttributeFetcher {
         systemSnitchToNodeToValue, metricSnitchToNodeToValue, collectionMetrics);
   }
 
+  /**
+   * Fetches values from each node, in parallel. Nodes are split in up to {@link
+   * #MAX_FETCH_THREADS} groups, each fetched from one node after the other by a task on the shared
+   * executor.
+   */
+  private <T> Map<Node, T> fetchFromNodes(Set<Node> nodes, Function<Node, T> fetcher) {
+    if (nodes.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<Node, T> values = new ConcurrentHashMap<>();
+    int numGroups = Math.min(nodes.size(), MAX_FETCH_THREADS);
+    List<List<Node>> groups = new ArrayList<>(numGroups);
+    for (int i = 0; i < numGroups; i++) {
+      groups.add(new ArrayList<>());
+    }
+    int i = 0;
+    for (Node node : nodes) {
+      groups.get(i++ % numGroups).add(node);
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fetchTimeoutMs);
+    List<Future<?>> futures = new ArrayList<>(numGroups);
+    try {
+      for (List<Node> group : groups) {
+        futures.add(executor.submit(() -> fetchFromGroup(group, fetcher, values)));
+      }
+      for (Future<?> future : futures) {
+        future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Interrupted while fetching node attributes", e);
+    } catch (TimeoutException e) {
+      if (log.isWarnEnabled()) {
+        Set<Node> missing = new HashSet<>(nodes);
+        missing.removeAll(values.keySet());
+        log.warn(
+            "Timed out after {}ms fetching attributes, no values from nodes {}",
+            fetchTimeoutMs,
+            missing);
+      }
+    } catch (ExecutionException e) {
+      // each fetch handles its own errors, this is unexpected
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Error fetching node attributes", e.getCause());
+    } finally {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+    }
+    // copied, since cancelled fetches may still add values
+    return new HashMap<>(values);
+  }
+
+  private static <T> void fetchFromGroup(
+      List<Node> group, Function<Node, T> fetcher, Map<Node, T> values) {
+    for (Node node : group) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      try {
+        T value = fetcher.apply(node);
+        if (value != null) {
+          values.put(node, value);
+        }
+      } catch (Exception e) {
+        log.warn("Could not fetch attributes from node {}", node.getName(), e);
+      }
+    }
+  }
+
   private static SolrInfoBean.Group getGroupFromMetricRegistry(NodeMetric.Registry registry) {
     switch (registry) {
       case SOLR_JVM:
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import org.apache.solr.client.solrj.cloud.SolrCloudManager;
 import org.apache.solr.cloud.api.collections.Assign;
 import org.apache.solr.cluster.Node;
@@ -49,9 +50,14 @@ public class PlacementPluginAssignStrategy implements Assign.AssignStrategy {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private final PlacementPlugin plugin;
+  private final ExecutorService executor;
 
-  public PlacementPluginAssignStrategy(PlacementPlugin plugin) {
+  /**
+   * @param executor runs the fetching of node attributes, see {@link AttributeFetcherImpl}
+   */
+  public PlacementPluginAssignStrategy(PlacementPlugin plugin, ExecutorService executor) {
     this.plugin = plugin;
+    this.executor = executor;
   }
 
   @Override
@@ -59,7 +65,7 @@ public class PlacementPluginAssignStrategy implements Assign.AssignStrategy {
       SolrCloudManager solrCloudManager, List<Assign.AssignRequest> assignRequests)
       throws Assign.AssignmentException, IOException, InterruptedException {
 
-    PlacementContext placementContext = new SimplePlacementContextImpl(solrCloudManager);
+    PlacementContext placementContext = new SimplePlacementContextImpl(solrCloudManager, executor);
     if (assignRequests.size() == 1
         && assignRequests.get(0).collectionName.startsWith(Assign.SYSTEM_COLL_PREFIX)) {
       // this is a system collection
@@ -101,7 +107,7 @@ public class PlacementPluginAssignStrategy implements Assign.AssignStrategy {
   public Map<Replica, String> computeReplicaBalancing(
       SolrCloudManager solrCloudManager, Set<String> nodes, int maxBalanceSkew)
       throws Assign.AssignmentException, IOException, InterruptedException {
-    PlacementContext placementContext = new SimplePlacementContextImpl(solrCloudManager);
+    PlacementContext placementContext = new SimplePlacementContextImpl(solrCloudManager, executor);
 
     BalanceRequest balanceRequest =
         BalanceRequestImpl.create(placementContext.getCluster(), nodes, maxBalanceSkew);
@@ -148,7 +154,7 @@ public class PlacementPluginAssignStrategy implements Assign.AssignStrategy {
   @Override
   public void verifyDeleteCollection(SolrCloudManager solrCloudManager, DocCollection collection)
       throws Assign.AssignmentException, IOException, InterruptedException {
-    PlacementContext placementContext = new SimplePlacementContextImpl(solrCloudManager);
+    PlacementContext placementContext = new SimplePlacementContextImpl(solrCloudManager, executor);
     DeleteCollectionRequest modificationRequest =
         ModificationRequestImpl.createDeleteCollectionRequest(collection);
     try {
@@ -165,7 +171,7 @@ public class PlacementPluginAssignStrategy implements Assign.AssignStrategy {
       String shardId,
       Set<Replica> replicas)
       throws Assign.AssignmentException, IOException, InterruptedException {
-    PlacementContext placementContext = new SimplePlacementContextImpl(solrCloudManager);
+    PlacementContext placementContext = new SimplePlacementContextImpl(solrCloudManager, executor);
     DeleteReplicasRequest modificationRequest =
         ModificationRequestImpl.createDeleteReplicasRequest(collection, shardId, replicas);
     try {
@@ -17,6 +17,7 @@
 package org.apache.solr.cluster.placement.impl;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 import org.apache.solr.client.solrj.cloud.SolrCloudManager;
 import org.apache.solr.cluster.Cluster;
 import org.apache.solr.cluster.placement.AttributeFetcher;
@@ -35,9 +36,10 @@ public class SimplePlacementContextImpl implements PlacementContext {
   private final PlacementPlanFactory placementPlanFactory = new PlacementPlanFactoryImpl();
   private final BalancePlanFactory balancePlanFactory = new BalancePlanFactoryImpl();
 
-  public SimplePlacementContextImpl(SolrCloudManager solrCloudManager) throws IOException {
+  public SimplePlacementContextImpl(SolrCloudManager solrCloudManager, ExecutorService executor)
+      throws IOException {
     cluster = new SimpleClusterAbstractionsImpl.ClusterImpl(solrCloudManager);
-    attributeFetcher = new AttributeFetcherImpl(solrCloudManager);
+    attributeFetcher = new AttributeFetcherImpl(solrCloudManager, executor);
   }
 
   @Override
@@ -28,6 +28,7 @@ import static org.apache.solr.common.params.CommonParams.ZK_PATH;
 import static org.apache.solr.common.params.CommonParams.ZK_STATUS_PATH;
 import static org.apache.solr.security.AuthenticationPlugin.AUTHENTICATION_PLUGIN_PROP;
 
+import com.codahale.metrics.Timer;
 import com.github.benmanes.caffeine.cache.Interner;
 import com.google.common.annotations.VisibleForTesting;
 import io.opentelemetry.api.trace.Tracer;
@@ -189,6 +190,26 @@ public class CoreContainer {
     }
   }
 
+  /**
+   * The phases a core goes through when it's loaded on startup, before serving requests. They are
+   * only tracked to report startup progress, see {@link #getCoreLoadPhase(String)}: how cores are
+   * loaded doesn't depend on them.
+   */
+  public enum CoreLoadPhase {
+    /** Waiting for a core loading thread */
+    QUEUED,
+    /**
+     * Loading the config and schema, opening the index and the first searcher, unless it's
+     * deferred, see {@link #DEFER_STARTUP_SEARCHERS_PROP}
+     */
+    CREATING,
+    /**
+     * Registering in ZooKeeper: leader election, replaying the tlog and publishing the state of the
+     * core. A recovery, if needed, is only started in this phase and runs after it.
+     */
+    REGISTERING
+  }
+
   private volatile PluginBag<SolrRequestHandler> containerHandlers =
       new PluginBag<>(SolrRequestHandler.class, null);
 
@@ -211,6 +232,21 @@ public class CoreContainer {
 
   protected final Map<String, CoreLoadFailure> coreInitFailures = new ConcurrentHashMap<>();
 
+  private final Map<String, CoreLoadPhase> coreLoadPhases = new ConcurrentHashMap<>();
+
+  /**
+   * If true, the cores loaded on startup that don't have an update log (e.g. PULL replicas) don't
+   * open their first searcher while they are created. The core loading threads open it once every
+   * core is created, unless a request needed it first. A replication leader with
+   * replicateAfter=startup doesn't have a commit point to replicate until its searcher is open.
+   */
+  public static final String DEFER_STARTUP_SEARCHERS_PROP = "solr.startup.deferSearchers";
+
+  private final boolean deferStartupSearchers = Boolean.getBoolean(DEFER_STARTUP_SEARCHERS_PROP);
+
+  // the cores being created on startup that may defer opening their first searcher
+  private final Set<String> deferredSearcherCores = ConcurrentHashMap.newKeySet();
+
   protected volatile CoreAdminHandler coreAdminHandler = null;
   protected volatile CollectionsHandler collectionsHandler = null;
   protected volatile HealthCheckHandler healthCheckHandler = null;
@@ -947,6 +983,15 @@ public class CoreContainer {
         "unloaded",
         SolrInfoBean.Category.CONTAINER.toString(),
         "cores");
+    for (CoreLoadPhase phase : CoreLoadPhase.values()) {
+      solrMetricsContext.gauge(
+          () -> getNumCoresInLoadPhase(phase),
+          true,
+          phase.name().toLowerCase(Locale.ROOT),
+          SolrInfoBean.Category.CONTAINER.toString(),
+          "cores",
+          "startup");
+    }
     Path dataHome =
         cfg.getSolrDataHome() != null ? cfg.getSolrDataHome() : cfg.getCoreRootDirectory();
     solrMetricsContext.gauge(
@@ -1016,12 +1061,19 @@ public class CoreContainer {
             SolrMetricManager.mkName(
                 "coreLoadExecutor", SolrInfoBean.Category.CONTAINER.toString(), "threadPool"));
     final List<Future<SolrCore>> futures = new ArrayList<>();
+    final Timer createTimer =
+        solrMetricsContext.timer(
+            "createTime", SolrInfoBean.Category.CONTAINER.toString(), "cores", "startup");
+    final Timer registerTimer =
+        solrMetricsContext.timer(
+            "registerTime", SolrInfoBean.Category.CONTAINER.toString(), "cores", "startup");
     try {
       List<CoreDescriptor> cds = coresLocator.discover(this);
       cds = CoreSorter.sortCores(this, cds);
       checkForDuplicateCoreNames(cds);
       status |= CORE_DISCOVERY_COMPLETE;
 
+      final List<CoreDescriptor> loadedOnStartup = new ArrayList<>();
       for (final CoreDescriptor cd : cds) {
         if (cd.isTransient() || !cd.isLoadOnStartup()) {
           solrCores.addCoreDescriptor(cd);
@@ -1029,25 +1081,48 @@ public class CoreContainer {
           solrCores.markCoreAsLoading(cd);
         }
         if (cd.isLoadOnStartup()) {
+          loadedOnStartup.add(cd);
+          coreLoadPhases.put(cd.getName(), CoreLoadPhase.QUEUED);
           futures.add(
               coreLoadExecutor.submit(
                   () -> {
                     SolrCore core;
+                    // the phases are only tracked for the metrics; registering already ran in the
+                    // background, so that this thread can create the next core meanwhile
+                    coreLoadPhases.put(cd.getName(), CoreLoadPhase.CREATING);
+                    Timer.Context createContext = createTimer.time();
                     try {
                       if (zkSys.getZkController() != null) {
                         zkSys.getZkController().throwErrorIfReplicaReplaced(cd);
                       }
                       solrCores.waitAddPendingCoreOps(cd.getName());
+                      if (deferStartupSearchers) {
+                        deferredSearcherCores.add(cd.getName());
+                      }
                       core = createFromDescriptor(cd, false, false);
+                    } catch (Throwable t) {
+                      coreLoadPhases.remove(cd.getName());
+                      throw t;
                     } finally {
+                      deferredSearcherCores.remove(cd.getName());
+                      createContext.stop();
                       solrCores.removeFromPendingOps(cd.getName());
                       if (asyncSolrCoreLoad) {
                         solrCores.markCoreAsNotLoading(cd);
                       }
                     }
+                    coreLoadPhases.put(cd.getName(), CoreLoadPhase.REGISTERING);
+                    Timer.Context registerContext = registerTimer.time();
                     try {
-                      zkSys.registerInZk(core, true, false);
+                      zkSys
+                          .registerInZk(core, true, false)
+                          .whenComplete(
+                              (v, t) -> {
+                                registerContext.stop();
+                                coreLoadPhases.remove(cd.getName());
+                              });
                     } catch (RuntimeException e) {
+                      coreLoadPhases.remove(cd.getName());
                       log.error("Error registering SolrCore", e);
                     }
                     return core;
@@ -1055,6 +1130,13 @@ public class CoreContainer {
         }
       }
 
+      if (deferStartupSearchers) {
+        // queued behind the creation of all the cores, which the pool runs first
+        for (CoreDescriptor cd : loadedOnStartup) {
+          coreLoadExecutor.submit(() -> openDeferredSearcher(cd.getName()));
+        }
+      }
+
       // Start the background thread
       backgroundCloser = new CloserThread(this, solrCores, cfg);
       backgroundCloser.start();
@@ -1941,6 +2023,41 @@ public class CoreContainer {
     return Map.copyOf(coreInitFailures);
   }
 
+  /**
+   * @return the phase of a core that is being loaded on startup, or null if it isn't being loaded
+   *     (anymore)
+   */
+  public CoreLoadPhase getCoreLoadPhase(String name) {
+    return coreLoadPhases.get(name);
+  }
+
+  /**
+   * @return true if the core is being created on startup and may open its first searcher later,
+   *     see {@link #DEFER_STARTUP_SEARCHERS_PROP}
+   */
+  boolean isFirstSearcherDeferred(String name) {
+    return deferredSearcherCores.contains(name);
+  }
+
+  /** Opens the first searcher of a core loaded on startup, if no request opened it yet */
+  private void openDeferredSearcher(String name) {
+    try (SolrCore core = getCore(name)) {
+      if (core != null) {
+        core.getSearcher(false, false, null, true);
+      }
+    } catch (Exception e) {
+      log.warn("Error opening the first searcher of SolrCore {}", name, e);
+    }
+  }
+
+  private int getNumCoresInLoadPhase(CoreLoadPhase phase) {
+    int count = 0;
+    for (CoreLoadPhase corePhase : coreLoadPhases.values()) {
+      if (corePhase == phase) count++;
+    }
+    return count;
+  }
+
   // ---------------- Core name related methods ---------------
 
   private CoreDescriptor reloadCoreDescriptor(CoreDescriptor oldDesc) {
@@ -2548,6 +2665,14 @@ public class CoreContainer {
     coreContainerAsyncTaskExecutor.submit(r);
   }
 
+  /**
+   * The executor {@link #runAsync(Runnable)} runs its tasks on, for callers that need to wait for
+   * the results of short tasks. The same cautions apply, and it must not be shut down.
+   */
+  public ExecutorService getAsyncTaskExecutor() {
+    return coreContainerAsyncTaskExecutor;
+  }
+
   public static void setWeakStringInterner() {
     boolean enable = "true".equals(System.getProperty("solr.use.str.intern", "true"));
     if (!enable) return;
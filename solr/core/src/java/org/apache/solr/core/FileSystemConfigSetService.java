@@ -54,16 +54,19 @@ public class FileSystemConfigSetService extends ConfigSetService {
   public static final String METADATA_FILE = ".metadata.json";
 
   private final Path configSetBase;
+  private final CoreContainer cc;
 
   public FileSystemConfigSetService(CoreContainer cc) {
     super(cc.getResourceLoader(), cc.getConfig().hasSchemaCache());
     this.configSetBase = cc.getConfig().getConfigSetBaseDirectory();
+    this.cc = cc;
   }
 
   /** Testing purpose */
   protected FileSystemConfigSetService(Path configSetBase) {
     super(null, false);
     this.configSetBase = configSetBase;
+    this.cc = null;
   }
 
   @Override
@@ -71,6 +74,8 @@ public class FileSystemConfigSetService extends ConfigSetService {
     Path instanceDir = locateInstanceDir(cd);
     SolrResourceLoader solrResourceLoader =
         new SolrResourceLoader(instanceDir, parentLoader.getClassLoader());
+    // the cores of a configset share the parsed config files through the container's object cache
+    if (cc != null) solrResourceLoader.setCoreContainer(cc);
     return solrResourceLoader;
   }
 
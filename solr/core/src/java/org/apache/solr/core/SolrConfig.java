@@ -811,6 +811,12 @@ public class SolrConfig implements MapSerializable {
     public final boolean commitWithinSoftCommit;
     public final boolean aggregateNodeLevelMetricsEnabled;
 
+    /**
+     * The {@link org.apache.solr.update.CommitIntervalPolicy} of <code>autoSoftCommit</code>, or
+     * null if soft commits are only driven by <code>maxTime</code>
+     */
+    public final PluginInfo autoSoftCommitPolicyInfo;
+
     /**
      * @param autoCommmitMaxDocs set -1 as default
      * @param autoCommmitMaxTime set -1 as default
@@ -836,6 +842,7 @@ public class SolrConfig implements MapSerializable {
 
       this.commitWithinSoftCommit = commitWithinSoftCommit;
       this.aggregateNodeLevelMetricsEnabled = false;
+      this.autoSoftCommitPolicyInfo = null;
     }
 
     public UpdateHandlerInfo(ConfigNode updateHandler) {
@@ -852,6 +859,12 @@ public class SolrConfig implements MapSerializable {
           updateHandler.get("commitWithin").get("softCommit").boolVal(true);
       this.aggregateNodeLevelMetricsEnabled =
           updateHandler.boolAttr("aggregateNodeLevelMetricsEnabled", false);
+      ConfigNode softCommitPolicy = updateHandler.get("autoSoftCommit").get("policy");
+      this.autoSoftCommitPolicyInfo =
+          softCommitPolicy.exists()
+              ? new PluginInfo(
+                  softCommitPolicy, "[solrconfig.xml] autoSoftCommit policy", false, true)
+              : null;
     }
 
     @Override
@@ -863,9 +876,13 @@ public class SolrConfig implements MapSerializable {
               "maxDocs", autoCommmitMaxDocs,
               "maxTime", autoCommmitMaxTime,
               "openSearcher", openSearcher));
-      map.put(
-          "autoSoftCommit",
-          Map.of("maxDocs", autoSoftCommmitMaxDocs, "maxTime", autoSoftCommmitMaxTime));
+      Map<String, Object> autoSoftCommit = new LinkedHashMap<>();
+      autoSoftCommit.put("maxDocs", autoSoftCommmitMaxDocs);
+      autoSoftCommit.put("maxTime", autoSoftCommmitMaxTime);
+      if (autoSoftCommitPolicyInfo != null) {
+        autoSoftCommit.put("policy", autoSoftCommitPolicyInfo);
+      }
+      map.put("autoSoftCommit", autoSoftCommit);
       return map;
     }
   }
@@ -20,6 +20,8 @@ import static org.apache.solr.common.params.CommonParams.PATH;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Timer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -59,8 +61,10 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
@@ -69,10 +73,13 @@ import java.util.stream.StreamSupport;
 import org.apache.commons.io.file.PathUtils;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.IndexDeletionPolicy;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
@@ -160,6 +167,7 @@ import org.apache.solr.update.SolrCoreState.IndexWriterCloser;
 import org.apache.solr.update.SolrIndexWriter;
 import org.apache.solr.update.UpdateHandler;
 import org.apache.solr.update.VersionInfo;
+import org.apache.solr.update.VersionRangeFingerprint.SegmentVersions;
 import org.apache.solr.update.processor.DistributedUpdateProcessorFactory;
 import org.apache.solr.update.processor.LogUpdateProcessorFactory;
 import org.apache.solr.update.processor.NestedUpdateProcessorFactory;
@@ -273,8 +281,37 @@ public class SolrCore implements SolrInfoBean, Closeable {
     return startTime;
   }
 
-  private final Map<IndexReader.CacheKey, IndexFingerprint> perSegmentFingerprintCache =
-      new WeakHashMap<>();
+  // fingerprints of the live documents of segments, by reader key and max version
+  private final Map<IndexReader.CacheKey, Map<Long, IndexFingerprint>> perSegmentFingerprintCache =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  // fingerprints of all the documents of segments, deleted or not, by versions key and max version
+  private final Map<IndexReader.CacheKey, Map<Long, IndexFingerprint>>
+      perSegmentAllDocsFingerprintCache = Collections.synchronizedMap(new WeakHashMap<>());
+
+  // the number of max versions fingerprints are cached for, per segment
+  private static final int MAX_CACHED_FINGERPRINTS_PER_SEGMENT = 8;
+
+  /**
+   * The maximum heap size, in bytes, of the sorted versions of segments cached by {@link
+   * #getSegmentVersions}. The least recently used ones are evicted beyond that, and they are not
+   * cached at all if it is 0.
+   */
+  public static final String MAX_CACHED_SEGMENT_VERSIONS_BYTES_PROP =
+      "solr.fingerprint.maxCachedSegmentVersionsBytes";
+
+  private final long maxCachedSegmentVersionsBytes =
+      Long.getLong(MAX_CACHED_SEGMENT_VERSIONS_BYTES_PROP, 64L * 1024 * 1024);
+
+  // sorted versions of segments, by versions key (see getVersionsCacheKey)
+  private final Cache<IndexReader.CacheKey, SegmentVersions> perSegmentVersionsCache =
+      Caffeine.newBuilder()
+          .weakKeys()
+          .maximumWeight(maxCachedSegmentVersionsBytes)
+          .weigher(
+              (IndexReader.CacheKey key, SegmentVersions versions) ->
+                  (int) Math.min(Integer.MAX_VALUE, versions.ramBytesUsed()))
+          .build();
 
   public long getStartNanoTime() {
     return startNanoTime;
@@ -1275,6 +1312,16 @@ public class SolrCore implements SolrInfoBean, Closeable {
   }
 
   private void initSearcher(SolrCore prev) throws IOException {
+    // without an update log, nothing needs the searcher before the core is registered, so that the
+    // core loading threads can create the other cores first
+    if (prev == null
+        && coreContainer != null
+        && coreContainer.isFirstSearcherDeferred(getName())
+        && updateHandler.getUpdateLog() == null) {
+      log.info("Deferring the opening of the first searcher");
+      return;
+    }
+
     // use the (old) writer to open the first searcher
     RefCounted<IndexWriter> iwRef = null;
     if (prev != null) {
@@ -1366,6 +1413,16 @@ public class SolrCore implements SolrInfoBean, Closeable {
         true,
         "size",
         Category.INDEX.toString());
+    parentContext.gauge(
+        () ->
+            perSegmentVersionsCache
+                .policy()
+                .eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L),
+        true,
+        "segmentVersionsCacheBytes",
+        Category.INDEX.toString());
 
     final CloudDescriptor cd = getCoreDescriptor().getCloudDescriptor();
     if (cd != null) {
@@ -2140,12 +2197,72 @@ public class SolrCore implements SolrInfoBean, Closeable {
   }
 
   /**
-   * Computes fingerprint of a segment and caches it only if all the version in segment are included
-   * in the fingerprint. We can't use computeIfAbsent as caching is conditional (as described above)
-   * There is chance that two threads may compute fingerprint on the same segment. It might be OK to
-   * do so rather than locking entire map.
+   * Computes the fingerprint of the searcher's index, combining the (possibly cached) fingerprints
+   * of its segments. The segments whose fingerprint isn't cached are read concurrently.
    *
-   * @param searcher searcher that includes specified LeaderReaderContext
+   * @param searcher searcher to compute the fingerprint of
+   * @param maxVersion maximum version number to consider for fingerprint computation
+   * @return IndexFingerprint of the index
+   * @throws IOException Can throw IOException
+   */
+  public IndexFingerprint getIndexFingerprint(SolrIndexSearcher searcher, long maxVersion)
+      throws IOException {
+    List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+    IndexFingerprint[] fingerprints = new IndexFingerprint[leaves.size()];
+    AtomicInteger nextLeaf = new AtomicInteger();
+    Callable<Void> task =
+        () -> {
+          for (int i = nextLeaf.getAndIncrement();
+              i < leaves.size();
+              i = nextLeaf.getAndIncrement()) {
+            fingerprints[i] = getIndexFingerprint(searcher, leaves.get(i), maxVersion);
+          }
+          return null;
+        };
+    int numThreads = Math.min(leaves.size(), Runtime.getRuntime().availableProcessors());
+    List<Future<Void>> futures = new ArrayList<>();
+    try {
+      for (int i = 1; i < numThreads; i++) {
+        futures.add(coreAsyncTaskExecutor.submit(task));
+      }
+    } catch (RejectedExecutionException e) {
+      // shutting down, the remaining segments are read by this thread
+    }
+    try {
+      task.call();
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      throw new SolrException(ErrorCode.SERVER_ERROR, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(ErrorCode.SERVER_ERROR, e);
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new SolrException(ErrorCode.SERVER_ERROR, e);
+    }
+
+    IndexFingerprint f = new IndexFingerprint(maxVersion);
+    for (IndexFingerprint segmentFingerprint : fingerprints) {
+      IndexFingerprint.reduce(f, segmentFingerprint);
+    }
+    return f;
+  }
+
+  /**
+   * Computes fingerprint of a segment and caches it for the given maxVersion, or for all of them if
+   * all the versions of the segment are included in the fingerprint. There is chance that two
+   * threads may compute fingerprint on the same segment. It might be OK to do so rather than
+   * locking entire map.
+   *
+   * <p>The fingerprint of all the documents of the segment, deleted or not, is cached too, so that
+   * only the versions of the deleted documents have to be read again when documents of the segment
+   * get deleted.
+   *
+   * @param searcher searcher that includes specified LeafReaderContext
    * @param ctx LeafReaderContext of a segment to compute fingerprint of
    * @param maxVersion maximum version number to consider for fingerprint computation
    * @return IndexFingerprint of the segment
@@ -2166,36 +2283,9 @@ public class SolrCore implements SolrInfoBean, Closeable {
       return IndexFingerprint.getFingerprint(searcher, ctx, maxVersion);
     }
 
-    IndexFingerprint f = null;
-    f = perSegmentFingerprintCache.get(cacheHelper.getKey());
-    // fingerprint is either not cached or if we want fingerprint only up to a version less than
-    // maxVersionEncountered in the segment, or documents were deleted from segment for which
-    // fingerprint was cached
-    //
-    if (f == null
-        || (f.getMaxInHash() > maxVersion)
-        || (f.getNumDocs() != ctx.reader().numDocs())) {
-      if (log.isDebugEnabled()) {
-        log.debug(
-            "IndexFingerprint cache miss for searcher:{} reader:{} readerHash:{} maxVersion:{}",
-            searcher,
-            ctx.reader(),
-            ctx.reader().hashCode(),
-            maxVersion);
-      }
-      f = IndexFingerprint.getFingerprint(searcher, ctx, maxVersion);
-      // cache fingerprint for the segment only if all the versions in the segment are included in
-      // the fingerprint
-      if (f.getMaxVersionEncountered() == f.getMaxInHash()) {
-        log.debug(
-            "Caching fingerprint for searcher:{} leafReaderContext:{} mavVersion:{}",
-            searcher,
-            ctx,
-            maxVersion);
-        perSegmentFingerprintCache.put(cacheHelper.getKey(), f);
-      }
-
-    } else {
+    IndexFingerprint f =
+        getCachedFingerprint(perSegmentFingerprintCache, cacheHelper.getKey(), maxVersion);
+    if (f != null) {
       if (log.isDebugEnabled()) {
         log.debug(
             "IndexFingerprint cache hit for searcher:{} reader:{} readerHash:{} maxVersion:{}",
@@ -2204,7 +2294,35 @@ public class SolrCore implements SolrInfoBean, Closeable {
             ctx.reader().hashCode(),
             maxVersion);
       }
+      return f;
     }
+
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "IndexFingerprint cache miss for searcher:{} reader:{} readerHash:{} maxVersion:{}",
+          searcher,
+          ctx.reader(),
+          ctx.reader().hashCode(),
+          maxVersion);
+    }
+    IndexReader.CacheKey versionsCacheKey = getVersionsCacheKey(ctx.reader());
+    IndexFingerprint allDocs =
+        versionsCacheKey == null
+            ? null
+            : getCachedFingerprint(perSegmentAllDocsFingerprintCache, versionsCacheKey, maxVersion);
+    if (allDocs == null) {
+      allDocs = IndexFingerprint.getFingerprintOfAllDocs(searcher, ctx, maxVersion);
+      // segments without a cache key would share the same entry
+      if (versionsCacheKey != null) {
+        cacheFingerprint(perSegmentAllDocsFingerprintCache, versionsCacheKey, maxVersion, allDocs);
+      }
+    }
+    f = IndexFingerprint.removeDeletedDocs(searcher, ctx, allDocs);
+    if (f == null) {
+      f = IndexFingerprint.getFingerprint(searcher, ctx, maxVersion);
+    }
+    cacheFingerprint(perSegmentFingerprintCache, cacheHelper.getKey(), maxVersion, f);
+
     if (log.isDebugEnabled()) {
       log.debug(
           "Cache Size: {}, Segments Size:{}",
@@ -2214,6 +2332,70 @@ public class SolrCore implements SolrInfoBean, Closeable {
     return f;
   }
 
+  private static IndexFingerprint getCachedFingerprint(
+      Map<IndexReader.CacheKey, Map<Long, IndexFingerprint>> cache,
+      IndexReader.CacheKey key,
+      long maxVersion) {
+    Map<Long, IndexFingerprint> fingerprints = cache.get(key);
+    if (fingerprints == null) return null;
+    // a fingerprint that includes all the versions of the segment is valid for higher maxVersions
+    IndexFingerprint f = fingerprints.get(Long.MAX_VALUE);
+    if (f != null && f.getMaxVersionEncountered() <= maxVersion) return f;
+    return fingerprints.get(maxVersion);
+  }
+
+  private static void cacheFingerprint(
+      Map<IndexReader.CacheKey, Map<Long, IndexFingerprint>> cache,
+      IndexReader.CacheKey key,
+      long maxVersion,
+      IndexFingerprint f) {
+    Map<Long, IndexFingerprint> fingerprints =
+        cache.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    if (fingerprints.size() >= MAX_CACHED_FINGERPRINTS_PER_SEGMENT) {
+      fingerprints.clear();
+    }
+    fingerprints.put(f.getMaxVersionEncountered() <= maxVersion ? Long.MAX_VALUE : maxVersion, f);
+  }
+
+  /**
+   * Returns the sorted versions of a segment. They don't depend on its deletions, so they are
+   * cached until the segment goes away or its versions are updated in place, within the bounds of
+   * {@link #MAX_CACHED_SEGMENT_VERSIONS_BYTES_PROP}.
+   *
+   * @param searcher searcher that includes the specified LeafReaderContext
+   * @param ctx LeafReaderContext of a segment to get the versions of
+   * @throws IOException Can throw IOException
+   */
+  public SegmentVersions getSegmentVersions(SolrIndexSearcher searcher, LeafReaderContext ctx)
+      throws IOException {
+    IndexReader.CacheKey cacheKey = getVersionsCacheKey(ctx.reader());
+    if (cacheKey == null || maxCachedSegmentVersionsBytes <= 0) {
+      return SegmentVersions.read(searcher, ctx);
+    }
+    SegmentVersions versions = perSegmentVersionsCache.getIfPresent(cacheKey);
+    if (versions == null) {
+      // like fingerprints, two threads may read the same segment rather than locking the cache
+      versions = SegmentVersions.read(searcher, ctx);
+      perSegmentVersionsCache.put(cacheKey, versions);
+    }
+    return versions;
+  }
+
+  /**
+   * The key to cache what's read from the versions of all the documents of a segment with: its core
+   * key, which survives deletions, unless versions were updated in place since the core key
+   * survives doc values updates too.
+   */
+  private static IndexReader.CacheKey getVersionsCacheKey(LeafReader reader) {
+    LeafReader unwrapped = FilterLeafReader.unwrap(reader);
+    IndexReader.CacheHelper cacheHelper =
+        unwrapped instanceof SegmentReader
+                && !((SegmentReader) unwrapped).getSegmentInfo().hasFieldUpdates()
+            ? reader.getCoreCacheHelper()
+            : reader.getReaderCacheHelper();
+    return cacheHelper == null ? null : cacheHelper.getKey();
+  }
+
   /**
    * Returns the current registered searcher with its reference count incremented, or null if none
    * are registered.
@@ -873,6 +873,11 @@ public class SolrResourceLoader
     return coreContainer;
   }
 
+  /** Sets the container of the core, until the core is created and initializes this loader */
+  void setCoreContainer(CoreContainer coreContainer) {
+    this.coreContainer = coreContainer;
+  }
+
   public SolrConfig getSolrConfig() {
     return config;
   }
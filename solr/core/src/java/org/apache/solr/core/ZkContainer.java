@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
@@ -197,9 +198,16 @@ public class ZkContainer {
 
   public static volatile Predicate<CoreDescriptor> testing_beforeRegisterInZk;
 
-  public void registerInZk(final SolrCore core, boolean background, boolean skipRecovery) {
+  /**
+   * Registers a core in ZooKeeper, possibly in the background
+   *
+   * @return a future completed when the core is registered, or failed to be. A recovery started
+   *     by the registration may still be running then.
+   */
+  public CompletableFuture<Void> registerInZk(
+      final SolrCore core, boolean background, boolean skipRecovery) {
     if (zkController == null) {
-      return;
+      return CompletableFuture.completedFuture(null);
     }
 
     CoreDescriptor cd = core.getCoreDescriptor(); // save this here - the core may not have it later
@@ -242,9 +250,10 @@ public class ZkContainer {
         };
 
     if (background) {
-      coreZkRegister.execute(r);
+      return CompletableFuture.runAsync(r, coreZkRegister);
     } else {
       r.run();
+      return CompletableFuture.completedFuture(null);
     }
   }
 
@@ -24,12 +24,14 @@ import java.util.List;
 import org.apache.solr.client.solrj.SolrRequest.SolrRequestType;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.params.UpdateParams;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.handler.loader.ContentStreamLoader;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.update.SolrCoreState;
+import org.apache.solr.update.processor.ParallelUpdateRequestProcessor;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
 import org.apache.solr.update.processor.UpdateRequestProcessorChain;
 import org.apache.solr.util.circuitbreaker.CircuitBreaker;
@@ -45,6 +47,15 @@ public abstract class ContentStreamHandlerBase extends RequestHandlerBase {
 
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /**
+   * Upper bound of {@link UpdateParams#PARALLELISM}, since every request may otherwise occupy any
+   * number of update executor threads. Defaults to the number of available processors.
+   */
+  public static final String MAX_PARALLELISM_PROP = "solr.update.maxParallelism";
+
+  private static final int MAX_PARALLELISM =
+      Integer.getInteger(MAX_PARALLELISM_PROP, Runtime.getRuntime().availableProcessors());
+
   @Override
   public void init(NamedList<?> args) {
     super.init(args);
@@ -83,7 +94,16 @@ public abstract class ContentStreamHandlerBase extends RequestHandlerBase {
       SolrParams params = req.getParams();
       UpdateRequestProcessorChain processorChain = req.getCore().getUpdateProcessorChain(params);
 
-      UpdateRequestProcessor processor = processorChain.createProcessor(req, rsp);
+      int parallelism = Math.min(params.getInt(UpdateParams.PARALLELISM, 1), MAX_PARALLELISM);
+      UpdateRequestProcessor processor =
+          parallelism > 1
+              ? new ParallelUpdateRequestProcessor(
+                  processorChain,
+                  req,
+                  rsp,
+                  parallelism,
+                  req.getCoreContainer().getUpdateShardHandler().getUpdateExecutor())
+              : processorChain.createProcessor(req, rsp);
 
       try {
         ContentStreamLoader documentLoader = newLoader(req, processor);
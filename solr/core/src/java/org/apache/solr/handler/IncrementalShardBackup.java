@@ -23,15 +23,23 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.math3.util.Precision;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.store.Directory;
 import org.apache.solr.client.api.model.SolrJerseyResponse;
 import org.apache.solr.cloud.CloudDescriptor;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.IndexDeletionPolicyWrapper;
 import org.apache.solr.core.SolrCore;
@@ -52,6 +60,13 @@ import org.slf4j.LoggerFactory;
  */
 public class IncrementalShardBackup {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * The configuration property of the backup repository setting how many index files of a shard
+   * are uploaded at the same time. 1 by default.
+   */
+  public static final String MAX_PARALLEL_UPLOADS_PROP = "maxParallelUploads";
+
   private SolrCore solrCore;
 
   private BackupFilePaths incBackupFiles;
@@ -158,6 +173,7 @@ public class IncrementalShardBackup {
       details.uploadedIndexFileCount = stats.uploadedFileCount;
       details.indexSizeMB = stats.getIndexSizeMB();
       details.uploadedIndexFileMB = stats.getTotalUploadedMB();
+      details.uploadedIndexFileMBPerSec = stats.getUploadedMBPerSec();
     } finally {
       solrCore.getDirectoryFactory().release(dir);
     }
@@ -191,36 +207,86 @@ public class IncrementalShardBackup {
     URI indexDir = incBackupFiles.getIndexDir();
     BackupStats backupStats = new BackupStats();
 
-    for (String fileName : indexFiles) {
-      Optional<ShardBackupMetadata.BackedFile> opBackedFile = oldBackupPoint.getFile(fileName);
-      Checksum originalFileCS = backupRepo.checksum(dir, fileName);
-
-      if (opBackedFile.isPresent()) {
-        ShardBackupMetadata.BackedFile backedFile = opBackedFile.get();
-        Checksum existedFileCS = backedFile.fileChecksum;
-        if (existedFileCS.equals(originalFileCS)) {
-          currentBackupPoint.addBackedFile(opBackedFile.get());
-          backupStats.skippedUploadingFile(existedFileCS);
-          continue;
-        }
+    int maxParallelUploads = getMaxParallelUploads();
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            Math.max(1, Math.min(maxParallelUploads, indexFiles.size())),
+            new SolrNamedThreadFactory("incrementalShardBackup"));
+    long startNanos = System.nanoTime();
+    try {
+      List<Future<Void>> futures = new ArrayList<>(indexFiles.size());
+      for (String fileName : indexFiles) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  Optional<ShardBackupMetadata.BackedFile> opBackedFile =
+                      oldBackupPoint.getFile(fileName);
+                  Checksum originalFileCS = backupRepo.checksum(dir, fileName);
+
+                  if (opBackedFile.isPresent()) {
+                    ShardBackupMetadata.BackedFile backedFile = opBackedFile.get();
+                    Checksum existedFileCS = backedFile.fileChecksum;
+                    if (existedFileCS.equals(originalFileCS)) {
+                      synchronized (backupStats) {
+                        currentBackupPoint.addBackedFile(opBackedFile.get());
+                        backupStats.skippedUploadingFile(existedFileCS);
+                      }
+                      return null;
+                    }
+                  }
+
+                  String backedFileName = UUID.randomUUID().toString();
+                  backupRepo.copyIndexFileFrom(dir, fileName, indexDir, backedFileName);
+
+                  synchronized (backupStats) {
+                    currentBackupPoint.addBackedFile(backedFileName, fileName, originalFileCS);
+                    backupStats.uploadedFile(originalFileCS);
+                  }
+                  return null;
+                }));
       }
-
-      String backedFileName = UUID.randomUUID().toString();
-      backupRepo.copyIndexFileFrom(dir, fileName, indexDir, backedFileName);
-
-      currentBackupPoint.addBackedFile(backedFileName, fileName, originalFileCS);
-      backupStats.uploadedFile(originalFileCS);
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Interrupted uploading index files", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Error uploading index files", e.getCause());
+    } finally {
+      ExecutorUtil.shutdownNowAndAwaitTermination(executor);
+    }
+    backupStats.uploadNanos = System.nanoTime() - startNanos;
+    if (log.isInfoEnabled()) {
+      log.info(
+          "Uploaded {} of {} index files ({} MB) at {} MB/s with {} parallel uploads",
+          backupStats.uploadedFileCount,
+          backupStats.fileCount,
+          backupStats.getTotalUploadedMB(),
+          backupStats.getUploadedMBPerSec(),
+          maxParallelUploads);
     }
 
     currentBackupPoint.store(backupRepo, incBackupFiles.getShardBackupMetadataDir(), shardBackupId);
     return backupStats;
   }
 
+  private int getMaxParallelUploads() {
+    Object maxParallelUploads = backupRepo.getConfigProperty(MAX_PARALLEL_UPLOADS_PROP);
+    return maxParallelUploads == null ? 1 : Integer.parseInt(maxParallelUploads.toString());
+  }
+
   private static class BackupStats {
     private int fileCount;
     private int uploadedFileCount;
     private long indexSize;
     private long totalUploadedBytes;
+    private long uploadNanos;
 
     public void uploadedFile(Checksum file) {
       fileCount++;
@@ -241,6 +307,14 @@ public class IncrementalShardBackup {
     public double getTotalUploadedMB() {
       return Precision.round(totalUploadedBytes / (1024.0 * 1024), 3);
     }
+
+    public double getUploadedMBPerSec() {
+      if (uploadNanos <= 0) {
+        return 0;
+      }
+      double uploadSeconds = uploadNanos / (double) TimeUnit.SECONDS.toNanos(1);
+      return Precision.round(totalUploadedBytes / (1024.0 * 1024) / uploadSeconds, 3);
+    }
   }
 
   public static class IncrementalShardSnapshotResponse extends SolrJerseyResponse {
@@ -264,6 +338,10 @@ public class IncrementalShardBackup {
     @JsonProperty("uploadedIndexFileMB")
     public double uploadedIndexFileMB;
 
+    @Schema(description = "The upload throughput of the index files in MB per second.")
+    @JsonProperty("uploadedIndexFileMBPerSec")
+    public double uploadedIndexFileMBPerSec;
+
     @Schema(description = "Shard Id.")
     @JsonProperty("shard")
     public String shard;
@@ -29,6 +29,8 @@ import static org.apache.solr.handler.ReplicationHandler.COMPRESSION;
 import static org.apache.solr.handler.ReplicationHandler.CONF_FILES;
 import static org.apache.solr.handler.ReplicationHandler.CONF_FILE_SHORT;
 import static org.apache.solr.handler.ReplicationHandler.EXTERNAL;
+import static org.apache.solr.handler.ReplicationHandler.FETCH_CHUNK_SIZE_MB;
+import static org.apache.solr.handler.ReplicationHandler.FETCH_CONCURRENCY;
 import static org.apache.solr.handler.ReplicationHandler.FETCH_FROM_LEADER;
 import static org.apache.solr.handler.ReplicationHandler.FILE;
 import static org.apache.solr.handler.ReplicationHandler.FILE_STREAM;
@@ -37,16 +39,23 @@ import static org.apache.solr.handler.ReplicationHandler.INTERNAL;
 import static org.apache.solr.handler.ReplicationHandler.LEADER_URL;
 import static org.apache.solr.handler.ReplicationHandler.LEGACY_LEADER_URL;
 import static org.apache.solr.handler.ReplicationHandler.LEGACY_SKIP_COMMIT_ON_LEADER_VERSION_ZERO;
+import static org.apache.solr.handler.ReplicationHandler.LEN;
+import static org.apache.solr.handler.ReplicationHandler.MAX_FETCH_PER_SECOND;
+import static org.apache.solr.handler.ReplicationHandler.MAX_WRITE_PER_SECOND;
 import static org.apache.solr.handler.ReplicationHandler.OFFSET;
+import static org.apache.solr.handler.ReplicationHandler.PACKET_CHECKSUM;
 import static org.apache.solr.handler.ReplicationHandler.SIZE;
 import static org.apache.solr.handler.ReplicationHandler.SKIP_COMMIT_ON_LEADER_VERSION_ZERO;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
@@ -60,6 +69,7 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -73,19 +83,24 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.Adler32;
+import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 import java.util.zip.InflaterInputStream;
 import org.apache.http.client.HttpClient;
 import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.SegmentInfos;
@@ -128,6 +143,7 @@ import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.security.AllowListUrlChecker;
 import org.apache.solr.update.CommitUpdateCommand;
 import org.apache.solr.util.FileUtils;
+import org.apache.solr.util.PropertiesInputStream;
 import org.apache.solr.util.PropertiesOutputStream;
 import org.apache.solr.util.RTimer;
 import org.apache.solr.util.RefCounted;
@@ -176,6 +192,9 @@ public class IndexFetcher {
 
   private volatile boolean stop = false;
 
+  // the generation of the leader's latest commit when it announced each pre-copied file
+  private final Map<String, Long> preCopiedGenerations = new ConcurrentHashMap<>();
+
   private boolean useInternalCompression = false;
 
   private boolean useExternalCompression = false;
@@ -194,6 +213,14 @@ public class IndexFetcher {
 
   private boolean clearLocalIndexFirst = false;
 
+  private int fetchConcurrency = 1;
+
+  private long fetchChunkSize = 256L * 1024 * 1024;
+
+  private double maxFetchMBPerSec = -1;
+
+  private boolean packetChecksum = false;
+
   private static final String INTERRUPT_RESPONSE_MESSAGE =
       "Interrupted while waiting for modify lock";
 
@@ -315,6 +342,29 @@ public class IndexFetcher {
       soTimeout = getParameter(initArgs, HttpClientUtil.PROP_SO_TIMEOUT, 120000, null);
     }
 
+    Object fetchConcurrency = initArgs.get(FETCH_CONCURRENCY);
+    if (fetchConcurrency != null) {
+      this.fetchConcurrency = Math.max(1, Integer.parseInt(fetchConcurrency.toString()));
+    }
+    Object fetchChunkSizeMB = initArgs.get(FETCH_CHUNK_SIZE_MB);
+    if (fetchChunkSizeMB != null) {
+      // ranges are requested with an int length
+      this.fetchChunkSize =
+          Math.max(
+              1,
+              Math.min(
+                  Integer.MAX_VALUE,
+                  (long) (Double.parseDouble(fetchChunkSizeMB.toString()) * 1024 * 1024)));
+    }
+    Object maxFetchMBPerSec = initArgs.get(MAX_FETCH_PER_SECOND);
+    if (maxFetchMBPerSec != null) {
+      this.maxFetchMBPerSec = Double.parseDouble(maxFetchMBPerSec.toString());
+    }
+    Object packetChecksum = initArgs.get(PACKET_CHECKSUM);
+    if (packetChecksum != null) {
+      this.packetChecksum = Boolean.parseBoolean(packetChecksum.toString());
+    }
+
     String httpBasicAuthUser = (String) initArgs.get(HttpClientUtil.PROP_BASIC_AUTH_USER);
     String httpBasicAuthPassword = (String) initArgs.get(HttpClientUtil.PROP_BASIC_AUTH_PASS);
     myHttpClient =
@@ -608,8 +658,14 @@ public class IndexFetcher {
               || commit.getGeneration() >= latestGeneration
               || forceReplication;
 
-      String timestamp = new SimpleDateFormat(SnapShooter.DATE_FMT, Locale.ROOT).format(new Date());
-      String tmpIdxDirName = "index." + timestamp;
+      String tmpIdxDirName = findResumableIndexDir(latestGeneration);
+      if (tmpIdxDirName == null) {
+        String timestamp =
+            new SimpleDateFormat(SnapShooter.DATE_FMT, Locale.ROOT).format(new Date());
+        tmpIdxDirName = "index." + timestamp;
+      } else {
+        log.info("Resuming the index fetch of a previous attempt in {}", tmpIdxDirName);
+      }
       tmpIndexDirPath = solrCore.getDataDir() + tmpIdxDirName;
 
       tmpIndexDir =
@@ -687,14 +743,25 @@ public class IndexFetcher {
           log.info("Starting download (fullCopy={}) to {}", isFullCopyNeeded, tmpIndexDir);
           successfulInstall = false;
 
-          long bytesDownloaded =
-              downloadIndexFiles(
-                  isFullCopyNeeded,
-                  indexDir,
-                  tmpIndexDir,
-                  indexDirPath,
-                  tmpIndexDirPath,
-                  latestGeneration);
+          long bytesDownloaded;
+          try {
+            bytesDownloaded =
+                downloadIndexFiles(
+                    isFullCopyNeeded,
+                    indexDir,
+                    tmpIndexDir,
+                    indexDirPath,
+                    tmpIndexDirPath,
+                    latestGeneration);
+          } catch (ReplicationHandlerException e) {
+            throw e;
+          } catch (Exception e) {
+            // keep what was fetched so far for the next attempt, unless the user aborted
+            if (saveResumeState(tmpIndexDir, latestGeneration)) {
+              deleteTmpIdxDir = false;
+            }
+            throw e;
+          }
           final long timeTakenSeconds = getReplicationTimeElapsed();
           final Long bytesDownloadedPerSecond =
               (timeTakenSeconds != 0 ? Long.valueOf(bytesDownloaded / timeTakenSeconds) : null);
@@ -1165,6 +1232,14 @@ public class IndexFetcher {
       deleteFilesInAdvance(indexDir, indexDirPath, totalSpaceRequired, usableSpace);
     }
 
+    Properties resumeState = readResumeState(tmpIndexDir);
+    long bytesResumed = 0;
+    Path tmpIndexPath = getFSDirectoryPath(tmpIndexDir);
+    Set<String> preCopiedFiles =
+        tmpIndexPath == null ? Collections.emptySet() : listPreCopiedFiles();
+    long bytesPreCopied = 0;
+    Map<String, Long> resumeOffsets = new HashMap<>();
+    List<Map<String, Object>> filesToFetchConcurrently = new ArrayList<>();
     for (Map<String, Object> file : filesToDownload) {
       String filename = (String) file.get(NAME);
       long size = (Long) file.get(SIZE);
@@ -1180,6 +1255,25 @@ public class IndexFetcher {
             alwaysDownload);
       }
       if (!compareResult.equal || downloadCompleteIndex || alwaysDownload) {
+        long resumeOffset =
+            resumeState == null ? 0 : getResumeOffset(tmpIndexDir, file, resumeState);
+        if (resumeOffset == size) {
+          log.debug("Reusing {} fetched by a previous attempt", filename);
+          bytesResumed += size;
+          filesDownloaded.add(new HashMap<>(file));
+          continue;
+        } else if (resumeOffset > 0) {
+          log.info("Resuming the fetch of {} from offset {}", filename, resumeOffset);
+          bytesResumed += resumeOffset;
+          resumeOffsets.put(filename, resumeOffset);
+          filesToFetchConcurrently.add(file);
+          continue;
+        }
+        if (preCopiedFiles.contains(filename) && reusePreCopiedFile(file, tmpIndexPath)) {
+          bytesPreCopied += size;
+          filesDownloaded.add(new HashMap<>(file));
+          continue;
+        }
         File localFile = new File(indexDirPath, filename);
         if (downloadCompleteIndex
             && doDifferentialCopy
@@ -1196,6 +1290,9 @@ public class IndexFetcher {
           // efficient as compared to a file copy. TODO: Maybe we could do a move safely here?
           Files.createLink(Path.of(tmpIndexDirPath, filename), localFile.toPath());
           bytesSkippedCopying += localFile.length();
+        } else if (fetchConcurrency > 1) {
+          filesToFetchConcurrently.add(file);
+          continue;
         } else {
           dirFileFetcher =
               new DirectoryFileFetcher(
@@ -1211,13 +1308,471 @@ public class IndexFetcher {
         }
       }
     }
+    if (!filesToFetchConcurrently.isEmpty()) {
+      bytesDownloaded +=
+          fetchFilesConcurrently(
+              filesToFetchConcurrently, resumeOffsets, tmpIndexDir, latestGeneration);
+    }
+    deleteExpiredPreCopiedFiles(preCopiedFiles, latestGeneration);
     log.info(
-        "Bytes downloaded: {}, Bytes skipped downloading: {}",
+        "Bytes downloaded: {}, Bytes skipped downloading: {}, Bytes reused from a previous attempt: {}, Bytes pre-copied: {}",
         bytesDownloaded,
-        bytesSkippedCopying);
+        bytesSkippedCopying,
+        bytesResumed,
+        bytesPreCopied);
     return bytesDownloaded;
   }
 
+  /**
+   * Fetches the given index files over {@link #fetchConcurrency} concurrent streams. When the
+   * temporary index directory is on the filesystem, files larger than {@link #fetchChunkSize} are
+   * split into ranges which are fetched concurrently too, and written in place.
+   *
+   * @param resumeOffsets the files partially fetched by a previous attempt, and where to resume
+   * @return number of bytes downloaded
+   */
+  private long fetchFilesConcurrently(
+      List<Map<String, Object>> files,
+      Map<String, Long> resumeOffsets,
+      Directory tmpIndexDir,
+      long latestGeneration)
+      throws Exception {
+    Path tmpIndexPath = getFSDirectoryPath(tmpIndexDir);
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            fetchConcurrency, new SolrNamedThreadFactory("indexFetcher"));
+    List<RangedFile> rangedFiles = new ArrayList<>();
+    List<Future<Long>> futures = new ArrayList<>();
+    // makes the fetchers that are still running give up, without aborting the whole replication
+    AtomicBoolean failed = new AtomicBoolean();
+    boolean success = false;
+    try {
+      for (Map<String, Object> file : files) {
+        String filename = (String) file.get(NAME);
+        long size = (Long) file.get(SIZE);
+        long resumeOffset = resumeOffsets.getOrDefault(filename, 0L);
+        if (tmpIndexPath != null && (size > fetchChunkSize || resumeOffset > 0)) {
+          RangedFile rangedFile =
+              new RangedFile(tmpIndexPath.resolve(filename), file, resumeOffset > 0);
+          rangedFiles.add(rangedFile);
+          futures.addAll(
+              fetchRanges(executor, rangedFile, resumeOffset, latestGeneration, failed));
+        } else {
+          futures.add(
+              executor.submit(
+                  () -> {
+                    DirectoryFileFetcher fetcher =
+                        new DirectoryFileFetcher(
+                            tmpIndexDir, file, filename, FILE, latestGeneration);
+                    fetcher.fetchFailed = failed;
+                    fetcher.fetchFile();
+                    // a fetcher that gave up returns normally, without the whole file
+                    if (fetcher.getBytesDownloaded() == (Long) file.get(SIZE)) {
+                      filesDownloaded.add(new HashMap<>(file));
+                    }
+                    return fetcher.getBytesDownloaded();
+                  }));
+        }
+      }
+
+      long bytesDownloaded = waitForFetches(futures);
+      for (int i = 0; i < rangedFiles.size(); i++) {
+        RangedFile rangedFile = rangedFiles.get(i);
+        rangedFile.close();
+        String filename = (String) rangedFile.fileDetails.get(NAME);
+        // the ranges can't compute the checksum of the whole file as they are fetched, and the
+        // part fetched by a previous attempt was only checked packet by packet
+        if (rangedFile.resumed && !checksumMatches(tmpIndexDir, rangedFile.fileDetails)) {
+          // rather than failing the whole fetch, fetch this file again from scratch
+          log.warn(
+              "Checksum of resumed file {} doesn't match the leader's, fetching it again",
+              filename);
+          rangedFile.delete();
+          rangedFile = new RangedFile(rangedFile.path, rangedFile.fileDetails, false);
+          rangedFiles.set(i, rangedFile);
+          List<Future<Long>> refetches =
+              fetchRanges(executor, rangedFile, 0, latestGeneration, failed);
+          futures.addAll(refetches);
+          bytesDownloaded += waitForFetches(refetches);
+          rangedFile.close();
+        }
+        if (!rangedFile.resumed
+            && verifiesFooterChecksum(rangedFile.fileDetails)
+            && !checksumMatches(tmpIndexDir, rangedFile.fileDetails)) {
+          throw new SolrException(
+              SolrException.ErrorCode.SERVER_ERROR,
+              "Checksum of file " + filename + " doesn't match the leader's");
+        }
+        fsyncService.submit(
+            () -> {
+              try {
+                rangedFile.sync();
+              } catch (IOException e) {
+                fsyncException = e;
+              }
+            });
+        filesDownloaded.add(new HashMap<>(rangedFile.fileDetails));
+      }
+      success = true;
+      return bytesDownloaded;
+    } finally {
+      if (!success) {
+        failed.set(true);
+        for (Future<Long> future : futures) {
+          future.cancel(false);
+        }
+      }
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+      if (!success) {
+        for (RangedFile rangedFile : rangedFiles) {
+          try {
+            rangedFile.close();
+            rangedFile.delete();
+          } catch (IOException e) {
+            log.error("Error deleting partially fetched file: {}", rangedFile.path, e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Fetches the ranges of the given file, from the given offset to its end
+   *
+   * @param failed set once the fetch of another file failed, to give up
+   */
+  private List<Future<Long>> fetchRanges(
+      ExecutorService executor,
+      RangedFile rangedFile,
+      long fromOffset,
+      long latestGeneration,
+      AtomicBoolean failed) {
+    Map<String, Object> file = rangedFile.fileDetails;
+    String filename = (String) file.get(NAME);
+    long size = (Long) file.get(SIZE);
+    List<Future<Long>> futures = new ArrayList<>();
+    for (long offset = fromOffset; offset < size; offset += fetchChunkSize) {
+      FileFetcher fetcher =
+          new FileFetcher(
+              rangedFile.range(offset),
+              file,
+              filename,
+              FILE,
+              latestGeneration,
+              offset,
+              Math.min(fetchChunkSize, size - offset),
+              true);
+      fetcher.fetchFailed = failed;
+      futures.add(
+          executor.submit(
+              () -> {
+                fetcher.fetchFile();
+                return fetcher.getBytesDownloaded();
+              }));
+    }
+    return futures;
+  }
+
+  /** Waits for the given fetches to complete, and returns the number of bytes they downloaded */
+  private static long waitForFetches(List<Future<Long>> futures) throws Exception {
+    long bytesDownloaded = 0;
+    for (Future<Long> future : futures) {
+      try {
+        bytesDownloaded += future.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Exception) {
+          throw (Exception) e.getCause();
+        }
+        throw e;
+      }
+    }
+    return bytesDownloaded;
+  }
+
+  /**
+   * Fetches the files of a segment that the leader just merged into {@link #PRECOPY_DIR}, ahead of
+   * the commit that will reference them, so that the next index fetch doesn't have to download
+   * them. No commit point is reserved on the leader: if it drops the segment before committing it,
+   * the fetch fails and nothing is left behind.
+   *
+   * @param files the name, size and checksum of each file of the segment
+   * @param generation the generation of the leader's latest commit when the segment was merged, or
+   *     null if unknown
+   */
+  void preCopyFiles(List<Map<String, Object>> files, Long generation) throws Exception {
+    if (!solrCore.getDirectoryFactory().isPersistent()) return;
+    Path preCopyPath = getPreCopyPath();
+    Files.createDirectories(preCopyPath);
+    for (Map<String, Object> file : files) {
+      String filename = (String) file.get(NAME);
+      Path target = preCopyPath.resolve(filename);
+      if (stop) return;
+      if (Files.exists(target)) continue;
+      Path part = preCopyPath.resolve(filename + PRECOPY_PART_SUFFIX);
+      boolean success = false;
+      try {
+        PreCopyFileFetcher fetcher = new PreCopyFileFetcher(preCopyPath.toFile(), file);
+        fetcher.fetchFile();
+        // only complete files are ever reused
+        Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        if (generation != null) {
+          preCopiedGenerations.put(filename, generation);
+        }
+        success = true;
+        log.debug("Pre-copied {} ({} bytes)", filename, fetcher.getBytesDownloaded());
+      } finally {
+        if (!success) {
+          Files.deleteIfExists(part);
+        }
+      }
+    }
+  }
+
+  private Path getPreCopyPath() {
+    return Path.of(solrCore.getDataDir(), PRECOPY_DIR);
+  }
+
+  /** The names of the files completely pre-copied so far */
+  private Set<String> listPreCopiedFiles() throws IOException {
+    Path preCopyPath = getPreCopyPath();
+    if (!Files.isDirectory(preCopyPath)) return Collections.emptySet();
+    try (Stream<Path> files = Files.list(preCopyPath)) {
+      return files
+          .map(path -> path.getFileName().toString())
+          .filter(name -> !name.endsWith(PRECOPY_PART_SUFFIX))
+          .collect(Collectors.toSet());
+    }
+  }
+
+  /**
+   * Moves a pre-copied file into the temporary index directory, if its size and footer checksum
+   * match the leader's.
+   *
+   * @return whether the file doesn't need to be downloaded
+   */
+  private boolean reusePreCopiedFile(Map<String, Object> file, Path tmpIndexPath) {
+    String filename = (String) file.get(NAME);
+    Long checksum = (Long) file.get(CHECKSUM);
+    if (checksum == null) return false;
+    Path preCopied = getPreCopyPath().resolve(filename);
+    try {
+      if (Files.size(preCopied) != (Long) file.get(SIZE)) return false;
+      try (Directory dir = FSDirectory.open(preCopied.getParent());
+          IndexInput in = dir.openInput(filename, IOContext.READONCE)) {
+        if (CodecUtil.retrieveChecksum(in) != checksum) return false;
+      }
+      Files.move(preCopied, tmpIndexPath.resolve(filename), StandardCopyOption.ATOMIC_MOVE);
+      preCopiedGenerations.remove(filename);
+      log.debug("Reusing {} pre-copied before the leader committed it", filename);
+      return true;
+    } catch (IOException e) {
+      log.warn("Can't reuse pre-copied file {}", filename, e);
+      return false;
+    }
+  }
+
+  /**
+   * Deletes the pre-copied files that weren't used by the fetch of the given generation and won't
+   * be used by any later one either. A merged segment is part of the first or, if a commit was
+   * already running when the merge finished, the second commit after the one announced with it,
+   * unless the leader merged it away meanwhile. Files of which that generation isn't known, e.g.
+   * because they were pre-copied before a restart, are deleted after {@link
+   * #PRECOPY_MAX_AGE_MS}.
+   */
+  private void deleteExpiredPreCopiedFiles(Set<String> files, long fetchedGeneration) {
+    Path preCopyPath = getPreCopyPath();
+    long now = System.currentTimeMillis();
+    for (String file : files) {
+      Path path = preCopyPath.resolve(file);
+      try {
+        if (!Files.exists(path)) continue; // reused
+        Long generation = preCopiedGenerations.get(file);
+        boolean expired =
+            generation != null
+                ? fetchedGeneration > generation + 1
+                : now - Files.getLastModifiedTime(path).toMillis() > PRECOPY_MAX_AGE_MS;
+        if (expired) {
+          Files.deleteIfExists(path);
+          preCopiedGenerations.remove(file);
+        }
+      } catch (IOException e) {
+        log.warn("Could not delete pre-copied file {}", file, e);
+      }
+    }
+  }
+
+  /** The path of the directory if it is on the filesystem, null otherwise */
+  private static Path getFSDirectoryPath(Directory dir) {
+    Directory unwrapped = FilterDirectory.unwrap(dir);
+    return unwrapped instanceof FSDirectory ? ((FSDirectory) unwrapped).getDirectory() : null;
+  }
+
+  /**
+   * Looks for the temporary index directory of a failed attempt that can be resumed, i.e. one
+   * with a {@link #RESUME_STATE} for the given generation or an older one.
+   *
+   * @return the name of the directory, or null if there is none
+   */
+  private String findResumableIndexDir(long latestGeneration) {
+    File[] candidates =
+        new File(solrCore.getDataDir())
+            .listFiles(
+                f ->
+                    f.isDirectory()
+                        && f.getName().startsWith("index.")
+                        && new File(f, RESUME_STATE).isFile());
+    if (candidates == null) return null;
+    String resumable = null;
+    long resumableGeneration = -1;
+    for (File dir : candidates) {
+      Properties state = new Properties();
+      try (Reader reader =
+          Files.newBufferedReader(new File(dir, RESUME_STATE).toPath(), StandardCharsets.UTF_8)) {
+        state.load(reader);
+        long generation = Long.parseLong(state.getProperty(GENERATION, "-1"));
+        if (generation <= latestGeneration && generation > resumableGeneration) {
+          resumable = dir.getName();
+          resumableGeneration = generation;
+        }
+      } catch (IOException | NumberFormatException e) {
+        log.warn("Ignoring the state of a previous index fetch in {}", dir, e);
+      }
+    }
+    return resumable;
+  }
+
+  /**
+   * Reads and removes the {@link #RESUME_STATE} of a previous attempt, so that it never ends up in
+   * an installed index.
+   *
+   * @return null if there is none
+   */
+  private static Properties readResumeState(Directory tmpIndexDir) throws IOException {
+    if (!slowFileExists(tmpIndexDir, RESUME_STATE)) return null;
+    Properties state = new Properties();
+    try (IndexInput input = tmpIndexDir.openInput(RESUME_STATE, IOContext.READONCE)) {
+      state.load(new InputStreamReader(new PropertiesInputStream(input), StandardCharsets.UTF_8));
+    }
+    tmpIndexDir.deleteFile(RESUME_STATE);
+    return state;
+  }
+
+  /**
+   * Records the files completely fetched so far, and how much of the others, so that the next
+   * attempt can reuse them. This is only done when the temporary index directory is on the
+   * filesystem, which is how the next attempt finds it and appends to the partial files.
+   *
+   * @return true if the state was saved, in which case the directory must be kept
+   */
+  private boolean saveResumeState(Directory tmpIndexDir, long generation) {
+    if (getFSDirectoryPath(tmpIndexDir) == null) return false;
+    try {
+      Properties state = new Properties();
+      state.setProperty(GENERATION, Long.toString(generation));
+      Set<String> completed = new HashSet<>();
+      for (Map<String, Object> file : getFilesDownloaded()) {
+        completed.add((String) file.get(NAME));
+        state.setProperty(RESUME_COMPLETED_PREFIX + file.get(NAME), file.get(SIZE).toString());
+      }
+      Set<String> onDisk = new HashSet<>(Arrays.asList(tmpIndexDir.listAll()));
+      for (Map<String, Object> file : getFilesToDownload()) {
+        String filename = (String) file.get(NAME);
+        if (!completed.contains(filename) && onDisk.contains(filename)) {
+          long length = tmpIndexDir.fileLength(filename);
+          if (length > 0) {
+            state.setProperty(RESUME_PARTIAL_PREFIX + filename, Long.toString(length));
+          }
+        }
+      }
+
+      final IndexOutput out =
+          tmpIndexDir.createOutput(RESUME_STATE, DirectoryFactory.IOCONTEXT_NO_CACHE);
+      try (Writer outFile =
+          new OutputStreamWriter(new PropertiesOutputStream(out), StandardCharsets.UTF_8)) {
+        state.store(outFile, "State of a failed index fetch");
+      }
+      tmpIndexDir.sync(Collections.singleton(RESUME_STATE));
+      log.info(
+          "Saved the state of the index fetch for the next attempt: {} completed files, {} partial",
+          completed.size(),
+          state.size() - completed.size() - 1);
+      return true;
+    } catch (Exception e) {
+      log.warn("Could not save the state of the index fetch, the next attempt starts over", e);
+      return false;
+    }
+  }
+
+  /**
+   * How much of the given file, fetched by a previous attempt, can be reused. Completed files are
+   * reused if their footer checksum matches the leader's; partial files are truncated to the
+   * recorded length and resumed from there, their checksum is verified once complete.
+   *
+   * @return the size of the file if it is complete, the offset to resume from, or 0 (in which case
+   *     any leftover is deleted)
+   */
+  private static long getResumeOffset(
+      Directory tmpIndexDir, Map<String, Object> file, Properties resumeState)
+      throws IOException {
+    String filename = (String) file.get(NAME);
+    long size = (Long) file.get(SIZE);
+    Long checksum = (Long) file.get(CHECKSUM);
+    if (!slowFileExists(tmpIndexDir, filename)) return 0;
+    if (checksum != null) {
+      try {
+        long length = tmpIndexDir.fileLength(filename);
+        if (resumeState.getProperty(RESUME_COMPLETED_PREFIX + filename) != null
+            && length == size) {
+          try (IndexInput in = tmpIndexDir.openInput(filename, IOContext.READONCE)) {
+            if (CodecUtil.retrieveChecksum(in) == checksum) return size;
+          }
+        }
+        String partial = resumeState.getProperty(RESUME_PARTIAL_PREFIX + filename);
+        Path tmpIndexPath = getFSDirectoryPath(tmpIndexDir);
+        if (partial != null && tmpIndexPath != null) {
+          long offset = Math.min(Long.parseLong(partial), length);
+          if (offset > 0 && offset < size) {
+            try (FileChannel channel =
+                FileChannel.open(tmpIndexPath.resolve(filename), StandardOpenOption.WRITE)) {
+              channel.truncate(offset);
+            }
+            return offset;
+          }
+        }
+      } catch (IOException | NumberFormatException e) {
+        log.warn("Can't reuse {} fetched by a previous attempt", filename, e);
+      }
+    }
+    tmpIndexDir.deleteFile(filename);
+    return 0;
+  }
+
+  /**
+   * Whether the given index file is verified against the checksum in its footer, as reported by the
+   * leader, instead of an Adler32 checksum computed by the leader for every packet. This saves the
+   * leader from checksumming everything it sends, while the follower computes the CRC32 held by the
+   * footer as it writes the file.
+   */
+  private boolean verifiesFooterChecksum(Map<String, Object> file) {
+    Long checksum = (Long) file.get(CHECKSUM);
+    // the leader reports 0 when it couldn't read the footer
+    return !packetChecksum
+        && checksum != null
+        && checksum != 0
+        && (Long) file.get(SIZE) >= CodecUtil.footerLength();
+  }
+
+  /** Whether the checksum of the entire file matches the one of the leader */
+  private static boolean checksumMatches(Directory dir, Map<String, Object> file)
+      throws IOException {
+    try (IndexInput in = dir.openInput((String) file.get(NAME), IOContext.READONCE)) {
+      return CodecUtil.checksumEntireFile(in) == (Long) file.get(CHECKSUM);
+    } catch (CorruptIndexException e) {
+      // e.g. the footer itself is damaged
+      return false;
+    }
+  }
+
   // only for testing purposes. do not use this anywhere else
   // -----------START----------------------
   static BooleanSupplier testWait = () -> true;
@@ -1739,18 +2294,26 @@ public class IndexFetcher {
    */
   private class FileFetcher {
     private final FileInterface file;
-    private boolean includeChecksum = true;
+    private final boolean includeChecksum;
     private final String fileName;
     private final String saveAs;
     private final String solrParamOutput;
     private final Long indexGen;
 
+    // the range of the file to fetch, the whole file unless ranged
+    private final long offset;
     private final long size;
+    private final boolean ranged;
     private long bytesDownloaded = 0;
     private byte[] buf;
     private final Checksum checksum;
+    // the CRC32 of the footer of a whole index file, computed as it is fetched
+    private final CRC32 footerChecksum;
+    private final long expectedFooterChecksum;
     private int errorCount = 0;
     private boolean aborted = false;
+    // set when fetched concurrently with other files, once the fetch of one of them failed
+    AtomicBoolean fetchFailed;
 
     FileFetcher(
         FileInterface file,
@@ -1759,13 +2322,45 @@ public class IndexFetcher {
         String solrParamOutput,
         long latestGen)
         throws IOException {
+      this(
+          file,
+          fileDetails,
+          saveAs,
+          solrParamOutput,
+          latestGen,
+          0,
+          (Long) fileDetails.get(SIZE),
+          false);
+    }
+
+    FileFetcher(
+        FileInterface file,
+        Map<String, Object> fileDetails,
+        String saveAs,
+        String solrParamOutput,
+        Long latestGen,
+        long offset,
+        long length,
+        boolean indexFile)
+        throws IOException {
       this.file = file;
       this.fileName = (String) fileDetails.get(NAME);
-      this.size = (Long) fileDetails.get(SIZE);
+      this.offset = offset;
+      this.size = length;
+      this.ranged = offset != 0 || length != (Long) fileDetails.get(SIZE);
       buf = new byte[(int) Math.min(this.size, ReplicationHandler.PACKET_SZ)];
       this.solrParamOutput = solrParamOutput;
       this.saveAs = saveAs;
       indexGen = latestGen;
+      // ranges of index files are verified once the whole file is fetched
+      includeChecksum = !(indexFile && verifiesFooterChecksum(fileDetails));
+      if (!includeChecksum && !ranged) {
+        footerChecksum = new CRC32();
+        expectedFooterChecksum = (Long) fileDetails.get(CHECKSUM);
+      } else {
+        footerChecksum = null;
+        expectedFooterChecksum = -1;
+      }
       if (includeChecksum) {
         checksum = new Adler32();
       } else {
@@ -1780,6 +2375,7 @@ public class IndexFetcher {
     /** The main method which downloads file */
     public void fetchFile() throws Exception {
       bytesDownloaded = 0;
+      if (footerChecksum != null) footerChecksum.reset();
       try {
         fetch();
       } catch (Exception e) {
@@ -1809,27 +2405,36 @@ public class IndexFetcher {
       } finally {
         cleanup();
         // if cleanup succeeds . The file is downloaded fully. do an fsync
-        fsyncService.submit(
-            () -> {
-              try {
-                file.sync();
-              } catch (IOException e) {
-                fsyncException = e;
-              }
-            });
+        sync(file);
       }
     }
 
+    /** Syncs the fetched file in the background, failures are reported at the end of the fetch */
+    protected void sync(FileInterface file) throws IOException {
+      fsyncService.submit(
+          () -> {
+            try {
+              file.sync();
+            } catch (IOException e) {
+              fsyncException = e;
+            }
+          });
+    }
+
     private int fetchPackets(FastInputStream fis) throws Exception {
       byte[] intbytes = new byte[4];
       byte[] longbytes = new byte[8];
       try {
         while (true) {
           if (stop) {
-            stop = false;
+            // reset once the whole fetch is cleaned up, since other fetchers may be running
             aborted = true;
             throw new ReplicationHandlerException("User aborted replication");
           }
+          if (fetchFailed != null && fetchFailed.get()) {
+            aborted = true;
+            throw new ReplicationHandlerException("Fetch of another file failed");
+          }
           long checkSumServer = -1;
           fis.readFully(intbytes);
           // read the size of the packet
@@ -1866,6 +2471,11 @@ public class IndexFetcher {
           }
           // if everything is fine, write down the packet to the file
           file.write(buf, packetSize);
+          if (footerChecksum != null) {
+            // the checksum covers everything but itself
+            long checksummed = size - Long.BYTES - bytesDownloaded;
+            footerChecksum.update(buf, 0, (int) Math.max(0, Math.min(packetSize, checksummed)));
+          }
           bytesDownloaded += packetSize;
           log.debug("Fetched and wrote {} bytes of file: {}", bytesDownloaded, fileName);
           // errorCount is always set to zero after a successful packet
@@ -1934,7 +2544,7 @@ public class IndexFetcher {
         /* no-op */
         log.error("Error closing file: {}", this.saveAs, e);
       }
-      if (bytesDownloaded != size) {
+      if (bytesDownloaded != size && (aborted || !keepsIncompleteFile())) {
         // if the download is not complete then
         // delete the file being downloaded
         try {
@@ -1942,6 +2552,8 @@ public class IndexFetcher {
         } catch (Exception e) {
           log.error("Error deleting file: {}", this.saveAs, e);
         }
+      }
+      if (bytesDownloaded != size) {
         // if the failure is due to a user abort it is returned normally else an exception is thrown
         if (!aborted)
           throw new SolrException(
@@ -1952,16 +2564,33 @@ public class IndexFetcher {
                   + bytesDownloaded
                   + "!="
                   + size);
+      } else if (footerChecksum != null && footerChecksum.getValue() != expectedFooterChecksum) {
+        try {
+          file.delete();
+        } catch (Exception e) {
+          log.error("Error deleting file: {}", this.saveAs, e);
+        }
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            "Checksum of " + fileName + " doesn't match the leader's");
       }
     }
 
+    /** Whether an incomplete file is kept for the next attempt to resume, unless aborted */
+    protected boolean keepsIncompleteFile() {
+      return false;
+    }
+
     /** Open a new stream using HttpClient */
     private FastInputStream getStream() throws IOException {
       ModifiableSolrParams params = new ModifiableSolrParams();
 
       //    //the method is command=filecontent
       params.set(COMMAND, CMD_GET_FILE);
-      params.set(GENERATION, Long.toString(indexGen));
+      // the leader reserves the commit of that generation, pre-copied files don't belong to one
+      if (indexGen != null) {
+        params.set(GENERATION, Long.toString(indexGen));
+      }
       params.set(CommonParams.QT, ReplicationHandler.PATH);
       // add the version to download. This is used to reserve the download
       params.set(solrParamOutput, fileName);
@@ -1976,8 +2605,15 @@ public class IndexFetcher {
       params.set(CommonParams.WT, FILE_STREAM);
       // This happen if there is a failure there is a retry. the offset=<sizedownloaded> ensures
       // that the server starts from the offset
-      if (bytesDownloaded > 0) {
-        params.set(OFFSET, Long.toString(bytesDownloaded));
+      if (offset + bytesDownloaded > 0) {
+        params.set(OFFSET, Long.toString(offset + bytesDownloaded));
+      }
+      if (ranged) {
+        params.set(LEN, Long.toString(size - bytesDownloaded));
+      }
+      // the bandwidth cap is shared by all concurrent fetches
+      if (maxFetchMBPerSec > 0) {
+        params.set(MAX_WRITE_PER_SECOND, Double.toString(maxFetchMBPerSec / fetchConcurrency));
       }
 
       NamedList<?> response;
@@ -2038,7 +2674,67 @@ public class IndexFetcher {
     }
   }
 
+  /** A file written concurrently by several {@link FileFetcher}s, each fetching its own range */
+  private static class RangedFile implements Closeable {
+    private final Path path;
+    private final Map<String, Object> fileDetails;
+    private final boolean resumed;
+    private final FileChannel channel;
+
+    RangedFile(Path path, Map<String, Object> fileDetails, boolean resumed) throws IOException {
+      this.path = path;
+      this.fileDetails = fileDetails;
+      this.resumed = resumed;
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /** The file to hand to the fetcher of the range starting at the given offset */
+    FileInterface range(long offset) {
+      return new FileInterface() {
+        private long position = offset;
+
+        @Override
+        public void sync() {
+          // synced once, after all ranges are fetched
+        }
+
+        @Override
+        public void write(byte[] buf, int packetSize) throws IOException {
+          ByteBuffer bb = ByteBuffer.wrap(buf, 0, packetSize);
+          while (bb.hasRemaining()) {
+            position += channel.write(bb, position);
+          }
+        }
+
+        @Override
+        public void close() {
+          // closed once, after all ranges are fetched
+        }
+
+        @Override
+        public void delete() {
+          // deleted as a whole if any range failed
+        }
+      };
+    }
+
+    void sync() throws IOException {
+      FileUtils.sync(path.toFile());
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+
+    void delete() throws IOException {
+      Files.deleteIfExists(path);
+    }
+  }
+
   private class DirectoryFileFetcher extends FileFetcher {
+    private final boolean resumable;
+
     DirectoryFileFetcher(
         Directory tmpIndexDir,
         Map<String, Object> fileDetails,
@@ -2047,7 +2743,21 @@ public class IndexFetcher {
         long latestGen)
         throws IOException {
       super(
-          new DirectoryFile(tmpIndexDir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen);
+          new DirectoryFile(tmpIndexDir, saveAs),
+          fileDetails,
+          saveAs,
+          solrParamOutput,
+          latestGen,
+          0,
+          (Long) fileDetails.get(SIZE),
+          true);
+      // see saveResumeState
+      resumable = getFSDirectoryPath(tmpIndexDir) != null;
+    }
+
+    @Override
+    protected boolean keepsIncompleteFile() {
+      return resumable;
     }
   }
 
@@ -2110,6 +2820,27 @@ public class IndexFetcher {
     }
   }
 
+  /** Fetches a file of a merged segment into {@link #PRECOPY_DIR}, outside of any index fetch */
+  private class PreCopyFileFetcher extends FileFetcher {
+    PreCopyFileFetcher(File dir, Map<String, Object> fileDetails) throws IOException {
+      super(
+          new LocalFsFile(dir, fileDetails.get(NAME) + PRECOPY_PART_SUFFIX),
+          fileDetails,
+          fileDetails.get(NAME) + PRECOPY_PART_SUFFIX,
+          FILE,
+          null,
+          0,
+          (Long) fileDetails.get(SIZE),
+          true);
+    }
+
+    @Override
+    protected void sync(FileInterface file) throws IOException {
+      // there is no index fetch to report a failure to
+      file.sync();
+    }
+  }
+
   NamedList<Object> getDetails() throws IOException, SolrServerException {
     ModifiableSolrParams params = new ModifiableSolrParams();
     params.set(COMMAND, CMD_DETAILS);
@@ -2145,6 +2876,21 @@ public class IndexFetcher {
 
   public static final String REPLICATION_PROPERTIES = "replication.properties";
 
+  /** The state of a failed index fetch, kept in its temporary index directory */
+  static final String RESUME_STATE = "replication.resume";
+
+  private static final String RESUME_COMPLETED_PREFIX = "completed.";
+
+  private static final String RESUME_PARTIAL_PREFIX = "partial.";
+
+  /** Where the files of segments merged by the leader are fetched before it commits them */
+  public static final String PRECOPY_DIR = "precopy";
+
+  private static final String PRECOPY_PART_SUFFIX = ".part";
+
+  /** How long pre-copied files that were announced with no known generation are kept */
+  private static final long PRECOPY_MAX_AGE_MS = TimeUnit.HOURS.toMillis(1);
+
   static final String INDEX_REPLICATED_AT = "indexReplicatedAt";
 
   static final String TIMES_INDEX_REPLICATED = "timesIndexReplicated";
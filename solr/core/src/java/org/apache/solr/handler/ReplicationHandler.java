@@ -45,6 +45,7 @@ import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -61,6 +62,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexDeletionPolicy;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.SegmentCommitInfo;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
@@ -68,6 +70,9 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.RateLimiter;
 import org.apache.solr.api.JerseyResource;
 import org.apache.solr.client.api.model.SolrJerseyResponse;
+import org.apache.solr.cloud.IndexChangeAnnouncer;
+import org.apache.solr.cloud.ReplicateFromLeader;
+import org.apache.solr.cloud.ZkController;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.params.CommonParams;
@@ -202,6 +207,9 @@ public class ReplicationHandler extends RequestHandlerBase
   private ExecutorService restoreExecutor =
       ExecutorUtil.newMDCAwareSingleThreadExecutor(new SolrNamedThreadFactory("restoreExecutor"));
 
+  private ExecutorService preCopyExecutor =
+      ExecutorUtil.newMDCAwareSingleThreadExecutor(new SolrNamedThreadFactory("preCopyExecutor"));
+
   private volatile Future<Boolean> restoreFuture;
 
   private volatile String currentRestoreName;
@@ -250,6 +258,12 @@ public class ReplicationHandler extends RequestHandlerBase
   /** Disable the timer task for polling */
   private AtomicBoolean pollDisabled = new AtomicBoolean(false);
 
+  private volatile Runnable pollTask;
+
+  private final AtomicBoolean fetchNowPending = new AtomicBoolean(false);
+
+  private IndexChangeAnnouncer indexChangeAnnouncer;
+
   String getPollInterval() {
     return pollIntervalStr;
   }
@@ -300,6 +314,10 @@ public class ReplicationHandler extends RequestHandlerBase
       } else {
         reportErrorOnResponse(rsp, "No follower configured", null);
       }
+    } else if (command.equalsIgnoreCase(CMD_INDEX_CHANGED)) {
+      indexChanged(solrParams, rsp);
+    } else if (command.equalsIgnoreCase(CMD_MERGED_SEGMENT)) {
+      mergedSegment(solrParams, rsp);
     } else if (command.equals(CMD_SHOW_COMMITS)) {
       populateCommitInfo(rsp);
     } else if (command.equals(CMD_DETAILS)) {
@@ -466,7 +484,11 @@ public class ReplicationHandler extends RequestHandlerBase
       } else {
         currentIndexFetcher = pollingIndexFetcher;
       }
-      return currentIndexFetcher.fetchLatestIndex(forceReplication);
+      IndexFetchResult result = currentIndexFetcher.fetchLatestIndex(forceReplication);
+      if (result.getSuccessful()) {
+        onFetchSucceeded();
+      }
+      return result;
     } catch (Exception e) {
       log.error("Index fetch failed", e);
       if (currentIndexFetcher != pollingIndexFetcher) {
@@ -484,10 +506,80 @@ public class ReplicationHandler extends RequestHandlerBase
     }
   }
 
+  /**
+   * Whether the fetch was triggered by polling, by an announcement of the leader, by recovery or by
+   * a user, the commits it replicated aren't pending anymore
+   */
+  private void onFetchSucceeded() {
+    ReplicateFromLeader replicateFromLeader = getReplicateFromLeader();
+    if (replicateFromLeader == null) return;
+    try {
+      replicateFromLeader.onFetchComplete(core);
+    } catch (IOException e) {
+      log.warn("Could not update the replication lag", e);
+    }
+  }
+
   boolean isReplicating() {
     return indexFetchLock.isLocked();
   }
 
+  /**
+   * Polls the leader as soon as possible rather than at the next poll interval, e.g. because it
+   * announced a new commit. Requests made while one is already pending are coalesced.
+   */
+  public void fetchNow() {
+    ScheduledExecutorService executor = executorService;
+    Runnable task = pollTask;
+    if (executor == null || task == null || !fetchNowPending.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(
+          () -> {
+            fetchNowPending.set(false);
+            task.run();
+          });
+    } catch (RejectedExecutionException e) {
+      // shutting down
+      fetchNowPending.set(false);
+    }
+  }
+
+  /**
+   * Fetches the given files of a segment merged by the leader in the background, ahead of the
+   * commit that will reference them.
+   *
+   * @see IndexFetcher#preCopyFiles(List, Long)
+   */
+  public void preCopy(List<Map<String, Object>> files, Long generation) {
+    IndexFetcher fetcher = pollingIndexFetcher;
+    if (fetcher == null) return;
+    try {
+      preCopyExecutor.execute(
+          () -> {
+            ExecutorUtil.setServerThreadFlag(true); // so PKI auth works
+            try {
+              fetcher.preCopyFiles(files, generation);
+            } catch (Exception e) {
+              log.warn("Could not pre-copy merged segment files {}", files, e);
+            } finally {
+              ExecutorUtil.setServerThreadFlag(null);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // shutting down
+    }
+  }
+
+  /** Announces a segment this core just merged to the TLOG and PULL replicas of its shard */
+  public void onMergedSegment(SegmentCommitInfo mergedSegment) {
+    IndexChangeAnnouncer announcer = indexChangeAnnouncer;
+    if (announcer != null) {
+      announcer.announceMergedSegment(mergedSegment);
+    }
+  }
+
   private void restore(SolrParams params, SolrQueryResponse rsp, SolrQueryRequest req)
       throws IOException {
     if (restoreFuture != null && !restoreFuture.isDone()) {
@@ -790,6 +882,49 @@ public class ReplicationHandler extends RequestHandlerBase
     }
   }
 
+  private void indexChanged(SolrParams solrParams, SolrQueryResponse rsp) {
+    ZkController zkController = core.getCoreContainer().getZkController();
+    ReplicateFromLeader replicateFromLeader =
+        zkController == null ? null : zkController.getReplicateFromLeader(core.getName());
+    if (replicateFromLeader == null) {
+      reportErrorOnResponse(rsp, "Not replicating from the leader", null);
+      return;
+    }
+    replicateFromLeader.onLeaderIndexChanged(
+        solrParams.required().getLong(GENERATION), solrParams.getLong(NEW_BYTES, 0L));
+    rsp.add(STATUS, OK_STATUS);
+  }
+
+  private void mergedSegment(SolrParams solrParams, SolrQueryResponse rsp) {
+    ZkController zkController = core.getCoreContainer().getZkController();
+    ReplicateFromLeader replicateFromLeader =
+        zkController == null ? null : zkController.getReplicateFromLeader(core.getName());
+    if (replicateFromLeader == null) {
+      reportErrorOnResponse(rsp, "Not replicating from the leader", null);
+      return;
+    }
+    String[] names = solrParams.required().getParams(FILE);
+    String[] sizes = solrParams.required().getParams(SIZE);
+    String[] checksums = solrParams.required().getParams(CHECKSUM);
+    if (names.length != sizes.length || names.length != checksums.length) {
+      throw new SolrException(
+          ErrorCode.BAD_REQUEST, "Every merged segment file needs a size and a checksum");
+    }
+    List<Map<String, Object>> files = new ArrayList<>(names.length);
+    for (int i = 0; i < names.length; i++) {
+      Map<String, Object> file = new HashMap<>();
+      if (Paths.get(names[i]).getNameCount() != 1 || "..".equals(names[i])) {
+        throw new SolrException(ErrorCode.FORBIDDEN, "Invalid file name " + names[i]);
+      }
+      file.put(NAME, names[i]);
+      file.put(SIZE, Long.parseLong(sizes[i]));
+      file.put(CHECKSUM, Long.parseLong(checksums[i]));
+      files.add(file);
+    }
+    replicateFromLeader.onLeaderMergedSegment(files, solrParams.getLong(GENERATION));
+    rsp.add(STATUS, OK_STATUS);
+  }
+
   private void disablePoll(SolrQueryResponse rsp) {
     if (pollingIndexFetcher != null) {
       pollDisabled.set(true);
@@ -955,6 +1090,31 @@ public class ReplicationHandler extends RequestHandlerBase
         "replicationEnabled",
         getCategory().toString(),
         scope);
+    // how far behind the leader a TLOG or PULL replica is, based on the commits it announced
+    solrMetricsContext.gauge(
+        () -> {
+          ReplicateFromLeader replicateFromLeader = getReplicateFromLeader();
+          return replicateFromLeader == null ? 0L : replicateFromLeader.getReplicationLagMs();
+        },
+        true,
+        "replicationLagMs",
+        getCategory().toString(),
+        scope);
+    solrMetricsContext.gauge(
+        () -> {
+          ReplicateFromLeader replicateFromLeader = getReplicateFromLeader();
+          return replicateFromLeader == null ? 0L : replicateFromLeader.getReplicationLagBytes();
+        },
+        true,
+        "replicationLagBytes",
+        getCategory().toString(),
+        scope);
+  }
+
+  private ReplicateFromLeader getReplicateFromLeader() {
+    if (core == null || core.isClosed()) return null;
+    ZkController zkController = core.getCoreContainer().getZkController();
+    return zkController == null ? null : zkController.getReplicateFromLeader(core.getName());
   }
 
   // TODO Should a failure retrieving any piece of info mark the overall request as a failure?  Is
@@ -1247,6 +1407,7 @@ public class ReplicationHandler extends RequestHandlerBase
             ExecutorUtil.setServerThreadFlag(null);
           }
         };
+    pollTask = task;
     executorService =
         Executors.newSingleThreadScheduledExecutor(new SolrNamedThreadFactory("indexFetcher"));
     // Randomize initial delay, with a minimum of 1ms
@@ -1340,6 +1501,9 @@ public class ReplicationHandler extends RequestHandlerBase
         core.getUpdateHandler()
             .registerOptimizeCallback(getEventListener(backupOnOptimize, replicateOnOptimize));
       }
+      if (replicateOnCommit && core.getCoreContainer().isZooKeeperAware()) {
+        indexChangeAnnouncer = new IndexChangeAnnouncer(core);
+      }
       if (replicateOnCommit || backupOnCommit) {
         replicateOnCommit = true;
         core.getUpdateHandler()
@@ -1444,6 +1608,7 @@ public class ReplicationHandler extends RequestHandlerBase
         @Override
         public void preClose(SolrCore core) {
           ExecutorUtil.shutdownAndAwaitTermination(restoreExecutor);
+          ExecutorUtil.shutdownAndAwaitTermination(preCopyExecutor);
           if (restoreFuture != null) {
             restoreFuture.cancel(false);
           }
@@ -1488,6 +1653,9 @@ public class ReplicationHandler extends RequestHandlerBase
         if (getCommit) {
           // IndexCommit oldCommitPoint = indexCommitPoint;
           indexCommitPoint = currentCommitPoint;
+          if (indexChangeAnnouncer != null) {
+            indexChangeAnnouncer.announce(currentCommitPoint);
+          }
 
           // We don't need to save commit points for replication, the SolrDeletionPolicy
           // always saves the last commit point (and the last optimized commit point, if needed)
@@ -1641,10 +1809,12 @@ public class ReplicationHandler extends RequestHandlerBase
 
         long filelen = dir.fileLength(fileName);
         long maxBytesBeforePause = 0;
+        offset = offset == -1 ? 0 : offset;
+        // a range of the file when len is given, the rest of the file otherwise
+        long end = len == -1 ? filelen : Math.min(filelen, offset + len);
 
         while (true) {
-          offset = offset == -1 ? 0 : offset;
-          int read = (int) Math.min(buf.length, filelen - offset);
+          int read = (int) Math.min(buf.length, end - offset);
           in.readBytes(buf, 0, read);
 
           fos.writeInt(read);
@@ -1663,7 +1833,7 @@ public class ReplicationHandler extends RequestHandlerBase
             rateLimiter.pause(maxBytesBeforePause);
             maxBytesBeforePause = 0;
           }
-          if (read != buf.length) {
+          if (read != buf.length || offset + read == end) {
             writeNothingAndFlush();
             // we close because DeflaterOutputStream requires a close call, but  the request
             // outputstream is protected
@@ -1861,6 +2031,18 @@ public class ReplicationHandler extends RequestHandlerBase
 
   public static final String CMD_DELETE_BACKUP = "deletebackup";
 
+  /** Sent by a shard leader to its TLOG and PULL replicas after a commit */
+  public static final String CMD_INDEX_CHANGED = "indexchanged";
+
+  /** The size of the files added by the commit announced with {@link #CMD_INDEX_CHANGED} */
+  public static final String NEW_BYTES = "newBytes";
+
+  /**
+   * Sent by a shard leader to its TLOG and PULL replicas after a merge, with the {@link #FILE},
+   * {@link #SIZE} and {@link #CHECKSUM} of every file of the merged segment
+   */
+  public static final String CMD_MERGED_SEGMENT = "mergedsegment";
+
   public static final String GENERATION = "generation";
 
   public static final String OFFSET = "offset";
@@ -1873,6 +2055,24 @@ public class ReplicationHandler extends RequestHandlerBase
 
   public static final String MAX_WRITE_PER_SECOND = "maxWriteMBPerSec";
 
+  /** Follower setting: how many files, or ranges of large files, are fetched concurrently */
+  public static final String FETCH_CONCURRENCY = "fetchConcurrency";
+
+  /**
+   * Follower setting: files larger than this (in MB) are fetched as ranges of that size, when
+   * {@link #FETCH_CONCURRENCY} is more than 1
+   */
+  public static final String FETCH_CHUNK_SIZE_MB = "fetchChunkSizeMB";
+
+  /** Follower setting: the total bandwidth (in MB/sec) used to fetch index files */
+  public static final String MAX_FETCH_PER_SECOND = "maxFetchMBPerSec";
+
+  /**
+   * Follower setting: whether index files are verified with a checksum of every packet computed by
+   * the leader, rather than with the checksum in their footer
+   */
+  public static final String PACKET_CHECKSUM = "packetChecksum";
+
   public static final String CONF_FILE_SHORT = "cf";
 
   public static final String TLOG_FILE = "tlogFile";
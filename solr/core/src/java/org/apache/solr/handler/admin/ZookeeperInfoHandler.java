@@ -712,7 +712,10 @@ public final class ZookeeperInfoHandler extends RequestHandlerBase {
         Stat stat = new Stat();
         // Trickily, the call to zkClient.getData fills in the stat variable
         byte[] data = zkClient.getData(path, null, stat, true);
-        if (null != data) {
+        if (ClusterState.isJavabinState(data) && path.endsWith("/state.json")) {
+          // shown as JSON, like the state.json of other collections
+          dataStr = Utils.toJSONString(ClusterState.parseState(data));
+        } else if (null != data) {
           try {
             dataStr = (new BytesRef(data)).utf8ToString();
           } catch (Exception e) {
@@ -38,10 +38,13 @@ import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
@@ -93,6 +96,7 @@ import org.apache.solr.update.IndexFingerprint;
 import org.apache.solr.update.PeerSync;
 import org.apache.solr.update.PeerSyncWithLeader;
 import org.apache.solr.update.UpdateLog;
+import org.apache.solr.update.VersionRangeFingerprint;
 import org.apache.solr.update.processor.AtomicUpdateDocumentMerger;
 import org.apache.solr.util.LongSet;
 import org.apache.solr.util.RefCounted;
@@ -161,6 +165,18 @@ public class RealTimeGetComponent extends SearchComponent {
       return;
     }
 
+    val = params.get("getRangeFingerprints");
+    if (val != null) {
+      processGetRangeFingerprints(rb);
+      return;
+    }
+
+    val = params.get("getRangeVersions");
+    if (val != null) {
+      processGetRangeVersions(rb);
+      return;
+    }
+
     val = params.get("getUpdates");
     if (val != null) {
       // solrcloud_debug
@@ -799,9 +815,16 @@ public class RealTimeGetComponent extends SearchComponent {
           }
         }
 
-        SolrDocument solrDoc =
-            fetchSolrDoc(searcher, docId, makeReturnFields(core, onlyTheseFields, resolveStrategy));
-        sid = toSolrInputDocument(solrDoc, core.getLatestSchema()); // filters copy-field targets
+        if (resolveStrategy == Resolution.ROOT_WITH_CHILDREN
+            && core.getLatestSchema().isUsableForChildDocs()) {
+          SolrDocument solrDoc =
+              fetchSolrDoc(
+                  searcher, docId, makeReturnFields(core, onlyTheseFields, resolveStrategy));
+          sid = toSolrInputDocument(solrDoc, core.getLatestSchema()); // filters copy-field targets
+        } else {
+          // no children to resolve; read the fields straight into the input document
+          sid = fetchInputDoc(searcher, docId, onlyTheseFields, core.getLatestSchema());
+        }
         // the assertions above furthermore guarantee the result corresponds to idBytes
       } finally {
         searcherHolder.decref();
@@ -869,6 +892,115 @@ public class RealTimeGetComponent extends SearchComponent {
     return new SolrReturnFields(requestedFields, docTransformer);
   }
 
+  /**
+   * Fetches a document without children directly as a {@link SolrInputDocument}. This is
+   * equivalent to {@link #fetchSolrDoc} followed by {@link #toSolrInputDocument}, but the stored
+   * values are materialized while they are read, so that no intermediate Lucene {@link Document}
+   * and {@link SolrDocument} are built. Atomic updates on wide documents benefit most.
+   */
+  private static SolrInputDocument fetchInputDoc(
+      SolrIndexSearcher searcher, int docId, Set<String> onlyTheseFields, IndexSchema schema)
+      throws IOException {
+    final SolrDocumentFetcher docFetcher = searcher.getDocFetcher();
+    final SolrInputDocument out = new SolrInputDocument();
+    docFetcher.doc(docId, new InputDocumentStoredFieldVisitor(out, onlyTheseFields, schema));
+
+    // same selection of docValues fields as SolrDocumentFetcher.RetrieveFieldsOptimizer
+    final Set<String> dvFields;
+    if (onlyTheseFields == null) {
+      dvFields = new HashSet<>(docFetcher.getNonStoredDVs(true));
+    } else {
+      dvFields = new HashSet<>(onlyTheseFields);
+      dvFields.retainAll(docFetcher.getNonStoredDVs(false));
+    }
+    dvFields.removeIf(
+        fname -> {
+          SchemaField sf = schema.getFieldOrNull(fname);
+          return sf != null && schema.isCopyFieldTarget(sf);
+        });
+    if (!dvFields.isEmpty()) {
+      docFetcher.decorateDocValueFields(out, docId, dvFields, new DocValuesIteratorCache(searcher));
+    }
+    return out;
+  }
+
+  /**
+   * Adds the stored values of a document to a {@link SolrInputDocument}, skipping the same fields
+   * as {@link #toSolrInputDocument}.
+   */
+  private static class InputDocumentStoredFieldVisitor extends StoredFieldVisitor {
+    private final SolrInputDocument out;
+    private final Set<String> onlyTheseFields;
+    private final IndexSchema schema;
+
+    InputDocumentStoredFieldVisitor(
+        SolrInputDocument out, Set<String> onlyTheseFields, IndexSchema schema) {
+      this.out = out;
+      this.onlyTheseFields = onlyTheseFields;
+      this.schema = schema;
+    }
+
+    @Override
+    public Status needsField(FieldInfo fieldInfo) {
+      if (onlyTheseFields != null && !onlyTheseFields.contains(fieldInfo.name)) {
+        return Status.NO;
+      }
+      SchemaField sf = schema.getFieldOrNull(fieldInfo.name);
+      if (sf != null) {
+        if ((!sf.hasDocValues() && !sf.stored()) || schema.isCopyFieldTarget(sf)) {
+          return Status.NO;
+        }
+      }
+      return Status.YES;
+    }
+
+    @Override
+    public void binaryField(FieldInfo fieldInfo, byte[] value) {
+      add(new StoredField(fieldInfo.name, value));
+    }
+
+    @Override
+    public void stringField(FieldInfo fieldInfo, String value) {
+      add(new StoredField(fieldInfo.name, value));
+    }
+
+    @Override
+    public void intField(FieldInfo fieldInfo, int value) {
+      add(new StoredField(fieldInfo.name, value));
+    }
+
+    @Override
+    public void longField(FieldInfo fieldInfo, long value) {
+      add(new StoredField(fieldInfo.name, value));
+    }
+
+    @Override
+    public void floatField(FieldInfo fieldInfo, float value) {
+      add(new StoredField(fieldInfo.name, value));
+    }
+
+    @Override
+    public void doubleField(FieldInfo fieldInfo, double value) {
+      add(new StoredField(fieldInfo.name, value));
+    }
+
+    private void add(IndexableField f) {
+      out.addField(f.name(), toInputValue(schema.getFieldOrNull(f.name()), f));
+    }
+  }
+
+  /** Converts a stored value read from the index to the object indexed in a SolrInputDocument. */
+  private static Object toInputValue(SchemaField sf, IndexableField f) {
+    if (sf != null) {
+      return sf.getType().toObject(f); // object or external string?
+    }
+    Object val = f.stringValue();
+    if (val == null) val = f.numericValue();
+    if (val == null) val = f.binaryValue();
+    if (val == null) val = f;
+    return val;
+  }
+
   private static SolrInputDocument toSolrInputDocument(SolrDocument doc, IndexSchema schema) {
     SolrInputDocument out = new SolrInputDocument();
     for (String fname : doc.getFieldNames()) {
@@ -879,16 +1011,8 @@ public class RealTimeGetComponent extends SearchComponent {
       }
       for (Object val : doc.getFieldValues(fname)) {
         if (val instanceof IndexableField) {
-          IndexableField f = (IndexableField) val;
           // materialize:
-          if (sf != null) {
-            val = sf.getType().toObject(f); // object or external string?
-          } else {
-            val = f.stringValue();
-            if (val == null) val = f.numericValue();
-            if (val == null) val = f.binaryValue();
-            if (val == null) val = f;
-          }
+          val = toInputValue(sf, (IndexableField) val);
         } else if (val instanceof SolrDocument) {
           val = toSolrInputDocument((SolrDocument) val, schema);
           if (!fieldArrayListCreated && doc.getFieldValue(fname) instanceof Collection) {
@@ -1215,6 +1339,22 @@ public class RealTimeGetComponent extends SearchComponent {
     rb.rsp.add("fingerprint", fingerprint);
   }
 
+  /** Returns the fingerprints of the given ranges of versions, see {@link PeerSyncWithLeader} */
+  public void processGetRangeFingerprints(ResponseBuilder rb) throws IOException {
+    SolrQueryRequest req = rb.req;
+    List<long[]> ranges =
+        VersionRangeFingerprint.parseRanges(req.getParams().get("getRangeFingerprints"));
+    rb.rsp.add("rangeFingerprints", VersionRangeFingerprint.getFingerprints(req.getCore(), ranges));
+  }
+
+  /** Returns the ids and versions of the documents in the given ranges of versions */
+  public void processGetRangeVersions(ResponseBuilder rb) throws IOException {
+    SolrQueryRequest req = rb.req;
+    List<long[]> ranges =
+        VersionRangeFingerprint.parseRanges(req.getParams().get("getRangeVersions"));
+    rb.rsp.add("rangeVersions", VersionRangeFingerprint.getVersions(req.getCore(), ranges));
+  }
+
   ///////////////////////////////////////////////////////////////////////////////////
   // Returns last versions added to index
   ///////////////////////////////////////////////////////////////////////////////////
@@ -20,7 +20,11 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.BytesRef;
@@ -42,6 +46,16 @@ public class BinaryField extends FieldType {
           SolrException.ErrorCode.SERVER_ERROR,
           "Field type " + this + " is 'large'; not supported (yet)");
     }
+    if (field.hasDocValues() && field.multiValued()) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          "Field type " + this + " does not support multiValued docValues: " + field.getName());
+    }
+  }
+
+  @Override
+  protected void checkSupportsDocValues() {
+    // single valued BINARY docValues; these can also be updated in-place
   }
 
   private String toBase64String(ByteBuffer buf) {
@@ -94,31 +108,51 @@ public class BinaryField extends FieldType {
       log.trace("Ignoring unstored binary field: {}", field);
       return null;
     }
-    byte[] buf = null;
-    int offset = 0, len = 0;
+    BytesRef bytes = getBytesRef(val);
+    return new org.apache.lucene.document.StoredField(
+        field.getName(), bytes.bytes, bytes.offset, bytes.length);
+  }
+
+  @Override
+  public List<IndexableField> createFields(SchemaField field, Object val) {
+    IndexableField fval = createField(field, val);
+    if (!field.hasDocValues() || val == null) {
+      return fval == null ? Collections.emptyList() : Collections.singletonList(fval);
+    }
+    IndexableField docval = new BinaryDocValuesField(field.getName(), getBytesRef(val));
+    if (fval == null) {
+      return Collections.singletonList(docval);
+    }
+    List<IndexableField> fields = new ArrayList<>(2);
+    fields.add(fval);
+    fields.add(docval);
+    return fields;
+  }
+
+  private static BytesRef getBytesRef(Object val) {
     if (val instanceof byte[]) {
-      buf = (byte[]) val;
-      len = buf.length;
+      return new BytesRef((byte[]) val);
     } else if (val instanceof ByteBuffer && ((ByteBuffer) val).hasArray()) {
       ByteBuffer byteBuf = (ByteBuffer) val;
-      buf = byteBuf.array();
-      offset = byteBuf.arrayOffset() + byteBuf.position();
-      len = byteBuf.limit() - byteBuf.position();
+      return new BytesRef(
+          byteBuf.array(),
+          byteBuf.arrayOffset() + byteBuf.position(),
+          byteBuf.limit() - byteBuf.position());
+    } else if (val instanceof BytesRef) {
+      // e.g. read back from docValues
+      return (BytesRef) val;
     } else {
-      String strVal = val.toString();
       // the string has to be a base64 encoded string
-      buf = Base64.getDecoder().decode(strVal);
-      offset = 0;
-      len = buf.length;
+      return new BytesRef(Base64.getDecoder().decode(val.toString()));
     }
-
-    return new org.apache.lucene.document.StoredField(field.getName(), buf, offset, len);
   }
 
   @Override
   public Object toNativeType(Object val) {
     if (val instanceof byte[]) {
       return ByteBuffer.wrap((byte[]) val);
+    } else if (val instanceof BytesRef) {
+      return ByteBuffer.wrap(BytesRef.deepCopyOf((BytesRef) val).bytes);
     } else if (val instanceof CharSequence) {
       final CharSequence valAsCharSequence = (CharSequence) val;
       return ByteBuffer.wrap(Base64.getDecoder().decode(valAsCharSequence.toString()));
@@ -21,7 +21,10 @@ import static org.apache.solr.schema.IndexSchema.SCHEMA;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -35,6 +38,7 @@ import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.util.ObjectCache;
 import org.apache.solr.common.util.Pair;
 import org.apache.solr.core.ConfigSetService;
+import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.PluginInfo;
 import org.apache.solr.core.SolrConfig;
 import org.apache.solr.core.SolrResourceLoader;
@@ -126,10 +130,13 @@ public abstract class IndexSchemaFactory implements NamedListInitializedPlugin {
                 name,
                 loader,
                 () -> {
-                  if (!(configSetService instanceof ZkConfigSetService)) return null;
-                  return ((ZkConfigSetService) configSetService)
-                      .getSolrCloudManager()
-                      .getObjectCache();
+                  if (configSetService instanceof ZkConfigSetService) {
+                    return ((ZkConfigSetService) configSetService)
+                        .getSolrCloudManager()
+                        .getObjectCache();
+                  }
+                  if (loader.getCoreContainer() == null) return null;
+                  return loader.getCoreContainer().getObjectCache();
                 },
                 () -> loadConfig(schemaInputStream, loader, name))
             .data;
@@ -153,7 +160,10 @@ public abstract class IndexSchemaFactory implements NamedListInitializedPlugin {
   // for testing purposes
   public static volatile Consumer<String> CACHE_MISS_LISTENER = null;
 
-  @SuppressWarnings("unchecked")
+  /**
+   * Returns the parsed config resource, shared by all the cores reading it. Resources are cached
+   * until they are modified, in ZooKeeper or in a configset directory of the file system.
+   */
   public static VersionedConfig getFromCache(
       String name,
       SolrResourceLoader loader,
@@ -168,27 +178,60 @@ public abstract class IndexSchemaFactory implements NamedListInitializedPlugin {
               return c.get();
             };
 
+    ObjectCache objectCache = objectCacheSupplier.get();
+    if (objectCache == null) return cfgLoader.get();
     if (loader instanceof ZkSolrResourceLoader) {
       ZkSolrResourceLoader zkLoader = (ZkSolrResourceLoader) loader;
-      ObjectCache objectCache = objectCacheSupplier.get();
-      if (objectCache == null) return cfgLoader.get();
-      Map<String, VersionedConfig> confCache =
-          (Map<String, VersionedConfig>)
-              objectCache.computeIfAbsent(
-                  ConfigSetService.ConfigResource.class.getName(), k -> new ConcurrentHashMap<>());
       Pair<String, Integer> res = zkLoader.getZkResourceInfo(name);
       if (res == null) return cfgLoader.get();
-      VersionedConfig result = null;
-      result = confCache.computeIfAbsent(res.first(), k -> cfgLoader.get());
-      if (result.version == res.second()) {
-        return result;
-      } else {
-        confCache.remove(res.first());
-        return confCache.computeIfAbsent(res.first(), k -> cfgLoader.get());
+      return getFromCache(objectCache, res.first(), res.second(), cfgLoader);
+    } else {
+      // the same file is read by all the cores of a configset, as they share their config dir. The
+      // config dirs of cores that don't use a configset aren't cached: nothing would evict them
+      CoreContainer cc = loader.getCoreContainer();
+      if (cc == null || cc.getConfig().getConfigSetBaseDirectory() == null) return cfgLoader.get();
+      Path configSetBase = cc.getConfig().getConfigSetBaseDirectory().toAbsolutePath().normalize();
+      Path configPath = loader.getConfigPath().toAbsolutePath().normalize();
+      Path file = configPath.resolve(name).normalize();
+      if (!configPath.startsWith(configSetBase)
+          || !file.startsWith(configPath)
+          || !Files.isReadable(file)) {
+        return cfgLoader.get();
+      }
+      int version;
+      try {
+        // the size too, in case the file is modified again within the resolution of the
+        // modification times
+        version = Objects.hash(Files.getLastModifiedTime(file).toMillis(), Files.size(file));
+      } catch (IOException e) {
+        return cfgLoader.get();
       }
+      // a single entry per file, replaced when the file is modified
+      return getFromCache(
+          objectCache,
+          file.toString(),
+          version,
+          () -> new VersionedConfig(version, cfgLoader.get().data));
+    }
+  }
+
+  /**
+   * Returns the config resource cached under the given key if it has the given version, otherwise
+   * loads and caches it.
+   */
+  @SuppressWarnings("unchecked")
+  public static VersionedConfig getFromCache(
+      ObjectCache objectCache, String key, int version, Supplier<VersionedConfig> cfgLoader) {
+    Map<String, VersionedConfig> confCache =
+        (Map<String, VersionedConfig>)
+            objectCache.computeIfAbsent(
+                ConfigSetService.ConfigResource.class.getName(), k -> new ConcurrentHashMap<>());
+    VersionedConfig result = confCache.computeIfAbsent(key, k -> cfgLoader.get());
+    if (result.version == version) {
+      return result;
     } else {
-      // it's a file system loader, no caching necessary
-      return cfgLoader.get();
+      confCache.remove(key);
+      return confCache.computeIfAbsent(key, k -> cfgLoader.get());
     }
   }
 
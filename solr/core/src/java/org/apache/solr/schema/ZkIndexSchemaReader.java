@@ -20,6 +20,8 @@ import java.io.ByteArrayInputStream;
 import java.lang.invoke.MethodHandles;
 import java.util.concurrent.TimeUnit;
 import org.apache.solr.cloud.ZkSolrResourceLoader;
+import org.apache.solr.common.ConfigNode;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.cloud.OnReconnect;
 import org.apache.solr.common.cloud.SolrZkClient;
@@ -184,9 +186,7 @@ public class ZkIndexSchemaReader implements OnReconnect {
               new ManagedIndexSchema(
                   managedIndexSchemaFactory.getConfig(),
                   resourceName,
-                  () ->
-                      IndexSchemaFactory.getParsedSchema(
-                          new ByteArrayInputStream(data), zkLoader, resourceName),
+                  () -> parseSchema(data, stat.getVersion(), resourceName),
                   managedIndexSchemaFactory.isMutable(),
                   resourceName,
                   stat.getVersion(),
@@ -203,6 +203,25 @@ public class ZkIndexSchemaReader implements OnReconnect {
     }
   }
 
+  /** Parses the schema, or gets it from the cores of this node that already parsed it */
+  private ConfigNode parseSchema(byte[] data, int version, String resourceName) {
+    return IndexSchemaFactory.getFromCache(
+            zkLoader.getZkController().getSolrCloudManager().getObjectCache(),
+            managedSchemaPath,
+            version,
+            () -> {
+              try {
+                return new IndexSchemaFactory.VersionedConfig(
+                    version,
+                    IndexSchemaFactory.getParsedSchema(
+                        new ByteArrayInputStream(data), zkLoader, resourceName));
+              } catch (Exception e) {
+                throw new SolrException(ErrorCode.SERVER_ERROR, "Error parsing schema", e);
+              }
+            })
+        .data;
+  }
+
   /**
    * Called after a ZooKeeper session expiration occurs; need to re-create the watcher and update
    * the current schema from ZooKeeper.
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.solr.util.plugin.NamedListInitializedPlugin;
+
+/**
+ * Chooses how long a {@link CommitTracker} waits, after the first uncommitted update, before it
+ * issues an automatic commit. Configured with a <code>policy</code> element inside <code>
+ * autoSoftCommit</code> in solrconfig.xml; when no policy is configured the fixed <code>maxTime
+ * </code> is used.
+ *
+ * @see RateAdaptiveCommitIntervalPolicy
+ * @lucene.experimental
+ */
+public interface CommitIntervalPolicy extends NamedListInitializedPlugin {
+
+  /**
+   * @param docsPerSecond the recent rate of updates seen by the tracker
+   * @param lastWarmupTime how long (in ms) the currently registered searcher took to warm, or -1
+   *     if unknown
+   * @param maxTime the configured <code>maxTime</code> (in ms), or -1 if not set
+   * @return the delay (in ms) before the next commit, a value &lt;= 0 means no commit is scheduled
+   */
+  long getCommitDelay(double docsPerSecond, long lastWarmupTime, long maxTime);
+}
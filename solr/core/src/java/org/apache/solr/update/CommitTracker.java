@@ -16,6 +16,7 @@
  */
 package org.apache.solr.update;
 
+import com.codahale.metrics.Meter;
 import java.lang.invoke.MethodHandles;
 import java.util.Locale;
 import java.util.concurrent.Executors;
@@ -30,6 +31,8 @@ import org.apache.solr.core.SolrCore;
 import org.apache.solr.logging.MDCLoggingContext;
 import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +58,7 @@ public final class CommitTracker implements Runnable {
   private int docsUpperBound;
   private long timeUpperBound;
   private long tLogFileSizeUpperBound;
+  private CommitIntervalPolicy intervalPolicy;
 
   // note: can't use ExecutorsUtil because it doesn't have a *scheduled* ExecutorService.
   //  Not a big deal but it means we must take care of MDC logging here.
@@ -65,6 +69,9 @@ public final class CommitTracker implements Runnable {
   // state
   private AtomicLong docsSinceCommit = new AtomicLong(0);
   private AtomicInteger autoCommitCount = new AtomicInteger(0);
+  // only tracked when an intervalPolicy is set
+  private final Meter updateRate = new Meter();
+  private final AtomicLong lastScheduledDelay = new AtomicLong(-1);
 
   private final SolrCore core;
 
@@ -125,7 +132,24 @@ public final class CommitTracker implements Runnable {
   }
 
   private void _scheduleCommitWithinIfNeeded(long commitWithin) {
-    long ctime = (commitWithin > 0) ? commitWithin : timeUpperBound;
+    if (intervalPolicy != null) {
+      updateRate.mark();
+    }
+    long ctime;
+    if (commitWithin > 0) {
+      ctime = commitWithin;
+    } else if (intervalPolicy != null) {
+      synchronized (this) {
+        // the delay is chosen once per commit cycle, by the first update after a commit
+        if (pending != null) return;
+      }
+      ctime =
+          intervalPolicy.getCommitDelay(
+              updateRate.getOneMinuteRate(), getLastWarmupTime(), timeUpperBound);
+      lastScheduledDelay.set(ctime);
+    } else {
+      ctime = timeUpperBound;
+    }
 
     if (ctime > 0) {
       _scheduleCommitWithin(ctime);
@@ -165,6 +189,17 @@ public final class CommitTracker implements Runnable {
     }
   }
 
+  /** How long the currently registered searcher took to warm, or -1 if there is none */
+  private long getLastWarmupTime() {
+    RefCounted<SolrIndexSearcher> holder = core.getRegisteredSearcher();
+    if (holder == null) return -1;
+    try {
+      return holder.get().getWarmupTime();
+    } finally {
+      holder.decref();
+    }
+  }
+
   /**
    * Indicate that documents have been added
    *
@@ -304,6 +339,31 @@ public final class CommitTracker implements Runnable {
     }
   }
 
+  public CommitIntervalPolicy getIntervalPolicy() {
+    return intervalPolicy;
+  }
+
+  /**
+   * @param intervalPolicy chooses the delay of commits not triggered by commitWithin, maxDocs or
+   *     maxSize instead of the fixed maxTime. May be null.
+   */
+  public void setIntervalPolicy(CommitIntervalPolicy intervalPolicy) {
+    this.intervalPolicy = intervalPolicy;
+    if (intervalPolicy != null) {
+      log.info("{} AutoCommit interval policy: {}", name, intervalPolicy);
+    }
+  }
+
+  /** The recent rate of updates (per second), only tracked when an interval policy is set */
+  public double getUpdateRate() {
+    return updateRate.getOneMinuteRate();
+  }
+
+  /** The last delay (in ms) chosen by the interval policy, or -1 if none was chosen yet */
+  public long getLastScheduledDelay() {
+    return lastScheduledDelay.get();
+  }
+
   public long getTimeUpperBound() {
     return timeUpperBound;
   }
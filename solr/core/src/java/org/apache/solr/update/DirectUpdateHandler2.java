@@ -17,6 +17,7 @@
 package org.apache.solr.update;
 
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
@@ -90,6 +91,8 @@ public class DirectUpdateHandler2 extends UpdateHandler
   Meter deleteByIdCommandsCumulative;
   LongAdder deleteByQueryCommands = new LongAdder();
   Meter deleteByQueryCommandsCumulative;
+  Timer deleteByQueryTimer;
+  Meter deleteByQueryReopensSkipped;
   Meter expungeDeleteCommands;
   Meter mergeIndexesCommands;
   Meter commitCommands;
@@ -106,6 +109,10 @@ public class DirectUpdateHandler2 extends UpdateHandler
 
   protected boolean commitWithinSoftCommit;
 
+  // whether docValues were updated in-place since the last realtime searcher was opened by a DBQ;
+  // starts out true since a previous update handler may have left such updates behind
+  private volatile boolean inPlaceUpdatesSinceReopen = true;
+
   /**
    * package access for testing
    *
@@ -147,6 +154,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
             NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER,
             true,
             true);
+    softCommitTracker.setIntervalPolicy(createCommitIntervalPolicy(core, updateHandlerInfo));
 
     commitWithinSoftCommit = updateHandlerInfo.commitWithinSoftCommit;
 
@@ -187,6 +195,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
             NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER,
             updateHandlerInfo.openSearcher,
             true);
+    softCommitTracker.setIntervalPolicy(createCommitIntervalPolicy(core, updateHandlerInfo));
 
     commitWithinSoftCommit = updateHandlerInfo.commitWithinSoftCommit;
 
@@ -198,6 +207,15 @@ public class DirectUpdateHandler2 extends UpdateHandler
     }
   }
 
+  private static CommitIntervalPolicy createCommitIntervalPolicy(
+      SolrCore core, UpdateHandlerInfo updateHandlerInfo) {
+    return core.createInitInstance(
+        updateHandlerInfo.autoSoftCommitPolicyInfo,
+        CommitIntervalPolicy.class,
+        "autoSoftCommit policy",
+        RateAdaptiveCommitIntervalPolicy.class.getName());
+  }
+
   @Override
   public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
     if (core.getSolrConfig().getUpdateHandlerInfo().aggregateNodeLevelMetricsEnabled) {
@@ -259,6 +277,20 @@ public class DirectUpdateHandler2 extends UpdateHandler
           getCategory().toString(),
           scope);
     }
+    if (softCommitTracker.getIntervalPolicy() != null) {
+      solrMetricsContext.gauge(
+          () -> softCommitTracker.getLastScheduledDelay(),
+          true,
+          "softAutoCommitAdaptiveDelay",
+          getCategory().toString(),
+          scope);
+      solrMetricsContext.gauge(
+          () -> softCommitTracker.getUpdateRate(),
+          true,
+          "softAutoCommitUpdateRate",
+          getCategory().toString(),
+          scope);
+    }
     optimizeCommands = solrMetricsContext.meter("optimizes", getCategory().toString(), scope);
     rollbackCommands = solrMetricsContext.meter("rollbacks", getCategory().toString(), scope);
     splitCommands = solrMetricsContext.meter("splits", getCategory().toString(), scope);
@@ -286,6 +318,10 @@ public class DirectUpdateHandler2 extends UpdateHandler
         solrMetricsContext.meter("cumulativeDeletesById", getCategory().toString(), scope);
     deleteByQueryCommandsCumulative =
         solrMetricsContext.meter("cumulativeDeletesByQuery", getCategory().toString(), scope);
+    deleteByQueryTimer =
+        solrMetricsContext.timer("deleteByQueryTime", getCategory().toString(), scope);
+    deleteByQueryReopensSkipped =
+        solrMetricsContext.meter("deleteByQueryReopensSkipped", getCategory().toString(), scope);
     numErrorsCumulative =
         solrMetricsContext.meter("cumulativeErrors", getCategory().toString(), scope);
   }
@@ -439,13 +475,14 @@ public class DirectUpdateHandler2 extends UpdateHandler
       throws IOException {
     // this logic is different enough from doNormalUpdate that it's separate
     log.info("Reordered DBQs detected.  Update={} DBQs={}", cmd, deletesAfter);
+    IndexSchema schema = core.getLatestSchema();
     List<Query> dbqList = new ArrayList<>(deletesAfter.size());
     for (UpdateLog.DBQ dbq : deletesAfter) {
       try {
         DeleteUpdateCommand tmpDel = new DeleteUpdateCommand(cmd.req);
         tmpDel.query = dbq.q;
         tmpDel.version = -dbq.version;
-        dbqList.add(getQuery(tmpDel));
+        dbqList.add(new DeleteByQueryWrapper(getQuery(tmpDel), schema));
       } catch (Exception e) {
         log.error("Exception parsing reordered query : {}", dbq, e);
       }
@@ -460,11 +497,11 @@ public class DirectUpdateHandler2 extends UpdateHandler
         updateDocOrDocValues(cmd, writer);
 
         if (cmd.isInPlaceUpdate() && ulog != null) {
+          inPlaceUpdatesSinceReopen = false;
           ulog.openRealtimeSearcher(); // This is needed due to LUCENE-7344.
         }
-        for (Query q : dbqList) {
-          writer.deleteDocuments(new DeleteByQueryWrapper(q, core.getLatestSchema()));
-        }
+        // a single call, so the queries are buffered as one batch of deletes
+        writer.deleteDocuments(dbqList.toArray(new Query[0]));
         if (ulog != null) ulog.add(cmd, true); // this needs to be protected by update lock
       }
     } finally {
@@ -567,6 +604,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
     deleteByQueryCommands.increment();
     deleteByQueryCommandsCumulative.mark();
     boolean madeIt = false;
+    final Timer.Context timer = deleteByQueryTimer.time();
     try {
       if ((cmd.getFlags() & UpdateCommand.IGNORE_INDEXWRITER) != 0) {
         if (ulog != null) ulog.deleteByQuery(cmd);
@@ -600,7 +638,18 @@ public class DirectUpdateHandler2 extends UpdateHandler
 
         // We are reopening a searcher before applying the deletes to overcome LUCENE-7344.
         // Once LUCENE-7344 is resolved, we can consider removing this.
-        if (ulog != null) ulog.openRealtimeSearcher();
+        // That is only needed if docValues were updated in-place since the last reopen: a DBQ
+        // can't see stale docValues otherwise, and each reopen is costly under heavy DBQ traffic
+        // (e.g. the periodic purges of DocExpirationUpdateProcessorFactory).
+        if (ulog != null) {
+          if (inPlaceUpdatesSinceReopen) {
+            // cleared first, so that an in-place update racing with the reopen isn't forgotten
+            inPlaceUpdatesSinceReopen = false;
+            ulog.openRealtimeSearcher();
+          } else {
+            deleteByQueryReopensSkipped.mark();
+          }
+        }
 
         if (delAll) {
           deleteAll();
@@ -621,6 +670,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
       updateDeleteTrackers(cmd);
 
     } finally {
+      timer.stop();
       if (!madeIt) {
         numErrors.increment();
         numErrorsCumulative.mark();
@@ -1052,6 +1102,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
       List<IndexableField> fields = cmd.makeLuceneDocForInPlaceUpdate().getFields();
       log.debug("updateDocValues({})", cmd);
       writer.updateDocValues(updateTerm, fields.toArray(new Field[0]));
+      inPlaceUpdatesSinceReopen = true;
 
     } else { // more normal path
 
@@ -109,19 +109,31 @@ public class IndexFingerprint implements MapSerializable {
 
   public static IndexFingerprint getFingerprint(
       SolrIndexSearcher searcher, LeafReaderContext ctx, Long maxVersion) throws IOException {
-    SchemaField versionField = VersionInfo.getAndCheckVersionField(searcher.getSchema());
-    ValueSource vs = versionField.getType().getValueSource(versionField, null);
-    Map<Object, Object> funcContext = ValueSource.newContext(searcher);
-    vs.createWeight(funcContext, searcher);
+    return getFingerprint(searcher, ctx, maxVersion, ctx.reader().getLiveDocs());
+  }
+
+  /**
+   * Computes the fingerprint of all the documents of a segment, deleted or not. Unlike the
+   * fingerprint of the live documents, it doesn't change when documents of the segment are deleted.
+   *
+   * @see #removeDeletedDocs(SolrIndexSearcher, LeafReaderContext, IndexFingerprint)
+   */
+  public static IndexFingerprint getFingerprintOfAllDocs(
+      SolrIndexSearcher searcher, LeafReaderContext ctx, long maxVersion) throws IOException {
+    return getFingerprint(searcher, ctx, maxVersion, null);
+  }
+
+  private static IndexFingerprint getFingerprint(
+      SolrIndexSearcher searcher, LeafReaderContext ctx, long maxVersion, Bits liveDocs)
+      throws IOException {
+    FunctionValues fv = getVersionValues(searcher, ctx);
 
     IndexFingerprint f = new IndexFingerprint();
     f.maxVersionSpecified = maxVersion;
     f.maxDoc = ctx.reader().maxDoc();
-    f.numDocs = ctx.reader().numDocs();
+    f.numDocs = liveDocs == null ? f.maxDoc : ctx.reader().numDocs();
 
     int maxDoc = ctx.reader().maxDoc();
-    Bits liveDocs = ctx.reader().getLiveDocs();
-    FunctionValues fv = vs.getValues(funcContext, ctx);
     for (int doc = 0; doc < maxDoc; doc++) {
       if (liveDocs != null && !liveDocs.get(doc)) continue;
       long v = fv.longVal(doc);
@@ -136,6 +148,54 @@ public class IndexFingerprint implements MapSerializable {
     return f;
   }
 
+  /**
+   * Derives the fingerprint of the live documents of a segment from the fingerprint of all its
+   * documents, by only reading the versions of the deleted ones.
+   *
+   * @param allDocs the fingerprint of all the documents of the segment
+   * @return the fingerprint of the live documents, or null if the highest versions of the segment
+   *     were deleted, so that the fingerprint has to be computed again
+   */
+  public static IndexFingerprint removeDeletedDocs(
+      SolrIndexSearcher searcher, LeafReaderContext ctx, IndexFingerprint allDocs)
+      throws IOException {
+    IndexFingerprint f = new IndexFingerprint();
+    f.maxVersionSpecified = allDocs.maxVersionSpecified;
+    f.maxVersionEncountered = allDocs.maxVersionEncountered;
+    f.maxInHash = allDocs.maxInHash;
+    f.versionsHash = allDocs.versionsHash;
+    f.numVersions = allDocs.numVersions;
+    f.maxDoc = ctx.reader().maxDoc();
+    f.numDocs = ctx.reader().numDocs();
+
+    Bits liveDocs = ctx.reader().getLiveDocs();
+    if (liveDocs == null) return f;
+    FunctionValues fv = getVersionValues(searcher, ctx);
+    int maxDoc = ctx.reader().maxDoc();
+    for (int doc = 0; doc < maxDoc; doc++) {
+      if (liveDocs.get(doc)) continue;
+      long v = fv.longVal(doc);
+      if (v == f.maxVersionEncountered || v == f.maxInHash) {
+        // the next highest version isn't known
+        return null;
+      }
+      if (v <= f.maxVersionSpecified) {
+        f.versionsHash -= Hash.fmix64(v);
+        f.numVersions--;
+      }
+    }
+    return f;
+  }
+
+  private static FunctionValues getVersionValues(SolrIndexSearcher searcher, LeafReaderContext ctx)
+      throws IOException {
+    SchemaField versionField = VersionInfo.getAndCheckVersionField(searcher.getSchema());
+    ValueSource vs = versionField.getType().getValueSource(versionField, null);
+    Map<Object, Object> funcContext = ValueSource.newContext(searcher);
+    vs.createWeight(funcContext, searcher);
+    return vs.getValues(funcContext, ctx);
+  }
+
   public static IndexFingerprint reduce(IndexFingerprint acc, IndexFingerprint f2) {
     // acc should have maxVersionSpecified already set in it using IndexFingerprint(long
     // maxVersionSpecified) constructor
@@ -169,6 +169,9 @@ public class PeerSyncWithLeader implements SolrMetricProducer {
         log.warn(
             "{} too many updates received since start - startingUpdates no longer overlaps with our currentUpdates",
             msg());
+        if (syncVersionRanges()) {
+          return PeerSync.PeerSyncResult.success();
+        }
         syncErrors.inc();
         return PeerSync.PeerSyncResult.failure();
       }
@@ -181,6 +184,9 @@ public class PeerSyncWithLeader implements SolrMetricProducer {
       }
 
       boolean success = doSync(ourUpdates, ourLowThreshold, ourHighThreshold);
+      if (!success) {
+        success = syncVersionRanges();
+      }
 
       if (log.isInfoEnabled()) {
         log.info("{} DONE. sync {}", msg(), (success ? "succeeded" : "failed"));
@@ -230,6 +236,39 @@ public class PeerSyncWithLeader implements SolrMetricProducer {
     return false;
   }
 
+  /**
+   * Syncs the documents up to the leader's highest version by comparing ranges of versions, when
+   * too many updates were missed for the update logs to be compared.
+   *
+   * @see VersionRangeSync
+   */
+  private boolean syncVersionRanges() {
+    if (!doFingerprint) return false;
+    try {
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set("qt", "/get");
+      params.set(DISTRIB, false);
+      params.set("getFingerprint", String.valueOf(Long.MAX_VALUE));
+      IndexFingerprint leaderFingerprint =
+          getFingerprint(request(params, "Failed to get fingerprint from leader"));
+      if (leaderFingerprint == null) return false;
+
+      log.info("{} Syncing ranges of versions with {}", msg(), leaderUrl);
+      VersionRangeSync rangeSync =
+          new VersionRangeSync(
+              core,
+              p -> request(p, "Failed to sync ranges of versions with the leader"),
+              updater,
+              msg(),
+              leaderUrl);
+      if (!rangeSync.sync(leaderFingerprint.getMaxVersionEncountered())) return false;
+      return compareFingerprint(leaderFingerprint);
+    } catch (Exception e) {
+      log.warn("{} Could not sync ranges of versions with {}", msg(), leaderUrl, e);
+      return false;
+    }
+  }
+
   private MissedUpdatesRequest buildMissedUpdatesRequest(NamedList<Object> rsp) {
     // we retrieved the last N updates from the replica
     @SuppressWarnings({"unchecked"})
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * A {@link CommitIntervalPolicy} that derives the soft commit interval from the ingest rate, so
+ * that bursts of updates don't turn into lots of tiny segments and searcher reopens, while a
+ * trickle of updates is still visible within a target freshness.
+ *
+ * <p>The interval is the time it takes to accumulate <code>targetDocs</code> updates at the current
+ * rate, bounded by:
+ *
+ * <ul>
+ *   <li>below, by <code>minTime</code> and by the warm time of the last searcher, so that a new
+ *       searcher is never requested before the previous one could have been warmed;
+ *   <li>above, by <code>targetFreshness</code> minus the warm time of the last searcher (since an
+ *       update is only visible once the searcher is warmed) and by <code>maxTime</code> if set.
+ * </ul>
+ *
+ * <p>If both bounds conflict the lower bound wins: Solr can't open searchers faster than it warms
+ * them.
+ *
+ * <pre class="prettyprint">
+ * &lt;autoSoftCommit&gt;
+ *   &lt;maxTime&gt;60000&lt;/maxTime&gt;
+ *   &lt;policy class="solr.RateAdaptiveCommitIntervalPolicy"&gt;
+ *     &lt;int name="minTime"&gt;1000&lt;/int&gt;
+ *     &lt;int name="targetFreshness"&gt;10000&lt;/int&gt;
+ *     &lt;int name="targetDocs"&gt;10000&lt;/int&gt;
+ *   &lt;/policy&gt;
+ * &lt;/autoSoftCommit&gt;
+ * </pre>
+ *
+ * @lucene.experimental
+ */
+public class RateAdaptiveCommitIntervalPolicy implements CommitIntervalPolicy {
+  public static final String MIN_TIME = "minTime";
+  public static final String TARGET_FRESHNESS = "targetFreshness";
+  public static final String TARGET_DOCS = "targetDocs";
+
+  private long minTime = 1000;
+  private long targetFreshness = 10000;
+  private long targetDocs = 10000;
+
+  @Override
+  public void init(NamedList<?> args) {
+    minTime = getLong(args, MIN_TIME, minTime);
+    targetFreshness = getLong(args, TARGET_FRESHNESS, targetFreshness);
+    targetDocs = getLong(args, TARGET_DOCS, targetDocs);
+    if (minTime <= 0 || targetFreshness <= 0 || targetDocs <= 0) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          MIN_TIME
+              + ", "
+              + TARGET_FRESHNESS
+              + " and "
+              + TARGET_DOCS
+              + " must be positive: "
+              + args);
+    }
+  }
+
+  private static long getLong(NamedList<?> args, String name, long def) {
+    Object o = args.get(name);
+    return o == null ? def : Long.parseLong(o.toString());
+  }
+
+  @Override
+  public long getCommitDelay(double docsPerSecond, long lastWarmupTime, long maxTime) {
+    long warmupTime = Math.max(0, lastWarmupTime);
+    long lowerBound = Math.max(minTime, warmupTime);
+    long upperBound = targetFreshness - warmupTime;
+    if (maxTime > 0) {
+      upperBound = Math.min(upperBound, maxTime);
+    }
+
+    long delay =
+        docsPerSecond > 0 ? (long) Math.ceil(targetDocs * 1000 / docsPerSecond) : upperBound;
+    return Math.max(lowerBound, Math.min(upperBound, delay));
+  }
+
+  public long getMinTime() {
+    return minTime;
+  }
+
+  public long getTargetFreshness() {
+    return targetFreshness;
+  }
+
+  public long getTargetDocs() {
+    return targetDocs;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName()
+        + "{minTime="
+        + minTime
+        + ", targetFreshness="
+        + targetFreshness
+        + ", targetDocs="
+        + targetDocs
+        + "}";
+  }
+}
@@ -25,11 +25,15 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.lucene.index.CodecReader;
 import org.apache.lucene.index.FilterCodecReader;
+import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
@@ -52,7 +56,6 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
-import org.apache.lucene.store.Lock;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
@@ -64,8 +67,11 @@ import org.apache.solr.common.cloud.CompositeIdRouter;
 import org.apache.solr.common.cloud.DocRouter;
 import org.apache.solr.common.cloud.HashBasedRouter;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.DirectoryFactory;
+import org.apache.solr.core.IndexDeletionPolicyWrapper;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.IndexFetcher;
 import org.apache.solr.handler.SnapShooter;
@@ -81,6 +87,8 @@ public class SolrIndexSplitter {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private static final String INDEX_PREFIX = "index.";
+  // the maximum number of leaves or partitions split concurrently by the 'rewrite' method
+  private static final int MAX_SPLIT_THREADS = Runtime.getRuntime().availableProcessors();
 
   public enum SplitMethod {
     REWRITE,
@@ -112,6 +120,8 @@ public class SolrIndexSplitter {
   final String splitKey;
   SplitMethod splitMethod;
   final RTimerTree timings = new RTimerTree();
+  // the commit point of the parent index that is hard-linked by the 'link' method
+  IndexCommit parentCommit;
 
   public SolrIndexSplitter(SplitIndexCommand cmd) {
     this.cmd = cmd;
@@ -144,70 +154,27 @@ public class SolrIndexSplitter {
   }
 
   public void split(NamedList<Object> results) throws IOException {
-    SolrCore parentCore = searcher.getCore();
-    Directory parentDirectory = searcher.getRawReader().directory();
-    Lock parentDirectoryLock = null;
-    UpdateLog ulog = parentCore.getUpdateHandler().getUpdateLog();
-    if (ulog == null && splitMethod == SplitMethod.LINK) {
-      log.warn(
-          "No updateLog in parent core, switching to use potentially slower 'splitMethod=rewrite'");
-      splitMethod = SplitMethod.REWRITE;
-    }
+    IndexDeletionPolicyWrapper parentDeletionPolicy = searcher.getCore().getDeletionPolicy();
     if (splitMethod == SplitMethod.LINK) {
-      RTimerTree t = timings.sub("closeParentIW");
-      try {
-        // start buffering updates
-        ulog.bufferUpdates();
-        parentCore.getSolrCoreState().closeIndexWriter(parentCore, false);
-        // make sure we can lock the directory for our exclusive use
-        parentDirectoryLock = parentDirectory.obtainLock(IndexWriter.WRITE_LOCK_NAME);
-        log.info("Splitting in 'link' mode: closed parent IndexWriter...");
-        t.stop();
-      } catch (Exception e) {
-        if (parentDirectoryLock != null) {
-          IOUtils.closeWhileHandlingException(parentDirectoryLock);
-        }
-        try {
-          parentCore.getSolrCoreState().openIndexWriter(parentCore);
-          ulog.applyBufferedUpdates();
-        } catch (Exception e1) {
-          log.error("Error reopening IndexWriter after failed close", e1);
-          log.error("Original error closing IndexWriter:", e);
-          throw new SolrException(
-              SolrException.ErrorCode.SERVER_ERROR,
-              "Error reopening IndexWriter after failed close",
-              e1);
-        }
+      // hard-link the files of the latest commit point of the parent, which stay unchanged while
+      // the parent keeps indexing: the updates after that commit are forwarded to the sub-shards,
+      // which buffer them until the split is done
+      parentCommit = parentDeletionPolicy.getAndSaveLatestCommit();
+      if (parentCommit == null) {
         throw new SolrException(
-            SolrException.ErrorCode.SERVER_ERROR,
-            "Error closing current IndexWriter, aborting 'link' split...",
-            e);
+            SolrException.ErrorCode.SERVER_ERROR, "No commit point of the parent index to split");
       }
+      log.info("Splitting in 'link' mode commit point {}", parentCommit.getGeneration());
     }
-    boolean success = false;
     try {
       RTimerTree t = timings.sub("doSplit");
       doSplit();
       t.stop();
-      success = true;
     } catch (Exception e) {
       results.add("failed", e.toString());
       throw e;
     } finally {
-      if (splitMethod == SplitMethod.LINK) {
-        IOUtils.closeWhileHandlingException(parentDirectoryLock);
-        RTimerTree t = timings.sub("reopenParentIW");
-        parentCore.getSolrCoreState().openIndexWriter(parentCore);
-        t.stop();
-        t = timings.sub("parentApplyBufferedUpdates");
-        ulog.applyBufferedUpdates();
-        t.stop();
-        if (log.isInfoEnabled()) {
-          log.info(
-              "Splitting in 'link' mode {}: re-opened parent IndexWriter.",
-              (success ? "finished" : "FAILED"));
-        }
-      }
+      parentDeletionPolicy.releaseCommitPoint(parentCommit);
     }
     results.add(CommonParams.TIMING, timings.asNamedList());
   }
@@ -215,9 +182,7 @@ public class SolrIndexSplitter {
   public void doSplit() throws IOException {
 
     List<LeafReaderContext> leaves = searcher.getRawReader().leaves();
-    Directory parentDirectory = searcher.getRawReader().directory();
     List<FixedBitSet[]> segmentDocSets = new ArrayList<>(leaves.size());
-    SolrIndexConfig parentConfig = searcher.getCore().getSolrConfig().indexConfig;
     String timestamp = new SimpleDateFormat(SnapShooter.DATE_FMT, Locale.ROOT).format(new Date());
 
     if (log.isInfoEnabled()) {
@@ -228,175 +193,89 @@ public class SolrIndexSplitter {
     // this tracks round-robin assignment of docs to partitions
     AtomicInteger currentPartition = new AtomicInteger();
 
-    if (splitMethod != SplitMethod.LINK) {
-      t = timings.sub("findDocSetsPerLeaf");
-      for (LeafReaderContext readerContext : leaves) {
-        assert readerContext.ordInParent == segmentDocSets.size(); // make sure we're going in order
-        FixedBitSet[] docSets =
-            split(
-                readerContext,
-                numPieces,
-                field,
-                rangesArr,
-                splitKey,
-                hashRouter,
-                currentPartition,
-                false);
-        segmentDocSets.add(docSets);
+    if (splitMethod == SplitMethod.LINK) {
+      Map<IndexReader.CacheKey, FixedBitSet[]> docsToDeleteCache = new ConcurrentHashMap<>();
+      for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
+        splitPartition(
+            partitionNumber,
+            leaves,
+            null,
+            docsToDeleteCache,
+            currentPartition,
+            timestamp,
+            timings);
       }
-      t.stop();
-    }
-
-    Map<IndexReader.CacheKey, FixedBitSet[]> docsToDeleteCache = new ConcurrentHashMap<>();
-
-    // would it be more efficient to write segment-at-a-time to each new index?
-    // - need to worry about number of open descriptors
-    // - need to worry about if IW.addIndexes does a sync or not...
-    // - would be more efficient on the read side, but prob less efficient merging
-    for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
-      String partitionName =
-          "SolrIndexSplitter:partition="
-              + partitionNumber
-              + ",partitionCount="
-              + numPieces
-              + (cmd.ranges != null ? ",range=" + cmd.ranges.get(partitionNumber) : "");
-      log.info(partitionName);
-
-      boolean success = false;
-
-      RefCounted<IndexWriter> iwRef = null;
-      IndexWriter iw;
-      if (cmd.cores != null && splitMethod != SplitMethod.LINK) {
-        SolrCore subCore = cmd.cores.get(partitionNumber);
-        iwRef = subCore.getUpdateHandler().getSolrCoreState().getIndexWriter(subCore);
-        iw = iwRef.get();
-      } else {
-        if (splitMethod == SplitMethod.LINK) {
-          SolrCore subCore = cmd.cores.get(partitionNumber);
-          String path = subCore.getDataDir() + INDEX_PREFIX + timestamp;
-          t = timings.sub("hardLinkCopy");
-          t.resume();
-          // copy by hard-linking
-          Directory splitDir =
-              subCore
-                  .getDirectoryFactory()
-                  .get(
-                      path,
-                      DirectoryFactory.DirContext.DEFAULT,
-                      subCore.getSolrConfig().indexConfig.lockType);
-          // the wrapper doesn't hold any resources itself so it doesn't need closing
-          HardlinkCopyDirectoryWrapper hardLinkedDir = new HardlinkCopyDirectoryWrapper(splitDir);
-          boolean copiedOk = false;
-          try {
-            for (String file : parentDirectory.listAll()) {
-              // we've closed the IndexWriter, so ignore write.lock
-              // its file may be present even when IndexWriter is closed but
-              // we've already checked that the lock is not held by anyone else
-              if (file.equals(IndexWriter.WRITE_LOCK_NAME)) {
-                continue;
-              }
-              hardLinkedDir.copyFrom(parentDirectory, file, file, IOContext.DEFAULT);
-            }
-            copiedOk = true;
-          } finally {
-            if (!copiedOk) {
-              subCore.getDirectoryFactory().doneWithDirectory(splitDir);
-              subCore.getDirectoryFactory().remove(splitDir);
-            }
+    } else {
+      // the leaves are split, then the partitions are written, concurrently
+      ExecutorService executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              Math.min(MAX_SPLIT_THREADS, Math.max(1, Math.max(leaves.size(), numPieces))),
+              new SolrNamedThreadFactory("indexSplitter"));
+      List<Future<?>> futures = new ArrayList<>();
+      try {
+        t = timings.sub("findDocSetsPerLeaf");
+        List<Future<FixedBitSet[]>> docSetsFutures = new ArrayList<>(leaves.size());
+        for (LeafReaderContext readerContext : leaves) {
+          // make sure we're going in order
+          assert readerContext.ordInParent == docSetsFutures.size();
+          Callable<FixedBitSet[]> task =
+              () ->
+                  split(
+                      readerContext,
+                      numPieces,
+                      field,
+                      rangesArr,
+                      splitKey,
+                      hashRouter,
+                      currentPartition,
+                      false);
+          Future<FixedBitSet[]> future = executor.submit(task);
+          futures.add(future);
+          if (rangesArr == null) {
+            // the round-robin assignment of docs depends on the order of the leaves
+            getResult(future);
           }
-          t.pause();
-          IndexWriterConfig iwConfig = parentConfig.toIndexWriterConfig(subCore);
-          // don't run merges at this time
-          iwConfig.setMergePolicy(NoMergePolicy.INSTANCE);
-          t = timings.sub("createSubIW");
-          t.resume();
-          iw = new SolrIndexWriter(partitionName, splitDir, iwConfig);
-          t.pause();
-        } else {
-          SolrCore core = searcher.getCore();
-          String path = cmd.paths.get(partitionNumber);
-          t = timings.sub("createSubIW");
-          t.resume();
-          iw =
-              SolrIndexWriter.create(
-                  core,
-                  partitionName,
-                  path,
-                  core.getDirectoryFactory(),
-                  true,
-                  core.getLatestSchema(),
-                  core.getSolrConfig().indexConfig,
-                  core.getDeletionPolicy(),
-                  core.getCodec());
-          t.pause();
+          docSetsFutures.add(future);
         }
-      }
+        for (Future<FixedBitSet[]> future : docSetsFutures) {
+          segmentDocSets.add(getResult(future));
+        }
+        t.stop();
 
-      try {
-        if (splitMethod == SplitMethod.LINK) {
-          t = timings.sub("deleteDocuments");
-          t.resume();
-          // apply deletions specific to this partition. As a side-effect on the first call this
-          // also populates a cache of docsets to delete per leaf reader per partition, which is
-          // reused for subsequent partitions.
-          iw.deleteDocuments(
-              new SplittingQuery(
-                  partitionNumber,
-                  field,
-                  rangesArr,
-                  hashRouter,
-                  splitKey,
-                  docsToDeleteCache,
-                  currentPartition));
-          t.pause();
-        } else {
-          // This removes deletions but optimize might still be needed because sub-shards will have
-          // the same number of segments as the parent shard.
-          t = timings.sub("addIndexes");
-          t.resume();
-          for (int segmentNumber = 0; segmentNumber < leaves.size(); segmentNumber++) {
-            if (log.isInfoEnabled()) {
-              log.info(
-                  "SolrIndexSplitter: partition # {} partitionCount={} {} segment #={} segmentCount={}",
-                  partitionNumber,
-                  numPieces,
-                  (cmd.ranges != null ? " range=" + cmd.ranges.get(partitionNumber) : ""),
-                  segmentNumber,
-                  leaves.size()); // nowarn
-            }
-            CodecReader subReader = SlowCodecReaderWrapper.wrap(leaves.get(segmentNumber).reader());
-            iw.addIndexes(
-                new LiveDocsReader(subReader, segmentDocSets.get(segmentNumber)[partitionNumber]));
-          }
-          t.pause();
+        // would it be more efficient to write segment-at-a-time to each new index?
+        // - need to worry about number of open descriptors
+        // - need to worry about if IW.addIndexes does a sync or not...
+        // - would be more efficient on the read side, but prob less efficient merging
+        List<Future<Void>> partitionFutures = new ArrayList<>(numPieces);
+        for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
+          int partition = partitionNumber;
+          RTimerTree partitionTimings = timings.sub("partition" + partition);
+          partitionFutures.add(
+              executor.submit(
+                  () -> {
+                    splitPartition(
+                        partition,
+                        leaves,
+                        segmentDocSets,
+                        null,
+                        currentPartition,
+                        timestamp,
+                        partitionTimings);
+                    partitionTimings.stop();
+                    return null;
+                  }));
+        }
+        futures.addAll(partitionFutures);
+        for (Future<Void> future : partitionFutures) {
+          getResult(future);
         }
-        // we commit explicitly instead of sending a CommitUpdateCommand through the processor chain
-        // because the sub-shard cores will just ignore such a commit because the update log is not
-        // in active state at this time.
-        // TODO no commitUpdateCommand
-        SolrIndexWriter.setCommitData(iw, -1, cmd.commitData);
-        t = timings.sub("subIWCommit");
-        t.resume();
-        iw.commit();
-        t.pause();
-        success = true;
       } finally {
-        if (iwRef != null) {
-          iwRef.decref();
-        } else {
-          if (success) {
-            t = timings.sub("subIWClose");
-            t.resume();
-            iw.close();
-            t.pause();
-          } else {
-            IOUtils.closeWhileHandlingException(iw);
-          }
-          if (splitMethod == SplitMethod.LINK) {
-            SolrCore subCore = cmd.cores.get(partitionNumber);
-            subCore.getDirectoryFactory().release(iw.getDirectory());
-          }
+        // if a task failed, the ones that didn't start yet are cancelled, but the running ones
+        // aren't interrupted: they may be adding indexes with the IndexWriter of a sub-core
+        for (Future<?> future : futures) {
+          future.cancel(false);
         }
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
       }
     }
     // all sub-indexes created ok
@@ -497,6 +376,174 @@ public class SolrIndexSplitter {
     }
   }
 
+  private void splitPartition(
+      int partitionNumber,
+      List<LeafReaderContext> leaves,
+      List<FixedBitSet[]> segmentDocSets,
+      Map<IndexReader.CacheKey, FixedBitSet[]> docsToDeleteCache,
+      AtomicInteger currentPartition,
+      String timestamp,
+      RTimerTree partitionTimings)
+      throws IOException {
+    SolrIndexConfig parentConfig = searcher.getCore().getSolrConfig().indexConfig;
+    RTimerTree t;
+    String partitionName =
+        "SolrIndexSplitter:partition="
+            + partitionNumber
+            + ",partitionCount="
+            + numPieces
+            + (cmd.ranges != null ? ",range=" + cmd.ranges.get(partitionNumber) : "");
+    log.info(partitionName);
+
+    boolean success = false;
+
+    RefCounted<IndexWriter> iwRef = null;
+    IndexWriter iw;
+    if (cmd.cores != null && splitMethod != SplitMethod.LINK) {
+      SolrCore subCore = cmd.cores.get(partitionNumber);
+      iwRef = subCore.getUpdateHandler().getSolrCoreState().getIndexWriter(subCore);
+      iw = iwRef.get();
+    } else {
+      if (splitMethod == SplitMethod.LINK) {
+        SolrCore subCore = cmd.cores.get(partitionNumber);
+        String path = subCore.getDataDir() + INDEX_PREFIX + timestamp;
+        t = partitionTimings.sub("hardLinkCopy");
+        t.resume();
+        // copy by hard-linking
+        Directory splitDir =
+            subCore
+                .getDirectoryFactory()
+                .get(
+                    path,
+                    DirectoryFactory.DirContext.DEFAULT,
+                    subCore.getSolrConfig().indexConfig.lockType);
+        // the wrapper doesn't hold any resources itself so it doesn't need closing
+        HardlinkCopyDirectoryWrapper hardLinkedDir = new HardlinkCopyDirectoryWrapper(splitDir);
+        boolean copiedOk = false;
+        try {
+          Directory parentDirectory = parentCommit.getDirectory();
+          for (String file : parentCommit.getFileNames()) {
+            hardLinkedDir.copyFrom(parentDirectory, file, file, IOContext.DEFAULT);
+          }
+          copiedOk = true;
+        } finally {
+          if (!copiedOk) {
+            subCore.getDirectoryFactory().doneWithDirectory(splitDir);
+            subCore.getDirectoryFactory().remove(splitDir);
+          }
+        }
+        t.pause();
+        IndexWriterConfig iwConfig = parentConfig.toIndexWriterConfig(subCore);
+        // don't run merges at this time
+        iwConfig.setMergePolicy(NoMergePolicy.INSTANCE);
+        t = partitionTimings.sub("createSubIW");
+        t.resume();
+        iw = new SolrIndexWriter(partitionName, splitDir, iwConfig);
+        t.pause();
+      } else {
+        SolrCore core = searcher.getCore();
+        String path = cmd.paths.get(partitionNumber);
+        t = partitionTimings.sub("createSubIW");
+        t.resume();
+        iw =
+            SolrIndexWriter.create(
+                core,
+                partitionName,
+                path,
+                core.getDirectoryFactory(),
+                true,
+                core.getLatestSchema(),
+                core.getSolrConfig().indexConfig,
+                core.getDeletionPolicy(),
+                core.getCodec());
+        t.pause();
+      }
+    }
+
+    try {
+      if (splitMethod == SplitMethod.LINK) {
+        t = partitionTimings.sub("deleteDocuments");
+        t.resume();
+        // apply deletions specific to this partition. As a side-effect on the first call this
+        // also populates a cache of docsets to delete per leaf reader per partition, which is
+        // reused for subsequent partitions.
+        iw.deleteDocuments(
+            new SplittingQuery(
+                partitionNumber,
+                field,
+                rangesArr,
+                hashRouter,
+                splitKey,
+                docsToDeleteCache,
+                currentPartition));
+        t.pause();
+      } else {
+        // This removes deletions but optimize might still be needed because sub-shards will have
+        // the same number of segments as the parent shard.
+        t = partitionTimings.sub("addIndexes");
+        t.resume();
+        for (int segmentNumber = 0; segmentNumber < leaves.size(); segmentNumber++) {
+          if (log.isInfoEnabled()) {
+            log.info(
+                "SolrIndexSplitter: partition # {} partitionCount={} {} segment #={} segmentCount={}",
+                partitionNumber,
+                numPieces,
+                (cmd.ranges != null ? " range=" + cmd.ranges.get(partitionNumber) : ""),
+                segmentNumber,
+                leaves.size()); // nowarn
+          }
+          CodecReader subReader = SlowCodecReaderWrapper.wrap(leaves.get(segmentNumber).reader());
+          iw.addIndexes(
+              new LiveDocsReader(subReader, segmentDocSets.get(segmentNumber)[partitionNumber]));
+        }
+        t.pause();
+      }
+      // we commit explicitly instead of sending a CommitUpdateCommand through the processor chain
+      // because the sub-shard cores will just ignore such a commit because the update log is not
+      // in active state at this time.
+      // TODO no commitUpdateCommand
+      SolrIndexWriter.setCommitData(iw, -1, cmd.commitData);
+      t = partitionTimings.sub("subIWCommit");
+      t.resume();
+      iw.commit();
+      t.pause();
+      success = true;
+    } finally {
+      if (iwRef != null) {
+        iwRef.decref();
+      } else {
+        if (success) {
+          t = partitionTimings.sub("subIWClose");
+          t.resume();
+          iw.close();
+          t.pause();
+        } else {
+          IOUtils.closeWhileHandlingException(iw);
+        }
+        if (splitMethod == SplitMethod.LINK) {
+          SolrCore subCore = cmd.cores.get(partitionNumber);
+          subCore.getDirectoryFactory().release(iw.getDirectory());
+        }
+      }
+    }
+  }
+
+  private static <T> T getResult(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Interrupted splitting", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e.getCause());
+    }
+  }
+
   private void openNewSearcher(SolrCore core) throws Exception {
     @SuppressWarnings("unchecked")
     Future<Void>[] waitSearcher = (Future<Void>[]) Array.newInstance(Future.class, 1);
@@ -41,7 +41,9 @@ import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.DirectoryFactory.DirContext;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.SolrInfoBean;
+import org.apache.solr.handler.ReplicationHandler;
 import org.apache.solr.metrics.SolrMetricsContext;
+import org.apache.solr.request.SolrRequestHandler;
 import org.apache.solr.schema.IndexSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +69,8 @@ public class SolrIndexWriter extends IndexWriter {
   private final Object CLOSE_LOCK = new Object();
 
   String name;
+  // null when the writer isn't created for a core, e.g. to split an index
+  private final SolrCore core;
   private DirectoryFactory directoryFactory;
   private InfoStream infoStream;
   private Directory directory;
@@ -123,6 +127,7 @@ public class SolrIndexWriter extends IndexWriter {
     this.name = name;
     this.infoStream = conf.getInfoStream();
     this.directory = d;
+    this.core = null;
     numOpens.incrementAndGet();
     log.debug("Opened Writer {}", name);
     // no metrics
@@ -154,6 +159,7 @@ public class SolrIndexWriter extends IndexWriter {
     this.name = name;
     infoStream = getConfig().getInfoStream();
     this.directory = directory;
+    this.core = core;
     numOpens.incrementAndGet();
     solrMetricsContext = core.getSolrMetricsContext().getChildContext(this);
     if (config.metricsInfo != null && config.metricsInfo.initArgs != null) {
@@ -320,6 +326,16 @@ public class SolrIndexWriter extends IndexWriter {
     }
   }
 
+  // we override this method to have TLOG and PULL replicas pre-copy the merged segment
+  @Override
+  protected void mergeSuccess(MergePolicy.OneMerge merge) {
+    if (core == null || merge.isAborted() || merge.getMergeInfo() == null) return;
+    SolrRequestHandler handler = core.getRequestHandler(ReplicationHandler.PATH);
+    if (handler instanceof ReplicationHandler) {
+      ((ReplicationHandler) handler).onMergedSegment(merge.getMergeInfo());
+    }
+  }
+
   public Map<String, Object> getRunningMerges() {
     return Collections.unmodifiableMap(runningMerges);
   }
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.queries.function.FunctionValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.IntroSorter;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.MapSerializable;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.Hash;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.StrUtils;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
+
+/**
+ * The fingerprint of the documents of an index whose version is within a range, i.e. how many there
+ * are and a hash of their versions. Comparing the fingerprints of a few ranges, then of smaller
+ * ranges within the ones that differ, finds the documents that differ between two indexes, like a
+ * Merkle tree would.
+ *
+ * <p>The versions of each segment are read once from the {@code _version_} field and cached,
+ * sorted, so that fingerprints of any range can be computed without a pass over the whole index.
+ *
+ * @see IndexFingerprint
+ * @lucene.internal
+ */
+public class VersionRangeFingerprint implements MapSerializable {
+
+  private long lowVersion;
+  private long highVersion;
+  private long numVersions;
+  private long versionsHash;
+
+  public VersionRangeFingerprint() {
+    // default constructor
+  }
+
+  public VersionRangeFingerprint(long lowVersion, long highVersion) {
+    this.lowVersion = lowVersion;
+    this.highVersion = highVersion;
+  }
+
+  public long getLowVersion() {
+    return lowVersion;
+  }
+
+  public long getHighVersion() {
+    return highVersion;
+  }
+
+  public long getNumVersions() {
+    return numVersions;
+  }
+
+  public long getVersionsHash() {
+    return versionsHash;
+  }
+
+  /** Whether both fingerprints cover the same documents */
+  public boolean matches(VersionRangeFingerprint other) {
+    return numVersions == other.numVersions && versionsHash == other.versionsHash;
+  }
+
+  /**
+   * Opens a new realtime searcher and returns the fingerprints of the given ranges
+   *
+   * @param ranges the lowest and the highest version (inclusive) of each range
+   */
+  public static List<VersionRangeFingerprint> getFingerprints(SolrCore core, List<long[]> ranges)
+      throws IOException {
+    core.getUpdateHandler().getUpdateLog().openRealtimeSearcher();
+    RefCounted<SolrIndexSearcher> newestSearcher = core.getRealtimeSearcher();
+    try {
+      SolrIndexSearcher searcher = newestSearcher.get();
+      List<VersionRangeFingerprint> fingerprints = new ArrayList<>(ranges.size());
+      for (long[] range : ranges) {
+        fingerprints.add(new VersionRangeFingerprint(range[0], range[1]));
+      }
+      for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+        SegmentVersions segmentVersions = core.getSegmentVersions(searcher, ctx);
+        Bits liveDocs = ctx.reader().getLiveDocs();
+        for (VersionRangeFingerprint f : fingerprints) {
+          for (int i = segmentVersions.lowerBound(f.lowVersion);
+              i < segmentVersions.size() && segmentVersions.versions[i] <= f.highVersion;
+              i++) {
+            if (liveDocs != null && !liveDocs.get(segmentVersions.docs[i])) continue;
+            f.versionsHash += Hash.fmix64(segmentVersions.versions[i]);
+            f.numVersions++;
+          }
+        }
+      }
+      return fingerprints;
+    } finally {
+      newestSearcher.decref();
+    }
+  }
+
+  /**
+   * Opens a new realtime searcher and returns the unique key and the version of all the documents
+   * whose version is within the given ranges, as two lists of the same size sorted by version.
+   */
+  public static NamedList<Object> getVersions(SolrCore core, List<long[]> ranges)
+      throws IOException {
+    core.getUpdateHandler().getUpdateLog().openRealtimeSearcher();
+    RefCounted<SolrIndexSearcher> newestSearcher = core.getRealtimeSearcher();
+    try {
+      SolrIndexSearcher searcher = newestSearcher.get();
+      SchemaField idField = searcher.getSchema().getUniqueKeyField();
+      Set<String> fields = Collections.singleton(idField.getName());
+      List<long[]> versionsAndDocs = new ArrayList<>();
+      for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+        SegmentVersions segmentVersions = core.getSegmentVersions(searcher, ctx);
+        Bits liveDocs = ctx.reader().getLiveDocs();
+        for (long[] range : ranges) {
+          for (int i = segmentVersions.lowerBound(range[0]);
+              i < segmentVersions.size() && segmentVersions.versions[i] <= range[1];
+              i++) {
+            if (liveDocs != null && !liveDocs.get(segmentVersions.docs[i])) continue;
+            versionsAndDocs.add(
+                new long[] {segmentVersions.versions[i], ctx.docBase + segmentVersions.docs[i]});
+          }
+        }
+      }
+      versionsAndDocs.sort((a, b) -> Long.compare(a[0], b[0]));
+
+      List<String> ids = new ArrayList<>(versionsAndDocs.size());
+      List<Long> versions = new ArrayList<>(versionsAndDocs.size());
+      for (long[] versionAndDoc : versionsAndDocs) {
+        Document doc = searcher.getDocFetcher().doc((int) versionAndDoc[1], fields);
+        IndexableField id = doc.getField(idField.getName());
+        if (id == null) {
+          throw new SolrException(
+              SolrException.ErrorCode.SERVER_ERROR,
+              "The unique key " + idField.getName() + " isn't stored");
+        }
+        ids.add(idField.getType().toExternal(id));
+        versions.add(versionAndDoc[0]);
+      }
+      NamedList<Object> result = new NamedList<>();
+      result.add("ids", ids);
+      result.add("versions", versions);
+      return result;
+    } finally {
+      newestSearcher.decref();
+    }
+  }
+
+  /** Parses ranges of versions written as {@code low...high}, separated by commas */
+  public static List<long[]> parseRanges(String ranges) {
+    List<long[]> result = new ArrayList<>();
+    for (String range : StrUtils.splitSmart(ranges, ",", true)) {
+      String[] bounds = range.split("\\.{3}");
+      if (bounds.length != 2) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST, "Invalid range of versions: " + range);
+      }
+      result.add(new long[] {Long.parseLong(bounds[0]), Long.parseLong(bounds[1])});
+    }
+    return result;
+  }
+
+  /** Writes ranges of versions as parsed by {@link #parseRanges(String)} */
+  public static String formatRanges(List<long[]> ranges) {
+    StringBuilder sb = new StringBuilder();
+    for (long[] range : ranges) {
+      if (sb.length() > 0) sb.append(',');
+      sb.append(range[0]).append("...").append(range[1]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * The versions of all the documents of a segment, deleted or not, sorted. Deletions don't change
+   * them, but in-place updates of documents of the segment do.
+   *
+   * @see SolrCore#getSegmentVersions(SolrIndexSearcher, LeafReaderContext)
+   */
+  public static class SegmentVersions {
+    private final long[] versions;
+    private final int[] docs;
+
+    private SegmentVersions(long[] versions, int[] docs) {
+      this.versions = versions;
+      this.docs = docs;
+    }
+
+    public static SegmentVersions read(SolrIndexSearcher searcher, LeafReaderContext ctx)
+        throws IOException {
+      SchemaField versionField = VersionInfo.getAndCheckVersionField(searcher.getSchema());
+      ValueSource vs = versionField.getType().getValueSource(versionField, null);
+      Map<Object, Object> funcContext = ValueSource.newContext(searcher);
+      vs.createWeight(funcContext, searcher);
+      FunctionValues fv = vs.getValues(funcContext, ctx);
+
+      int maxDoc = ctx.reader().maxDoc();
+      long[] versions = new long[maxDoc];
+      int[] docs = new int[maxDoc];
+      for (int doc = 0; doc < maxDoc; doc++) {
+        versions[doc] = fv.longVal(doc);
+        docs[doc] = doc;
+      }
+      new IntroSorter() {
+        long pivot;
+
+        @Override
+        protected void swap(int i, int j) {
+          long version = versions[i];
+          versions[i] = versions[j];
+          versions[j] = version;
+          int doc = docs[i];
+          docs[i] = docs[j];
+          docs[j] = doc;
+        }
+
+        @Override
+        protected int compare(int i, int j) {
+          return Long.compare(versions[i], versions[j]);
+        }
+
+        @Override
+        protected void setPivot(int i) {
+          pivot = versions[i];
+        }
+
+        @Override
+        protected int comparePivot(int j) {
+          return Long.compare(pivot, versions[j]);
+        }
+      }.sort(0, maxDoc);
+      return new SegmentVersions(versions, docs);
+    }
+
+    public int size() {
+      return versions.length;
+    }
+
+    /** The heap size of the versions and of their documents, about 12 bytes per document */
+    public long ramBytesUsed() {
+      return RamUsageEstimator.sizeOf(versions) + RamUsageEstimator.sizeOf(docs);
+    }
+
+    /** The index of the first version that is greater than or equal to the given one */
+    int lowerBound(long version) {
+      int i = Arrays.binarySearch(versions, version);
+      if (i < 0) return -i - 1;
+      // there may be several documents with that version, e.g. nested ones
+      while (i > 0 && versions[i - 1] == version) i--;
+      return i;
+    }
+  }
+
+  @Override
+  public Map<String, Object> toMap(Map<String, Object> map) {
+    map.put("lowVersion", lowVersion);
+    map.put("highVersion", highVersion);
+    map.put("numVersions", numVersions);
+    map.put("versionsHash", versionsHash);
+    return map;
+  }
+
+  private static long getLong(Map<String, Object> m, String key, long def) {
+    Object oval = m.get(key);
+    return oval != null ? ((Number) oval).longValue() : def;
+  }
+
+  /** Create a VersionRangeFingerprint from a deserialized generic object (Map or NamedList) */
+  @SuppressWarnings("unchecked")
+  public static VersionRangeFingerprint fromObject(Object o) {
+    if (o instanceof VersionRangeFingerprint) return (VersionRangeFingerprint) o;
+    Map<String, Object> map = null;
+    if (o instanceof Map) {
+      map = (Map<String, Object>) o;
+    } else if (o instanceof NamedList) {
+      map = ((NamedList<Object>) o).asShallowMap();
+    } else {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Unknown type " + o);
+    }
+    VersionRangeFingerprint f = new VersionRangeFingerprint();
+    f.lowVersion = getLong(map, "lowVersion", -1);
+    f.highVersion = getLong(map, "highVersion", -1);
+    f.numVersions = getLong(map, "numVersions", -1);
+    f.versionsHash = getLong(map, "versionsHash", -1);
+    return f;
+  }
+
+  @Override
+  public String toString() {
+    return toMap(new LinkedHashMap<>()).toString();
+  }
+}
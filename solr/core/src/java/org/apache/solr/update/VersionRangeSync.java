@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import static org.apache.solr.common.params.CommonParams.DISTRIB;
+import static org.apache.solr.common.params.CommonParams.VERSION_FIELD;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.StrUtils;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.schema.CopyField;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Brings the documents of a replica up to date with the leader's by comparing the fingerprints of
+ * ranges of versions, then of sub-ranges of the ones that differ, until the ranges are small enough
+ * to be compared document by document. The documents the replica misses are then fetched from the
+ * leader with a real-time get, and the ones it has but the leader doesn't are deleted.
+ *
+ * <p>Unlike the comparison of recent updates, this doesn't depend on how many updates the update
+ * logs keep, but documents are rebuilt from their stored fields and docValues: it can only be used
+ * when every field can be retrieved, and not with nested documents.
+ *
+ * @see VersionRangeFingerprint
+ */
+class VersionRangeSync {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // how many sub-ranges a range that differs is split into
+  static final int FANOUT = 16;
+
+  // ranges with fewer documents than that are compared document by document
+  static final int LEAF_SIZE = 256;
+
+  // how many ranges or ids are sent per request
+  private static final int BATCH_SIZE = 512;
+
+  private final int maxDifferingDocs =
+      Integer.getInteger("solr.peerSync.maxVersionRangeSyncDocs", 100000);
+
+  private final SolrCore core;
+  private final Function<ModifiableSolrParams, NamedList<Object>> leader;
+  private final PeerSync.Updater updater;
+  private final String logPrefix;
+  private final String leaderUrl;
+
+  /**
+   * @param leader sends a real-time get request to the leader
+   */
+  VersionRangeSync(
+      SolrCore core,
+      Function<ModifiableSolrParams, NamedList<Object>> leader,
+      PeerSync.Updater updater,
+      String logPrefix,
+      String leaderUrl) {
+    this.core = core;
+    this.leader = leader;
+    this.updater = updater;
+    this.logPrefix = logPrefix;
+    this.leaderUrl = leaderUrl;
+  }
+
+  /**
+   * Syncs the documents whose version is lower than or equal to the given one
+   *
+   * @return false if the documents can't be synced this way
+   */
+  boolean sync(long maxVersion) throws Exception {
+    if (maxVersion <= 0 || !canRebuildDocuments(core.getLatestSchema())) return false;
+
+    // walk down the ranges that differ
+    List<long[]> ranges = split(1, maxVersion);
+    List<long[]> leaves = new ArrayList<>();
+    long numLeafVersions = 0;
+    int depth = 0;
+    while (!ranges.isEmpty()) {
+      List<VersionRangeFingerprint> theirs = getLeaderFingerprints(ranges);
+      List<VersionRangeFingerprint> ours = VersionRangeFingerprint.getFingerprints(core, ranges);
+      List<long[]> next = new ArrayList<>();
+      for (int i = 0; i < ranges.size(); i++) {
+        if (theirs.get(i).matches(ours.get(i))) continue;
+        long[] range = ranges.get(i);
+        long numVersions = Math.max(theirs.get(i).getNumVersions(), ours.get(i).getNumVersions());
+        if (numVersions <= LEAF_SIZE || range[1] - range[0] < FANOUT) {
+          leaves.add(range);
+          numLeafVersions += numVersions;
+        } else {
+          next.addAll(split(range[0], range[1]));
+        }
+      }
+      if (numLeafVersions > 4L * maxDifferingDocs) {
+        log.info("{} Too many versions differ from {} to sync them by range", logPrefix, leaderUrl);
+        return false;
+      }
+      ranges = next;
+      depth++;
+    }
+    if (log.isInfoEnabled()) {
+      log.info(
+          "{} {} ranges of versions differ from {}, found in {} rounds",
+          logPrefix,
+          leaves.size(),
+          leaderUrl,
+          depth);
+    }
+    if (leaves.isEmpty()) return true;
+
+    // compare the documents of the ranges that differ
+    Map<String, Long> theirVersions = getLeaderVersions(leaves);
+    Map<String, Long> ourVersions =
+        toVersionMap(VersionRangeFingerprint.getVersions(core, leaves));
+    if (theirVersions == null || ourVersions == null) {
+      log.info("{} Can't sync ranges of versions with nested documents", logPrefix);
+      return false;
+    }
+    List<String> missing = new ArrayList<>();
+    for (Map.Entry<String, Long> entry : theirVersions.entrySet()) {
+      if (!entry.getValue().equals(ourVersions.get(entry.getKey()))) {
+        missing.add(entry.getKey());
+      }
+    }
+    List<String> extra = new ArrayList<>();
+    for (String id : ourVersions.keySet()) {
+      if (!theirVersions.containsKey(id)) {
+        extra.add(id);
+      }
+    }
+    if (missing.size() + extra.size() > maxDifferingDocs) {
+      log.info(
+          "{} {} documents differ from {}, more than {}",
+          logPrefix,
+          missing.size() + extra.size(),
+          leaderUrl,
+          maxDifferingDocs);
+      return false;
+    }
+    if (log.isInfoEnabled()) {
+      log.info(
+          "{} Fetching {} documents from {} and deleting {}",
+          logPrefix,
+          missing.size(),
+          leaderUrl,
+          extra.size());
+    }
+
+    List<Object> updates = new ArrayList<>(missing.size() + extra.size());
+    IndexSchema schema = core.getLatestSchema();
+    for (int start = 0; start < missing.size(); start += BATCH_SIZE) {
+      List<String> ids = missing.subList(start, Math.min(missing.size(), start + BATCH_SIZE));
+      for (SolrDocument doc : getLeaderDocuments(ids)) {
+        Long version = (Long) doc.getFirstValue(VERSION_FIELD);
+        if (version == null) continue;
+        updates.add(Arrays.asList(UpdateLog.ADD, version, toInputDocument(doc, schema)));
+      }
+    }
+    SchemaField idField = schema.getUniqueKeyField();
+    for (String id : extra) {
+      BytesRefBuilder indexedId = new BytesRefBuilder();
+      idField.getType().readableToIndexed(id, indexedId);
+      // the version the leader deleted the document with isn't known anymore, the one above ours
+      // is enough for the delete to apply
+      long version = -(ourVersions.get(id) + 1);
+      byte[] idBytes = BytesRef.deepCopyOf(indexedId.get()).bytes;
+      updates.add(Arrays.asList(UpdateLog.DELETE, version, idBytes));
+    }
+    updater.applyUpdates(updates, leaderUrl);
+    return true;
+  }
+
+  /** Splits a range of versions into up to {@link #FANOUT} ranges */
+  static List<long[]> split(long low, long high) {
+    List<long[]> ranges = new ArrayList<>(FANOUT);
+    long step = (high - low) / FANOUT + 1;
+    for (long start = low; start <= high; start += step) {
+      long end = Math.min(high, start + step - 1);
+      ranges.add(new long[] {start, end});
+      if (end == high) break;
+    }
+    return ranges;
+  }
+
+  /**
+   * Whether a document can be indexed again from what the real-time get returns, i.e. all its
+   * fields are stored or docValues, except the ones copied from other fields and the ones Solr fills
+   * in. Multi-valued fields must be stored: docValues would return their values sorted and without
+   * duplicates, and the fingerprints of versions wouldn't tell the replica diverged.
+   */
+  static boolean canRebuildDocuments(IndexSchema schema) {
+    SchemaField uniqueKey = schema.getUniqueKeyField();
+    if (uniqueKey == null || !uniqueKey.stored()) return false;
+
+    Set<String> copyFieldTargets = new HashSet<>();
+    for (List<CopyField> copyFields : schema.getCopyFieldsMap().values()) {
+      for (CopyField copyField : copyFields) {
+        String dest = copyField.getDestination().getName();
+        copyFieldTargets.add(dest);
+        String pattern = schema.getDynamicPattern(dest);
+        if (pattern != null) copyFieldTargets.add(pattern);
+      }
+    }
+    for (IndexSchema.DynamicCopy dynamicCopy : schema.getDynamicCopyFields()) {
+      copyFieldTargets.add(dynamicCopy.getDestFieldName());
+    }
+
+    List<SchemaField> fields = new ArrayList<>(schema.getFields().values());
+    fields.addAll(Arrays.asList(schema.getDynamicFieldPrototypes()));
+    for (SchemaField field : fields) {
+      String name = field.getName();
+      if (field.stored()
+          || (field.hasDocValues() && field.useDocValuesAsStored() && !field.multiValued())
+          || copyFieldTargets.contains(name)
+          || name.equals(VERSION_FIELD)
+          || name.equals(IndexSchema.ROOT_FIELD_NAME)
+          || name.equals(IndexSchema.NEST_PATH_FIELD_NAME)) {
+        continue;
+      }
+      log.info("Can't sync ranges of versions since field {} can't be retrieved", name);
+      return false;
+    }
+    return true;
+  }
+
+  private List<VersionRangeFingerprint> getLeaderFingerprints(List<long[]> ranges) {
+    List<VersionRangeFingerprint> fingerprints = new ArrayList<>(ranges.size());
+    for (int start = 0; start < ranges.size(); start += BATCH_SIZE) {
+      List<long[]> batch = ranges.subList(start, Math.min(ranges.size(), start + BATCH_SIZE));
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set("qt", "/get");
+      params.set(DISTRIB, false);
+      params.set("getRangeFingerprints", VersionRangeFingerprint.formatRanges(batch));
+      List<?> rsp = (List<?>) leader.apply(params).get("rangeFingerprints");
+      if (rsp == null || rsp.size() != batch.size()) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            "The leader didn't return the fingerprints of ranges of versions");
+      }
+      for (Object fingerprint : rsp) {
+        fingerprints.add(VersionRangeFingerprint.fromObject(fingerprint));
+      }
+    }
+    return fingerprints;
+  }
+
+  /** The versions of the documents of the leader in the given ranges, null if nested */
+  private Map<String, Long> getLeaderVersions(List<long[]> ranges) {
+    Map<String, Long> versions = new HashMap<>();
+    // leaves have up to LEAF_SIZE documents each
+    int batchSize = 32;
+    for (int start = 0; start < ranges.size(); start += batchSize) {
+      List<long[]> batch = ranges.subList(start, Math.min(ranges.size(), start + batchSize));
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set("qt", "/get");
+      params.set(DISTRIB, false);
+      params.set("getRangeVersions", VersionRangeFingerprint.formatRanges(batch));
+      @SuppressWarnings("unchecked")
+      NamedList<Object> rsp = (NamedList<Object>) leader.apply(params).get("rangeVersions");
+      Map<String, Long> batchVersions = toVersionMap(rsp);
+      if (batchVersions == null) return null;
+      versions.putAll(batchVersions);
+    }
+    return versions;
+  }
+
+  private SolrDocumentList getLeaderDocuments(List<String> ids) {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set("qt", "/get");
+    params.set(DISTRIB, false);
+    params.set("ids", StrUtils.join(ids, ','));
+    SolrDocumentList docs = (SolrDocumentList) leader.apply(params).get("response");
+    return docs == null ? new SolrDocumentList() : docs;
+  }
+
+  /**
+   * @return the version of each id, null if several documents have the same version since they
+   *     are nested
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, Long> toVersionMap(NamedList<Object> rangeVersions) {
+    if (rangeVersions == null) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "No versions returned for the ranges of versions");
+    }
+    List<String> ids = (List<String>) rangeVersions.get("ids");
+    List<Long> versions = (List<Long>) rangeVersions.get("versions");
+    Map<String, Long> result = new HashMap<>();
+    Set<Long> seen = new HashSet<>();
+    for (int i = 0; i < ids.size(); i++) {
+      if (!seen.add(versions.get(i))) return null;
+      result.put(ids.get(i), versions.get(i));
+    }
+    return result;
+  }
+
+  private static SolrInputDocument toInputDocument(SolrDocument doc, IndexSchema schema) {
+    SolrInputDocument sdoc = new SolrInputDocument();
+    for (String name : doc.getFieldNames()) {
+      SchemaField field = schema.getFieldOrNull(name);
+      // copy field targets are filled again when the document is indexed
+      if (field != null && schema.isCopyFieldTarget(field)) continue;
+      sdoc.setField(name, doc.getFieldValues(name));
+    }
+    return sdoc;
+  }
+}
@@ -52,6 +52,7 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.component.RealTimeGetComponent;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.schema.BinaryField;
 import org.apache.solr.schema.CopyField;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.NumericValueFieldType;
@@ -216,11 +217,13 @@ public class AtomicUpdateDocumentMerger {
    * supported), only then is such an update command executed as an in-place update.
    */
   public static boolean isSupportedFieldForInPlaceUpdate(SchemaField schemaField) {
+    // IndexWriter can only update NUMERIC and BINARY docValues, i.e. single valued fields
     return !(schemaField.indexed()
         || schemaField.stored()
         || !schemaField.hasDocValues()
         || schemaField.multiValued()
-        || !(schemaField.getType() instanceof NumericValueFieldType));
+        || !(schemaField.getType() instanceof NumericValueFieldType
+            || schemaField.getType() instanceof BinaryField));
   }
 
   /**
@@ -303,6 +306,12 @@ public class AtomicUpdateDocumentMerger {
         return Collections.emptySet();
       }
 
+      // only numbers can be incremented
+      if (!(schemaField.getType() instanceof NumericValueFieldType)
+          && ((Map<?, ?>) sdoc.getFieldValue(fieldName)).containsKey("inc")) {
+        return Collections.emptySet();
+      }
+
       // if this field has copy target which is not supported for in place, then empty
       for (CopyField copyField : schema.getCopyFieldsList(fieldName)) {
         if (!isSupportedFieldForInPlaceUpdate(copyField.getDestination()))
@@ -442,7 +451,12 @@ public class AtomicUpdateDocumentMerger {
     for (String fieldName : oldDocument.getFieldNames()) {
       SchemaField schemaField = schema.getField(fieldName);
       if (fieldName.equals(uniqueKeyField) || isSupportedFieldForInPlaceUpdate(schemaField)) {
-        partialDoc.addField(fieldName, oldDocument.getFieldValue(fieldName));
+        Object value = oldDocument.getFieldValue(fieldName);
+        if (value instanceof BytesRef) {
+          // binary docValues read from the index; make it serializable for the tlog and replicas
+          value = schemaField.getType().toNativeType(value);
+        }
+        partialDoc.addField(fieldName, value);
       }
     }
 
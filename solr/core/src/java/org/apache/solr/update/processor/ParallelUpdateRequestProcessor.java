@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update.processor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.Hash;
+import org.apache.solr.common.util.IOUtils;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.DeleteUpdateCommand;
+import org.apache.solr.update.MergeIndexesCommand;
+import org.apache.solr.update.RollbackUpdateCommand;
+import org.apache.solr.util.OrderedExecutor;
+
+/**
+ * Runs the adds and deletes-by-id of a single update request through a pool of processor chains,
+ * so that the field mutating processors, {@link org.apache.solr.update.DocumentBuilder} and Lucene
+ * analysis of a large batch can use more than one core. The loader keeps parsing on the request
+ * thread while each parsed command is handed to a worker.
+ *
+ * <p>Commands for the same (root) id are always applied in the order in which they were parsed,
+ * by keying an {@link OrderedExecutor} on a hash of that id.
+ * Commands that affect the whole index (delete-by-query, commit, rollback and merge) act as a
+ * barrier: all outstanding work is waited for before they are run on the request thread.
+ *
+ * <p>As when the commands are processed one after the other, a failure fails the request and the
+ * commands parsed before the failed one are still applied, while the ones parsed after it are
+ * skipped unless a worker already started them.
+ *
+ * <p>URPs aren't thread-safe, so every worker thread lazily gets its own processor created from
+ * the same chain, just like during {@link org.apache.solr.update.UpdateLog} replay. The worker
+ * chains don't include the {@link LogUpdateProcessorFactory} and write to their own response,
+ * which is merged into the response of the request once they are finished, so that the request is
+ * logged once and reports the lowest replication factor achieved by any of the workers.
+ */
+public class ParallelUpdateRequestProcessor extends UpdateRequestProcessor {
+  private final SolrQueryRequest req;
+  private final SolrQueryResponse rsp;
+  private final UpdateRequestProcessorChain workerChain;
+  private final UpdateRequestProcessor mainProcessor;
+  private final OrderedExecutor executor;
+  // keyed by thread rather than held in a ThreadLocal, so that the processors don't outlive the
+  // request in the (shared) executor threads
+  private final Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingTasks = new AtomicInteger(0);
+  private final AtomicInteger numAdds = new AtomicInteger(0);
+  private final AtomicInteger numDeletes = new AtomicInteger(0);
+  // the commands are numbered in the order they were parsed, so that a failure only skips the
+  // commands that come after the failed one, like when they are processed one after the other
+  private final AtomicLong submittedCommands = new AtomicLong(0);
+  // the first failed command, and its failure
+  private volatile long failedCommand = Long.MAX_VALUE;
+  private Throwable failure;
+
+  /**
+   * @param chain the chain used to create the per-thread processors
+   * @param parallelism the maximum number of commands of this request processed concurrently
+   * @param delegate the (unbounded) pool running the work; it is not shut down by this class
+   */
+  public ParallelUpdateRequestProcessor(
+      UpdateRequestProcessorChain chain,
+      SolrQueryRequest req,
+      SolrQueryResponse rsp,
+      int parallelism,
+      ExecutorService delegate) {
+    super(null);
+    this.req = req;
+    this.rsp = rsp;
+    List<UpdateRequestProcessorFactory> workerFactories =
+        chain.getProcessors().stream()
+            .filter(factory -> !(factory instanceof LogUpdateProcessorFactory))
+            .collect(Collectors.toList());
+    this.workerChain = new UpdateRequestProcessorChain(workerFactories, req.getCore());
+    this.mainProcessor = chain.createProcessor(req, rsp);
+    this.executor = new OrderedExecutor(parallelism, delegate);
+  }
+
+  @Override
+  public void processAdd(AddUpdateCommand cmd) throws IOException {
+    checkFailure();
+    // loaders reuse the command object, clear() only drops references so a shallow copy is enough
+    AddUpdateCommand copy = (AddUpdateCommand) cmd.clone();
+    numAdds.incrementAndGet();
+    submit(getLockId(cmd.solrDoc), () -> getWorkerProcessor().processAdd(copy));
+  }
+
+  @Override
+  public void processDelete(DeleteUpdateCommand cmd) throws IOException {
+    checkFailure();
+    if (cmd.isDeleteById()) {
+      DeleteUpdateCommand copy = (DeleteUpdateCommand) cmd.clone();
+      numDeletes.incrementAndGet();
+      submit(hash(cmd.getId()), () -> getWorkerProcessor().processDelete(copy));
+    } else {
+      awaitPendingTasks();
+      mainProcessor.processDelete(cmd);
+    }
+  }
+
+  @Override
+  public void processMergeIndexes(MergeIndexesCommand cmd) throws IOException {
+    awaitPendingTasks();
+    mainProcessor.processMergeIndexes(cmd);
+  }
+
+  @Override
+  public void processCommit(CommitUpdateCommand cmd) throws IOException {
+    awaitPendingTasks();
+    mainProcessor.processCommit(cmd);
+  }
+
+  @Override
+  public void processRollback(RollbackUpdateCommand cmd) throws IOException {
+    awaitPendingTasks();
+    mainProcessor.processRollback(cmd);
+  }
+
+  @Override
+  public void finish() throws IOException {
+    try {
+      awaitPendingTasks();
+    } finally {
+      // every chain must be finished, even if one of them failed, since DUP waits for replicas
+      // in finish()
+      Throwable finishFailure = null;
+      Integer minRf = null;
+      for (Worker worker : workers.values()) {
+        try {
+          worker.proc.finish();
+        } catch (IOException | RuntimeException e) {
+          if (finishFailure == null) finishFailure = e;
+          else finishFailure.addSuppressed(e);
+        }
+        minRf = minRf(minRf, worker.rsp.getResponseHeader().remove(UpdateRequest.REPFACT));
+        mergeResponse(worker.rsp);
+      }
+      // logged by the main chain's LogUpdateProcessor, which doesn't see the parallel commands
+      rsp.addToLog("parallelAdds", numAdds.get());
+      rsp.addToLog("parallelDeletes", numDeletes.get());
+      try {
+        mainProcessor.finish();
+      } catch (IOException | RuntimeException e) {
+        if (finishFailure == null) finishFailure = e;
+        else finishFailure.addSuppressed(e);
+      }
+      NamedList<Object> header = rsp.getResponseHeader();
+      if (header != null) {
+        // after the main chain's, e.g. to add the errors tolerated by the workers to its own
+        for (Worker worker : workers.values()) {
+          merge(header, worker.rsp.getResponseHeader());
+        }
+        if (minRf != null) {
+          header.add(UpdateRequest.REPFACT, minRf(minRf, header.remove(UpdateRequest.REPFACT)));
+        }
+      }
+      if (finishFailure != null) {
+        rethrow(finishFailure);
+      }
+    }
+  }
+
+  @Override
+  protected void doClose() {
+    for (Worker worker : workers.values()) {
+      IOUtils.closeQuietly(worker.proc);
+    }
+    workers.clear();
+    IOUtils.closeQuietly(mainProcessor);
+  }
+
+  private UpdateRequestProcessor getWorkerProcessor() {
+    return workers.computeIfAbsent(Thread.currentThread(), t -> new Worker()).proc;
+  }
+
+  /**
+   * Adds the values a worker chain wrote to its own response to the response of the request. Its
+   * header is merged once the main chain is finished.
+   */
+  private void mergeResponse(SolrQueryResponse workerRsp) {
+    merge(rsp.getValues(), workerRsp.getValues());
+    if (workerRsp.getException() != null && rsp.getException() == null) {
+      rsp.setException(workerRsp.getException());
+    }
+  }
+
+  /**
+   * Merges lists recursively and concatenates collections. Other values are only added if the
+   * target doesn't have them yet, e.g. the maxErrors of every TolerantUpdateProcessor.
+   */
+  @SuppressWarnings("unchecked")
+  private static void merge(NamedList<Object> target, NamedList<Object> source) {
+    for (Map.Entry<String, Object> entry : source) {
+      int index = target.indexOf(entry.getKey(), 0);
+      Object existing = index < 0 ? null : target.getVal(index);
+      Object value = entry.getValue();
+      if (existing instanceof NamedList && value instanceof NamedList) {
+        merge((NamedList<Object>) existing, (NamedList<Object>) value);
+      } else if (existing instanceof Collection && value instanceof Collection) {
+        // the existing one may not be modifiable
+        List<Object> merged = new ArrayList<>((Collection<Object>) existing);
+        merged.addAll((Collection<Object>) value);
+        target.setVal(index, merged);
+      } else if (index < 0) {
+        target.add(entry.getKey(), value);
+      }
+    }
+  }
+
+  private static Integer minRf(Integer rf, Object other) {
+    if (!(other instanceof Number)) return rf;
+    int otherRf = ((Number) other).intValue();
+    return rf == null ? otherRf : Math.min(rf, otherRf);
+  }
+
+  private void submit(Integer lockId, IORunnable task) {
+    long command = submittedCommands.getAndIncrement();
+    pendingTasks.incrementAndGet();
+    try {
+      executor.execute(
+          lockId,
+          () -> {
+            try {
+              // skip the commands after a failed one, but not the ones before it
+              if (command > failedCommand) return;
+              task.run();
+            } catch (Throwable t) {
+              onFailure(command, t);
+            } finally {
+              taskDone();
+            }
+          });
+    } catch (RuntimeException e) {
+      taskDone();
+      throw e;
+    }
+  }
+
+  private void awaitPendingTasks() throws IOException {
+    synchronized (pendingTasks) {
+      try {
+        while (pendingTasks.get() != 0) {
+          pendingTasks.wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolrException(ErrorCode.SERVER_ERROR, e);
+      }
+    }
+    checkFailure();
+  }
+
+  private void taskDone() {
+    if (pendingTasks.decrementAndGet() == 0) {
+      synchronized (pendingTasks) {
+        pendingTasks.notifyAll();
+      }
+    }
+  }
+
+  private synchronized void onFailure(long command, Throwable t) {
+    if (command < failedCommand) {
+      failedCommand = command;
+      failure = t;
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    Throwable t;
+    synchronized (this) {
+      t = failure;
+    }
+    if (t != null) {
+      rethrow(t);
+    }
+  }
+
+  private static void rethrow(Throwable t) throws IOException {
+    if (t instanceof IOException) throw (IOException) t;
+    if (t instanceof RuntimeException) throw (RuntimeException) t;
+    if (t instanceof Error) throw (Error) t;
+    throw new SolrException(ErrorCode.SERVER_ERROR, t);
+  }
+
+  /**
+   * The key used to order the commands of one document. The uniqueKey is read from the document
+   * as-is, since processors that run later may still fill it in (e.g. a UUID processor).
+   *
+   * @return null if the document has no id yet, in which case no ordering is needed
+   */
+  private Integer getLockId(SolrInputDocument doc) {
+    if (doc == null) return null;
+    Object root = doc.getFieldValue(IndexSchema.ROOT_FIELD_NAME);
+    if (root != null) return hash(root.toString());
+    SchemaField uniqueKey = req.getSchema().getUniqueKeyField();
+    if (uniqueKey == null) return null;
+    Object id = doc.getFieldValue(uniqueKey.getName());
+    return id == null ? null : hash(id.toString());
+  }
+
+  private static Integer hash(String id) {
+    if (id == null) return null;
+    return Hash.murmurhash3_x86_32(id, 0, id.length(), 0);
+  }
+
+  /** The processor chain of one worker thread, and the response it writes to. */
+  private class Worker {
+    final SolrQueryResponse rsp = new SolrQueryResponse();
+    final UpdateRequestProcessor proc;
+
+    Worker() {
+      rsp.addResponseHeader(new SimpleOrderedMap<>());
+      proc = workerChain.createProcessor(req, rsp);
+    }
+  }
+
+  @FunctionalInterface
+  private interface IORunnable {
+    void run() throws IOException;
+  }
+}
@@ -108,4 +108,42 @@ public class ClusterStateTest extends SolrTestCaseJ4 {
         "Provided liveNodes not used properly", 2, loadedClusterState.getLiveNodes().size());
     assertEquals("Should not have collections", 0, loadedClusterState.getCollectionsMap().size());
   }
+
+  @Test
+  public void testJavabinState() {
+    Map<String, Object> props = new HashMap<>();
+    String nodeName = "node1:10000_solr";
+    props.put(ZkStateReader.NODE_NAME_PROP, nodeName);
+    props.put(ZkStateReader.BASE_URL_PROP, Utils.getBaseUrlForNodeName(nodeName, "http"));
+    props.put(ZkStateReader.CORE_NAME_PROP, "core1");
+    props.put(ZkStateReader.REPLICATION_FACTOR, 1);
+    Replica replica = new Replica("core_node1", props, "collection1", "shard1");
+    Map<String, Object> sliceProps = new HashMap<>();
+    sliceProps.put(Slice.SliceStateProps.RANGE, DocRouter.DEFAULT.fullRange());
+    Slice slice = new Slice("shard1", Map.of("core_node1", replica), sliceProps, "collection1");
+    DocCollection collection =
+        DocCollection.create(
+            "collection1", Map.of("shard1", slice), props, DocRouter.DEFAULT, 0, null);
+
+    byte[] json = ClusterState.serializeCollectionState(collection);
+    assertFalse(ClusterState.isJavabinState(json));
+    byte[] javabin;
+    System.setProperty(ClusterState.JAVABIN_STATE_PROP, "true");
+    try {
+      javabin = ClusterState.serializeCollectionState(collection);
+    } finally {
+      System.clearProperty(ClusterState.JAVABIN_STATE_PROP);
+    }
+    assertTrue(ClusterState.isJavabinState(javabin));
+    assertTrue(javabin.length < json.length);
+
+    // both formats are read the same
+    DocCollection fromJson =
+        ClusterState.createFromJson(0, json, Set.of(), null).getCollection("collection1");
+    DocCollection fromJavabin =
+        ClusterState.createFromJson(0, javabin, Set.of(), null).getCollection("collection1");
+    assertEquals(Utils.toJSONString(fromJson), Utils.toJSONString(fromJavabin));
+    assertEquals(DocRouter.DEFAULT.fullRange(), fromJavabin.getSlice("shard1").getRange());
+    assertEquals("core1", fromJavabin.getReplica("core_node1").getCoreName());
+  }
 }
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.SolrZkClient;
+import org.apache.solr.common.cloud.ZkNodeProps;
+import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.zookeeper.data.Stat;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DistributedClusterStateUpdaterTest extends SolrCloudTestCase {
+  private static final String COLLECTION = "batched";
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    configureCluster(1)
+        .withDistributedClusterStateUpdates(false, true)
+        .addConfig(
+            "conf", TEST_PATH().resolve("configsets").resolve("cloud-minimal").resolve("conf"))
+        .configure();
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", 4, 2)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 4, 8);
+  }
+
+  @Test
+  public void testConcurrentUpdatesOfCollection() throws Exception {
+    ZkController zkController = cluster.getJettySolrRunner(0).getCoreContainer().getZkController();
+    DistributedClusterStateUpdater updater = zkController.getDistributedClusterStateUpdater();
+    assertTrue(updater.isDistributedStateUpdate());
+    SolrZkClient zkClient = zkController.getZkClient();
+    String path = DocCollection.getCollectionPath(COLLECTION);
+    int initialVersion = zkClient.exists(path, null, true).getVersion();
+
+    int numPropertiesPerReplica = 10;
+    List<Replica> replicas =
+        cluster.getSolrClient().getClusterState().getCollection(COLLECTION).getReplicas();
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            16, new SolrNamedThreadFactory("DistributedClusterStateUpdaterTest"));
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (Replica replica : replicas) {
+        for (int i = 0; i < numPropertiesPerReplica; i++) {
+          ZkNodeProps message =
+              new ZkNodeProps(
+                  ZkStateReader.COLLECTION_PROP,
+                  COLLECTION,
+                  ZkStateReader.SHARD_ID_PROP,
+                  replica.getShard(),
+                  ZkStateReader.REPLICA_PROP,
+                  replica.getName(),
+                  ZkStateReader.PROPERTY_PROP,
+                  "batched" + i,
+                  ZkStateReader.PROPERTY_VALUE_PROP,
+                  Integer.toString(i));
+          futures.add(
+              executor.submit(
+                  () -> {
+                    updater.doSingleStateUpdate(
+                        DistributedClusterStateUpdater.MutatingCommand.ReplicaAddReplicaProperty,
+                        message,
+                        zkController.getSolrCloudManager(),
+                        zkController.getZkStateReader());
+                    return null;
+                  }));
+        }
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+
+    // no update was lost, and concurrent updates were written together
+    Stat stat = new Stat();
+    byte[] data = zkClient.getData(path, null, stat, true);
+    DocCollection collection =
+        ClusterState.createFromJson(stat.getVersion(), data, Set.of(), null)
+            .getCollection(COLLECTION);
+    for (Replica replica : collection.getReplicas()) {
+      for (int i = 0; i < numPropertiesPerReplica; i++) {
+        assertEquals(Integer.toString(i), replica.getProperty("property.batched" + i));
+      }
+    }
+    int numUpdates = replicas.size() * numPropertiesPerReplica;
+    assertTrue(stat.getVersion() - initialVersion <= numUpdates);
+  }
+
+  @Test
+  public void testFailingUpdateDoesNotFailBatch() throws Exception {
+    ZkController zkController = cluster.getJettySolrRunner(0).getCoreContainer().getZkController();
+    DistributedClusterStateUpdater updater = zkController.getDistributedClusterStateUpdater();
+    List<Replica> replicas =
+        cluster.getSolrClient().getClusterState().getCollection(COLLECTION).getReplicas();
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            16, new SolrNamedThreadFactory("DistributedClusterStateUpdaterTest"));
+    try {
+      List<Future<Void>> validUpdates = new ArrayList<>();
+      List<Future<Void>> invalidUpdates = new ArrayList<>();
+      for (Replica replica : replicas) {
+        for (boolean valid : new boolean[] {true, false}) {
+          // an ADDREPLICAPROP without a value can't be applied
+          ZkNodeProps message =
+              new ZkNodeProps(
+                  ZkStateReader.COLLECTION_PROP,
+                  COLLECTION,
+                  ZkStateReader.SHARD_ID_PROP,
+                  replica.getShard(),
+                  ZkStateReader.REPLICA_PROP,
+                  replica.getName(),
+                  ZkStateReader.PROPERTY_PROP,
+                  "failing",
+                  ZkStateReader.PROPERTY_VALUE_PROP,
+                  valid ? "ok" : null);
+          (valid ? validUpdates : invalidUpdates)
+              .add(
+                  executor.submit(
+                      () -> {
+                        updater.doSingleStateUpdate(
+                            DistributedClusterStateUpdater.MutatingCommand
+                                .ReplicaAddReplicaProperty,
+                            message,
+                            zkController.getSolrCloudManager(),
+                            zkController.getZkStateReader());
+                        return null;
+                      }));
+        }
+      }
+      for (Future<Void> future : validUpdates) {
+        future.get();
+      }
+      for (Future<Void> future : invalidUpdates) {
+        ExecutionException e = expectThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause().toString(), e.getCause() instanceof SolrException);
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+
+    // the valid updates of the batches were all written
+    waitForState(
+        "Expected every replica to have the property",
+        COLLECTION,
+        (liveNodes, collection) ->
+            collection != null
+                && collection.getReplicas().stream()
+                    .allMatch(r -> "ok".equals(r.getProperty("property.failing"))));
+  }
+}
@@ -25,16 +25,20 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
 import org.apache.solr.client.solrj.request.CollectionAdminRequest;
 import org.apache.solr.client.solrj.request.CoreAdminRequest;
 import org.apache.solr.client.solrj.response.CoreAdminResponse;
+import org.apache.solr.cloud.api.collections.ReplicaMigrationUtils;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.cloud.CollectionStateWatcher;
 import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Slice;
@@ -312,6 +316,66 @@ public class ReplaceNodeTest extends SolrCloudTestCase {
         () -> createReplaceNodeRequest(liveNode, null, null).process(cloudClient));
   }
 
+  @Test
+  public void testLimitedMovesPerNode() throws Exception {
+    System.setProperty(ReplicaMigrationUtils.MAX_MOVES_PER_NODE_PROP, "1");
+    try {
+      configureCluster(2)
+          .addConfig(
+              "conf1", TEST_PATH().resolve("configsets").resolve("cloud-dynamic").resolve("conf"))
+          .configure();
+      String coll = "replacenodelimitedtest_coll";
+      CloudSolrClient cloudClient = cluster.getSolrClient();
+      String sourceNode = cluster.getJettySolrRunner(0).getNodeName();
+      String targetNode = cluster.getJettySolrRunner(1).getNodeName();
+      cloudClient.request(
+          CollectionAdminRequest.createCollection(coll, "conf1", 4, 1, 0, 0)
+              .setCreateNodeSet(sourceNode));
+      cluster.waitForActiveCollection(coll, 4, 4);
+
+      // a shard being moved has both its old and its new replica, record how many at once per node
+      Map<String, Integer> maxMovesPerNode = new ConcurrentHashMap<>();
+      CollectionStateWatcher movesRecorder =
+          (liveNodes, collectionState) -> {
+            if (collectionState == null) {
+              return false;
+            }
+            Map<String, Integer> movesPerNode = new HashMap<>();
+            for (Slice slice : collectionState) {
+              if (slice.getReplicas().size() > 1) {
+                slice.getReplicas().stream()
+                    .map(Replica::getNodeName)
+                    .distinct()
+                    .forEach(node -> movesPerNode.merge(node, 1, Integer::sum));
+              }
+            }
+            movesPerNode.forEach((node, moves) -> maxMovesPerNode.merge(node, moves, Math::max));
+            return false;
+          };
+      ZkStateReader zkStateReader = ZkStateReader.from(cloudClient);
+      zkStateReader.registerCollectionStateWatcher(coll, movesRecorder);
+      try {
+        // parallel, but the replicas are still moved one at a time, all of them are moved
+        createReplaceNodeRequest(sourceNode, targetNode, true)
+            .processAndWait("000", cloudClient, 60);
+      } finally {
+        zkStateReader.removeCollectionStateWatcher(coll, movesRecorder);
+      }
+      assertEquals(
+          "maximum number of concurrent moves per node",
+          Map.of(sourceNode, 1, targetNode, 1),
+          maxMovesPerNode);
+      DocCollection collection = cloudClient.getClusterState().getCollection(coll);
+      assertNull(collection.getReplicas(sourceNode));
+      assertEquals(4, collection.getReplicas(targetNode).size());
+      for (Replica replica : collection.getReplicas()) {
+        assertEquals(Replica.State.ACTIVE, replica.getState());
+      }
+    } finally {
+      System.clearProperty(ReplicaMigrationUtils.MAX_MOVES_PER_NODE_PROP);
+    }
+  }
+
   public static CollectionAdminRequest.AsyncCollectionAdminRequest createReplaceNodeRequest(
       String sourceNode, String targetNode, Boolean parallel) {
     if (random().nextBoolean()) {
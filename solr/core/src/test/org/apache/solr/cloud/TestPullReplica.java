@@ -19,6 +19,9 @@ package org.apache.solr.cloud;
 import com.carrotsearch.randomizedtesting.annotations.Repeat;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -28,11 +31,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -54,7 +59,10 @@ import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.embedded.JettySolrRunner;
+import org.apache.solr.handler.IndexFetcher;
 import org.apache.solr.util.LogLevel;
+import org.apache.solr.util.LogListener;
+import org.apache.solr.util.RefCounted;
 import org.apache.solr.util.TestInjection;
 import org.apache.solr.util.TimeOut;
 import org.apache.zookeeper.KeeperException;
@@ -385,6 +393,124 @@ public class TestPullReplica extends SolrCloudTestCase {
     assertNumberOfReplicas(2, 0, 1, true, true);
   }
 
+  public void testCommitsAreAnnouncedToPullReplicas() throws Exception {
+    CollectionAdminRequest.createCollection(collectionName, "conf", 1, 1, 0, 1)
+        .process(cluster.getSolrClient());
+    waitForState(
+        "Expected collection to be created with 1 shard and 2 replicas",
+        collectionName,
+        clusterShape(1, 2));
+    DocCollection docCollection = assertNumberOfReplicas(1, 0, 1, false, true);
+    Slice slice = docCollection.getSlices().iterator().next();
+    Replica pullReplica = slice.getReplicas(EnumSet.of(Replica.Type.PULL)).get(0);
+
+    try (LogListener announced =
+        LogListener.debug(ReplicateFromLeader.class).substring("The leader announced commit")) {
+      cluster.getSolrClient().add(collectionName, new SolrInputDocument("id", "1", "foo", "bar"));
+      cluster.getSolrClient().commit(collectionName);
+      waitForNumDocsInAllReplicas(1, List.of(pullReplica));
+
+      TimeOut t = new TimeOut(REPLICATION_TIMEOUT_SECS, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+      while (announced.getCount() == 0) {
+        if (t.hasTimedOut()) fail("The commit wasn't announced to the PULL replica");
+        Thread.sleep(100);
+      }
+      announced.getQueue().clear();
+    }
+
+    ReplicateFromLeader replicateFromLeader =
+        cluster
+            .getReplicaJetty(pullReplica)
+            .getCoreContainer()
+            .getZkController()
+            .getReplicateFromLeader(pullReplica.getCoreName());
+    assertNotNull(replicateFromLeader);
+    // the lag is reset once the poll listener saw the new commit
+    TimeOut t = new TimeOut(REPLICATION_TIMEOUT_SECS, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+    while (replicateFromLeader.getReplicationLagBytes() != 0) {
+      if (t.hasTimedOut()) fail("The replication lag wasn't reset");
+      Thread.sleep(100);
+    }
+    assertEquals(0, replicateFromLeader.getReplicationLagMs());
+  }
+
+  @Test
+  public void testMergedSegmentsArePreCopiedByPullReplicas() throws Exception {
+    CollectionAdminRequest.createCollection(collectionName, "conf", 1, 1, 0, 1)
+        .process(cluster.getSolrClient());
+    waitForState(
+        "Expected collection to be created with 1 shard and 2 replicas",
+        collectionName,
+        clusterShape(1, 2));
+    DocCollection docCollection = assertNumberOfReplicas(1, 0, 1, false, true);
+    Slice slice = docCollection.getSlices().iterator().next();
+    Replica leader = slice.getLeader();
+    Replica pullReplica = slice.getReplicas(EnumSet.of(Replica.Type.PULL)).get(0);
+
+    System.setProperty(IndexChangeAnnouncer.PRECOPY_MIN_BYTES_PROP, "0");
+    try (SolrCore leaderCore =
+            cluster.getReplicaJetty(leader).getCoreContainer().getCore(leader.getCoreName());
+        SolrCore pullCore =
+            cluster
+                .getReplicaJetty(pullReplica)
+                .getCoreContainer()
+                .getCore(pullReplica.getCoreName())) {
+      assumeTrue(
+          "Pre-copying requires a persistent directory",
+          pullCore.getDirectoryFactory().isPersistent());
+      for (int i = 0; i < 3; i++) {
+        cluster.getSolrClient().add(collectionName, new SolrInputDocument("id", String.valueOf(i)));
+        cluster.getSolrClient().commit(collectionName);
+      }
+      waitForNumDocsInAllReplicas(3, List.of(pullReplica));
+
+      // merge without committing, so that the replica can only get the segment by pre-copying it
+      RefCounted<IndexWriter> iw = leaderCore.getSolrCoreState().getIndexWriter(leaderCore);
+      try {
+        iw.get().forceMerge(1);
+      } finally {
+        iw.decref();
+      }
+
+      Path preCopyPath = Path.of(pullCore.getDataDir(), IndexFetcher.PRECOPY_DIR);
+      Path preCopied = null;
+      TimeOut t = new TimeOut(REPLICATION_TIMEOUT_SECS, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+      while (preCopied == null) {
+        if (t.hasTimedOut()) fail("The merged segment wasn't pre-copied by the PULL replica");
+        if (Files.isDirectory(preCopyPath)) {
+          try (Stream<Path> files = Files.list(preCopyPath)) {
+            preCopied =
+                files.filter(f -> !f.toString().endsWith(".part")).findFirst().orElse(null);
+          }
+        }
+        if (preCopied == null) Thread.sleep(100);
+      }
+      Object fileKey = Files.readAttributes(preCopied, BasicFileAttributes.class).fileKey();
+      assumeTrue("The filesystem doesn't identify files", fileKey != null);
+
+      cluster.getSolrClient().commit(collectionName);
+      long leaderGeneration = getCommitGeneration(leaderCore);
+      t = new TimeOut(REPLICATION_TIMEOUT_SECS, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+      while (getCommitGeneration(pullCore) < leaderGeneration) {
+        if (t.hasTimedOut()) fail("The PULL replica didn't replicate the merged segment");
+        Thread.sleep(100);
+      }
+
+      // the pre-copied file was moved into the index rather than downloaded again
+      Path indexed = Path.of(pullCore.getIndexDir()).resolve(preCopied.getFileName());
+      assertTrue("Missing " + indexed, Files.exists(indexed));
+      assertEquals(fileKey, Files.readAttributes(indexed, BasicFileAttributes.class).fileKey());
+      assertFalse(Files.exists(preCopied));
+    } finally {
+      System.clearProperty(IndexChangeAnnouncer.PRECOPY_MIN_BYTES_PROP);
+    }
+  }
+
+  private static long getCommitGeneration(SolrCore core) throws IOException {
+    return core.withSearcher(
+        searcher -> searcher.getIndexReader().getIndexCommit().getGeneration());
+  }
+
   @Test
   public void testRemoveAllWriterReplicas() throws Exception {
     doTestNoLeader(true);
@@ -19,17 +19,25 @@ package org.apache.solr.cloud.api.collections;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
 import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.response.RequestStatusState;
 import org.apache.solr.cloud.MiniSolrCloudCluster;
 import org.apache.solr.cloud.ZkConfigSetService;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.core.backup.repository.LocalFileSystemRepository;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -115,6 +123,66 @@ public class TestLocalFSCloudBackupRestore extends AbstractCloudBackupRestoreTes
     errorRestore(solrClient);
   }
 
+  @Test
+  public void testConcurrentShardRestore() throws Exception {
+    CloudSolrClient solrClient = cluster.getSolrClient();
+    String collectionName = "concurrentrestore";
+    String restoreCollectionName = collectionName + "_restored";
+    int numShards = 4;
+    CollectionAdminRequest.createCollection(collectionName, "conf1", numShards, 1)
+        .process(solrClient);
+    cluster.waitForActiveCollection(collectionName, numShards, numShards);
+    List<SolrInputDocument> docs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      docs.add(new SolrInputDocument("id", String.valueOf(i)));
+    }
+    solrClient.add(collectionName, docs);
+    solrClient.commit(collectionName);
+
+    CollectionAdminRequest.backupCollection(collectionName, "concurrentbackup")
+        .setLocation(backupLocation)
+        .setRepositoryName(getBackupRepoName())
+        .process(solrClient);
+
+    // fewer threads than shards, so that some shards wait for others to be restored
+    System.setProperty(RestoreCmd.MAX_CONCURRENT_SHARD_RESTORES_PROP, "2");
+    try {
+      RequestStatusState state =
+          CollectionAdminRequest.restoreCollection(restoreCollectionName, "concurrentbackup")
+              .setLocation(backupLocation)
+              .setRepositoryName(getBackupRepoName())
+              .setReplicationFactor(2)
+              .processAndWait(solrClient, 120);
+      assertEquals(RequestStatusState.COMPLETED, state);
+    } finally {
+      System.clearProperty(RestoreCmd.MAX_CONCURRENT_SHARD_RESTORES_PROP);
+    }
+
+    cluster.waitForActiveCollection(restoreCollectionName, numShards, 2 * numShards);
+    DocCollection original = getCollectionState(collectionName);
+    DocCollection restored = getCollectionState(restoreCollectionName);
+    for (Slice slice : restored.getSlices()) {
+      assertEquals(Slice.State.ACTIVE, slice.getState());
+      assertEquals(2, slice.getReplicas().size());
+      for (Replica replica : slice.getReplicas()) {
+        assertEquals(Replica.State.ACTIVE, replica.getState());
+      }
+      assertEquals(
+          getNumDocs(solrClient, collectionName, original.getSlice(slice.getName())),
+          getNumDocs(solrClient, restoreCollectionName, slice));
+    }
+    assertEquals(
+        docs.size(),
+        solrClient.query(restoreCollectionName, new SolrQuery("*:*")).getResults().getNumFound());
+  }
+
+  private static long getNumDocs(CloudSolrClient solrClient, String collection, Slice slice)
+      throws SolrServerException, IOException {
+    SolrQuery query = new SolrQuery("*:*");
+    query.set("shards", slice.getName());
+    return solrClient.query(collection, query).getResults().getNumFound();
+  }
+
   private void errorRestore(CloudSolrClient solrClient) throws SolrServerException, IOException {
     String backupName = BACKUPNAME_PREFIX + testSuffix;
     CollectionAdminRequest.Restore restore =
@@ -20,11 +20,14 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -55,6 +58,7 @@ import org.apache.solr.common.util.ZLibCompressor;
 import org.apache.solr.handler.admin.ConfigSetsHandler;
 import org.apache.solr.util.LogLevel;
 import org.apache.solr.util.TimeOut;
+import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.junit.After;
 import org.junit.Before;
@@ -784,4 +788,131 @@ public class ZkStateReaderTest extends SolrTestCaseJ4 {
       assertTrue(prsZkNodeNotFoundExceptionThrown.get());
     }
   }
+
+  /**
+   * Changes of the state of many collections made within a short time are read and notified once
+   * per collection
+   */
+  public void testCoalescedRefreshesOfManyCollections() throws Exception {
+    ZkStateWriter writer = fixture.writer;
+    ZkStateReader reader = fixture.reader;
+    int numCollections = 1000;
+
+    List<ZkWriteCommand> commands = new ArrayList<>();
+    for (int i = 0; i < numCollections; i++) {
+      String name = "c" + i;
+      fixture.zkClient.makePath(ZkStateReader.COLLECTIONS_ZKNODE + "/" + name, true);
+      commands.add(
+          new ZkWriteCommand(
+              name,
+              DocCollection.create(
+                  name,
+                  new HashMap<>(),
+                  Map.of(ZkStateReader.CONFIGNAME_PROP, ConfigSetsHandler.DEFAULT_CONFIGSET_NAME),
+                  DocRouter.DEFAULT,
+                  0,
+                  PerReplicaStatesOps.getZkClientPrsSupplier(
+                      fixture.zkClient, DocCollection.getCollectionPath(name)))));
+    }
+    writer.enqueueUpdate(reader.getClusterState(), commands, null);
+    writer.writePendingUpdates();
+
+    Map<String, Integer> versions = new ConcurrentHashMap<>();
+    for (int i = 0; i < numCollections; i++) {
+      String name = "c" + i;
+      reader.registerDocCollectionWatcher(
+          name,
+          collection -> {
+            if (collection != null) versions.put(name, collection.getZNodeVersion());
+            return false;
+          });
+    }
+
+    Map<String, Object> before = fixture.zkClient.getMetrics().toMap(new HashMap<>());
+    // change both the children and the data of state.json (twice), each fires a watch if the
+    // previous one was read already
+    for (int i = 0; i < numCollections; i++) {
+      String path = DocCollection.getCollectionPath("c" + i);
+      fixture.zkClient.create(path + "/ignored", null, CreateMode.PERSISTENT, true);
+      for (int j = 0; j < 2; j++) {
+        fixture.zkClient.setData(path, fixture.zkClient.getData(path, null, null, true), true);
+      }
+    }
+
+    // every watcher sees the final state
+    TimeOut timeOut = new TimeOut(TIMEOUT, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+    timeOut.waitFor(
+        "Not all the collections were refreshed",
+        () -> {
+          for (int i = 0; i < numCollections; i++) {
+            if (!Integer.valueOf(2).equals(versions.get("c" + i))) return false;
+          }
+          return true;
+        });
+    for (int i = 0; i < numCollections; i++) {
+      assertEquals(2, reader.getCollection("c" + i).getZNodeVersion());
+    }
+
+    Map<String, Object> after = fixture.zkClient.getMetrics().toMap(new HashMap<>());
+    long refreshes = delta(before, after, "stateRefreshes");
+    // only the state watches of the collections fire meanwhile
+    long watchesFired = delta(before, after, "watchesFired");
+    assertTrue(
+        "Expected fewer refreshes (" + refreshes + ") than fired watches (" + watchesFired + ")",
+        refreshes < watchesFired);
+    assertTrue(
+        "Expected fewer refreshes (" + refreshes + ") than changes (" + 3 * numCollections + ")",
+        refreshes < 3L * numCollections);
+  }
+
+  private static long delta(Map<String, Object> before, Map<String, Object> after, String metric) {
+    return ((Number) after.get(metric)).longValue() - ((Number) before.get(metric)).longValue();
+  }
+
+  /** The parsed states of collections that aren't watched are evicted beyond a maximum */
+  public void testLazyCollectionsEviction() throws Exception {
+    ZkStateWriter writer = fixture.writer;
+    int numCollections = 5;
+    List<ZkWriteCommand> commands = new ArrayList<>();
+    for (int i = 0; i < numCollections; i++) {
+      String name = "c" + i;
+      fixture.zkClient.makePath(ZkStateReader.COLLECTIONS_ZKNODE + "/" + name, true);
+      commands.add(
+          new ZkWriteCommand(
+              name,
+              DocCollection.create(
+                  name,
+                  new HashMap<>(),
+                  Map.of(ZkStateReader.CONFIGNAME_PROP, ConfigSetsHandler.DEFAULT_CONFIGSET_NAME),
+                  DocRouter.DEFAULT,
+                  0,
+                  PerReplicaStatesOps.getZkClientPrsSupplier(
+                      fixture.zkClient, DocCollection.getCollectionPath(name)))));
+    }
+    writer.enqueueUpdate(fixture.reader.getClusterState(), commands, null);
+    writer.writePendingUpdates();
+
+    System.setProperty(ZkStateReader.MAX_CACHED_LAZY_COLLECTIONS_PROP, "2");
+    try (ZkStateReader reader = new ZkStateReader(fixture.zkClient)) {
+      reader.createClusterStateWatchersAndUpdate();
+      Map<String, DocCollection> states = new HashMap<>();
+      for (int i = 0; i < numCollections; i++) {
+        String name = "c" + i;
+        assertTrue(reader.getClusterState().getCollectionRef(name).isLazilyLoaded());
+        states.put(name, reader.getClusterState().getCollection(name));
+      }
+      Map<String, Object> metrics = fixture.zkClient.getMetrics().toMap(new HashMap<>());
+      assertEquals(3L, ((Number) metrics.get("lazyCollectionStatesEvicted")).longValue());
+
+      // evicted states are rebuilt without reading them from ZooKeeper again
+      long reads = ((Number) metrics.get("reads")).longValue();
+      DocCollection state = reader.getClusterState().getCollection("c0");
+      assertEquals(states.get("c0").toString(), state.toString());
+      metrics = fixture.zkClient.getMetrics().toMap(new HashMap<>());
+      assertEquals(reads, ((Number) metrics.get("reads")).longValue());
+      assertEquals(1L, ((Number) metrics.get("lazyCollectionStatesInflated")).longValue());
+    } finally {
+      System.clearProperty(ZkStateReader.MAX_CACHED_LAZY_COLLECTIONS_PROP);
+    }
+  }
 }
@@ -21,6 +21,7 @@ import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.lucene.util.IOUtils;
@@ -43,6 +44,7 @@ import org.apache.solr.common.util.Utils;
 import org.apache.solr.common.util.ZLibCompressor;
 import org.apache.solr.handler.admin.ConfigSetsHandler;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.slf4j.Logger;
@@ -304,6 +306,83 @@ public class ZkStateWriterTest extends SolrTestCaseJ4 {
     }
   }
 
+  public void testParallelWritesOfManyCollections() throws Exception {
+    Path zkDir = createTempDir("testParallelWritesOfManyCollections");
+
+    ZkTestServer server = new ZkTestServer(zkDir);
+
+    SolrZkClient zkClient = null;
+
+    try {
+      server.run();
+
+      zkClient =
+          new SolrZkClient.Builder()
+              .withUrl(server.getZkAddress())
+              .withTimeout(OverseerTest.DEFAULT_CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
+              .build();
+      ZkController.createClusterZkNodes(zkClient);
+
+      try (ZkStateReader reader = new ZkStateReader(zkClient);
+          ZkStateWriter.WritePartitions partitions = new ZkStateWriter.WritePartitions(4)) {
+        reader.createClusterStateWatchersAndUpdate();
+
+        int numCollections = 200;
+        for (int i = 0; i < numCollections; i++) {
+          zkClient.makePath(ZkStateReader.COLLECTIONS_ZKNODE + "/c" + i, true);
+        }
+        ZkStateWriter writer =
+            new ZkStateWriter(reader, new Stats(), -1, STATE_COMPRESSION_PROVIDER, partitions);
+
+        // every collection is created then updated twice, in batches spanning all partitions
+        ClusterState state = reader.getClusterState();
+        for (int round = 0; round < 3; round++) {
+          for (int i = 0; i < numCollections; i++) {
+            String name = "c" + i;
+            DocCollection current = state.getCollectionOrNull(name);
+            Map<String, Object> props = new HashMap<>();
+            props.put(ZkStateReader.CONFIGNAME_PROP, ConfigSetsHandler.DEFAULT_CONFIGSET_NAME);
+            props.put("round", round);
+            DocCollection collection =
+                new DocCollection(
+                    name,
+                    new HashMap<>(),
+                    props,
+                    DocRouter.DEFAULT,
+                    current == null ? 0 : current.getZNodeVersion());
+            state =
+                writer.enqueueUpdate(
+                    state, Collections.singletonList(new ZkWriteCommand(name, collection)), null);
+
+            int pendingUpdates = 0;
+            for (int p = 0; p < partitions.size(); p++) {
+              pendingUpdates += partitions.getPendingUpdates(p);
+            }
+            assertEquals(writer.updates.size(), pendingUpdates);
+          }
+        }
+        state = writer.writePendingUpdates();
+        for (int p = 0; p < partitions.size(); p++) {
+          assertEquals(0, partitions.getPendingUpdates(p));
+        }
+
+        for (int i = 0; i < numCollections; i++) {
+          String name = "c" + i;
+          Stat stat = new Stat();
+          byte[] data = zkClient.getData(DocCollection.getCollectionPath(name), null, stat, true);
+          DocCollection written =
+              ClusterState.createFromJson(stat.getVersion(), data, Set.of(), null)
+                  .getCollection(name);
+          assertEquals(2, ((Number) written.get("round")).intValue());
+          assertEquals(stat.getVersion(), state.getCollection(name).getZNodeVersion());
+        }
+      }
+    } finally {
+      IOUtils.close(zkClient);
+      server.shutdown();
+    }
+  }
+
   public void testSingleExternalCollection() throws Exception {
     Path zkDir = createTempDir("testSingleExternalCollection");
 
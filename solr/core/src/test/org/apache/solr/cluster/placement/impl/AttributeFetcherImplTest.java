@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.cluster.placement.impl;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.client.solrj.cloud.DelegatingCloudManager;
+import org.apache.solr.client.solrj.cloud.NodeStateProvider;
+import org.apache.solr.client.solrj.cloud.SolrCloudManager;
+import org.apache.solr.client.solrj.impl.NodeValueFetcher;
+import org.apache.solr.cluster.Node;
+import org.apache.solr.cluster.placement.AttributeValues;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AttributeFetcherImplTest extends SolrTestCaseJ4 {
+
+  private static final String SYSPROP = "fetched";
+
+  private static ExecutorService executor;
+
+  @BeforeClass
+  public static void setupExecutor() {
+    executor = ExecutorUtil.newMDCAwareCachedThreadPool("attributeFetcherTest");
+  }
+
+  @AfterClass
+  public static void shutdownExecutor() {
+    ExecutorUtil.shutdownAndAwaitTermination(executor);
+    executor = null;
+  }
+
+  @Test
+  public void testFetchFromSeveralNodes() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    SolrCloudManager cloudManager =
+        cloudManager(
+            nodeName -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              try {
+                Thread.sleep(10);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              running.decrementAndGet();
+              return nodeName;
+            });
+    Set<Node> nodes = nodes(AttributeFetcherImpl.MAX_FETCH_THREADS * 3);
+
+    AttributeValues values =
+        new AttributeFetcherImpl(cloudManager, executor)
+            .fetchFrom(nodes)
+            .requestNodeSystemProperty(SYSPROP)
+            .fetchAttributes();
+
+    for (Node node : nodes) {
+      assertEquals(node.getName(), values.getSystemProperty(node, SYSPROP).orElse(null));
+    }
+    assertTrue("not fetched concurrently", maxRunning.get() > 1);
+    assertTrue(
+        "fetched from " + maxRunning.get() + " nodes concurrently",
+        maxRunning.get() <= AttributeFetcherImpl.MAX_FETCH_THREADS);
+    assertFalse(executor.isShutdown());
+  }
+
+  @Test
+  public void testFailingAndSlowNodes() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    SolrCloudManager cloudManager =
+        cloudManager(
+            nodeName -> {
+              if (nodeName.equals("node0")) {
+                throw new IllegalStateException("node0 failed");
+              }
+              // doesn't answer before the assertions, even once the fetch is cancelled
+              while (nodeName.equals("node1") && release.getCount() > 0) {
+                try {
+                  release.await();
+                } catch (InterruptedException e) {
+                  // keep waiting
+                }
+              }
+              return nodeName;
+            });
+    Set<Node> nodes = nodes(5);
+
+    System.setProperty(AttributeFetcherImpl.FETCH_TIMEOUT_MS_PROP, "500");
+    try {
+      long start = System.nanoTime();
+      AttributeValues values =
+          new AttributeFetcherImpl(cloudManager, executor)
+              .fetchFrom(nodes)
+              .requestNodeSystemProperty(SYSPROP)
+              .fetchAttributes();
+      assertTrue(
+          "didn't time out",
+          TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 30);
+
+      for (Node node : nodes) {
+        String value = values.getSystemProperty(node, SYSPROP).orElse(null);
+        if (node.getName().equals("node0") || node.getName().equals("node1")) {
+          assertNull(node.getName(), value);
+        } else {
+          assertEquals(node.getName(), value);
+        }
+      }
+    } finally {
+      System.clearProperty(AttributeFetcherImpl.FETCH_TIMEOUT_MS_PROP);
+      release.countDown();
+    }
+  }
+
+  private static Set<Node> nodes(int numNodes) {
+    Set<Node> nodes = new HashSet<>();
+    for (int i = 0; i < numNodes; i++) {
+      nodes.add(new SimpleClusterAbstractionsImpl.NodeImpl("node" + i));
+    }
+    return nodes;
+  }
+
+  /** A cloud manager whose nodes return the system property computed from their name */
+  private static SolrCloudManager cloudManager(Function<String, String> sysPropValue) {
+    NodeStateProvider nodeStateProvider =
+        new NodeStateProvider() {
+          @Override
+          public Map<String, Object> getNodeValues(String node, Collection<String> tags) {
+            return Map.of(NodeValueFetcher.SYSPROP + SYSPROP, sysPropValue.apply(node));
+          }
+
+          @Override
+          public Map<String, Map<String, List<Replica>>> getReplicaInfo(
+              String node, Collection<String> keys) {
+            return Map.of();
+          }
+
+          @Override
+          public void close() {}
+        };
+    return new DelegatingCloudManager(null) {
+      @Override
+      public NodeStateProvider getNodeStateProvider() {
+        return nodeStateProvider;
+      }
+    };
+  }
+}
@@ -403,7 +403,8 @@ public class PlacementPluginIntegrationTest extends SolrCloudTestCase {
     cluster.waitForActiveCollection(COLLECTION, 2, 4);
     Cluster cluster = new SimpleClusterAbstractionsImpl.ClusterImpl(cloudManager);
     SolrCollection collection = cluster.getCollection(COLLECTION);
-    AttributeFetcher attributeFetcher = new AttributeFetcherImpl(cloudManager);
+    AttributeFetcher attributeFetcher =
+        new AttributeFetcherImpl(cloudManager, cc.getAsyncTaskExecutor());
     NodeMetric<String> someMetricKey = new NodeMetricImpl<>("solr.jvm:system.properties:user.name");
     String sysprop = "user.name";
     attributeFetcher
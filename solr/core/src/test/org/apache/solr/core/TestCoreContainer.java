@@ -35,6 +35,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import java.util.regex.Pattern;
@@ -45,6 +46,7 @@ import org.apache.solr.handler.admin.CollectionsHandler;
 import org.apache.solr.handler.admin.ConfigSetsHandler;
 import org.apache.solr.handler.admin.CoreAdminHandler;
 import org.apache.solr.handler.admin.InfoHandler;
+import org.apache.solr.schema.IndexSchemaFactory;
 import org.apache.solr.servlet.SolrDispatchFilter;
 import org.apache.solr.util.ModuleUtils;
 import org.hamcrest.MatcherAssert;
@@ -126,6 +128,43 @@ public class TestCoreContainer extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testShareParsedConfig() throws Exception {
+    CoreContainer cores = init(CONFIGSETS_SOLR_XML);
+    LongAdder schemaMisses = new LongAdder();
+    LongAdder configMisses = new LongAdder();
+    IndexSchemaFactory.CACHE_MISS_LISTENER =
+        s -> {
+          if ("schema.xml".equals(s)) schemaMisses.increment();
+          if ("solrconfig.xml".equals(s)) configMisses.increment();
+        };
+    try {
+      for (int i = 0; i < 3; i++) {
+        cores.create("core" + i, Map.of("configSet", "minimal"));
+      }
+      // the config files of the configset are only parsed once
+      assertEquals(1, schemaMisses.longValue());
+      assertEquals(1, configMisses.longValue());
+
+      // reloading doesn't parse them again while they aren't modified
+      cores.reload("core0");
+      assertEquals(1, schemaMisses.longValue());
+      assertEquals(1, configMisses.longValue());
+
+      // a single entry per file of the configset
+      Map<?, ?> cached =
+          (Map<?, ?>) cores.getObjectCache().get(ConfigSetService.ConfigResource.class.getName());
+      assertEquals(cached.toString(), 2, cached.size());
+      Path configSetBase = cores.getConfig().getConfigSetBaseDirectory().toAbsolutePath();
+      for (Object key : cached.keySet()) {
+        assertTrue(key.toString(), Path.of(key.toString()).startsWith(configSetBase.normalize()));
+      }
+    } finally {
+      IndexSchemaFactory.CACHE_MISS_LISTENER = null;
+      cores.shutdown();
+    }
+  }
+
   @Test
   public void testReloadSequential() throws Exception {
     final CoreContainer cc = init(CONFIGSETS_SOLR_XML);
@@ -22,6 +22,9 @@ import static org.apache.solr.core.CoreContainer.LOAD_COMPLETE;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.core.StringContains.containsString;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Timer;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
@@ -32,6 +35,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
@@ -39,6 +43,9 @@ import org.apache.lucene.util.IOUtils;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.RetryUtil;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
 import org.hamcrest.MatcherAssert;
 import org.junit.After;
 import org.junit.BeforeClass;
@@ -226,6 +233,70 @@ public class TestCoreDiscovery extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testLoadPhases() throws Exception {
+    setMeUp();
+    addCoreWithProps("core1", makeCoreProperties("core1", false, true, "dataDir=core1"));
+    addCoreWithProps("core2", makeCoreProperties("core2", false, true, "dataDir=core2"));
+    addCoreWithProps("lazy1", makeCoreProperties("lazy1", true, false, "dataDir=lazy1"));
+
+    CoreContainer cc = init();
+    try {
+      TestLazyCores.checkLoadedCores(cc, "core1", "core2");
+      for (String name : List.of("core1", "core2", "lazy1")) {
+        assertNull(cc.getCoreLoadPhase(name));
+      }
+
+      Map<String, Metric> metrics =
+          cc.getMetricManager()
+              .registry(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node))
+              .getMetrics();
+      for (CoreContainer.CoreLoadPhase phase : CoreContainer.CoreLoadPhase.values()) {
+        String name = "CONTAINER.cores.startup." + phase.name().toLowerCase(Locale.ROOT);
+        assertEquals(name, 0, ((Gauge<?>) metrics.get(name)).getValue());
+      }
+      // only the cores loaded on startup are timed
+      assertEquals(2, ((Timer) metrics.get("CONTAINER.cores.startup.createTime")).getCount());
+    } finally {
+      cc.shutdown();
+    }
+  }
+
+  @Test
+  public void testDeferredSearchers() throws Exception {
+    // a single core loading thread creates the cores one after the other
+    Files.writeString(
+        solrHomeDirectory.resolve(SolrXmlConfig.SOLR_XML_FILE),
+        SOLR_XML.replace("<solr>", "<solr> <int name=\"coreLoadThreads\">1</int>"),
+        StandardCharsets.UTF_8);
+    addCoreWithProps("core1", makeCoreProperties("core1", false, true, "dataDir=core1"));
+    addCoreWithProps("core2", makeCoreProperties("core2", false, true, "dataDir=core2"));
+
+    System.setProperty(CoreContainer.DEFER_STARTUP_SEARCHERS_PROP, "true");
+    CoreContainer cc;
+    try {
+      cc = init();
+    } finally {
+      System.clearProperty(CoreContainer.DEFER_STARTUP_SEARCHERS_PROP);
+    }
+    try (SolrCore core1 = cc.getCore("core1");
+        SolrCore core2 = cc.getCore("core2")) {
+      // solrconfig-minimal.xml has no update log, so both searchers are opened once both cores
+      // are created
+      long lastCoreStart = Math.max(core1.getStartNanoTime(), core2.getStartNanoTime());
+      for (SolrCore core : List.of(core1, core2)) {
+        RefCounted<SolrIndexSearcher> searcher = core.getSearcher();
+        try {
+          assertTrue(core.getName(), searcher.get().getOpenNanoTime() > lastCoreStart);
+        } finally {
+          searcher.decref();
+        }
+      }
+    } finally {
+      cc.shutdown();
+    }
+  }
+
   @Test
   public void testPropFilePersistence() throws Exception {
     setMeUp();
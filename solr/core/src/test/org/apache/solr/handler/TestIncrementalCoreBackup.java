@@ -21,16 +21,19 @@ import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Optional;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.tests.util.LuceneTestCase;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.params.CoreAdminParams;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.backup.BackupFilePaths;
 import org.apache.solr.core.backup.BackupId;
 import org.apache.solr.core.backup.ShardBackupId;
 import org.apache.solr.core.backup.ShardBackupMetadata;
 import org.apache.solr.core.backup.repository.BackupRepository;
+import org.apache.solr.core.backup.repository.LocalFileSystemRepository;
 import org.apache.solr.handler.admin.CoreAdminHandler;
 import org.apache.solr.response.SolrQueryResponse;
 import org.junit.After;
@@ -400,6 +403,51 @@ public class TestIncrementalCoreBackup extends SolrTestCaseJ4 {
     admin.close();
   }
 
+  @Test
+  public void testParallelUploads() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      assertU(adoc("id", Integer.toString(i)));
+      assertU(commit());
+    }
+
+    final Path locationPath = createBackupLocation();
+    final URI locationUri = bootstrapBackupLocation(locationPath);
+    NamedList<Object> config = new NamedList<>();
+    config.add(IncrementalShardBackup.MAX_PARALLEL_UPLOADS_PROP, "4");
+    try (BackupRepository backupRepo = new LocalFileSystemRepository()) {
+      backupRepo.init(config);
+      BackupFilePaths backupFilePaths = new BackupFilePaths(backupRepo, locationUri);
+      ShardBackupId firstShardBackupId = new ShardBackupId("shard1", BackupId.zero());
+      IncrementalShardBackup.IncrementalShardSnapshotResponse first =
+          new IncrementalShardBackup(
+                  backupRepo,
+                  h.getCore(),
+                  backupFilePaths,
+                  null,
+                  firstShardBackupId,
+                  Optional.empty())
+              .backup();
+      assertEquals(first.indexFileCount, first.uploadedIndexFileCount);
+      simpleBackupCheck(locationUri, firstShardBackupId);
+
+      // nothing changed, nothing is uploaded
+      ShardBackupId secondShardBackupId =
+          new ShardBackupId("shard1", BackupId.zero().nextBackupId());
+      IncrementalShardBackup.IncrementalShardSnapshotResponse second =
+          new IncrementalShardBackup(
+                  backupRepo,
+                  h.getCore(),
+                  backupFilePaths,
+                  firstShardBackupId,
+                  secondShardBackupId,
+                  Optional.empty())
+              .backup();
+      assertEquals(first.indexFileCount, second.indexFileCount);
+      assertEquals(0, second.uploadedIndexFileCount);
+      simpleBackupCheck(locationUri, secondShardBackupId);
+    }
+  }
+
   /** Check that the backup metadata file exists, and the corresponding index files can be found. */
   private static void simpleBackupCheck(
       URI locationURI, ShardBackupId shardBackupId, String... expectedIndexFiles)
@@ -27,16 +27,23 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
@@ -72,6 +79,7 @@ import org.apache.solr.core.StandardDirectoryFactory;
 import org.apache.solr.core.snapshots.SolrSnapshotMetaDataManager;
 import org.apache.solr.embedded.JettySolrRunner;
 import org.apache.solr.security.AllowListUrlChecker;
+import org.apache.solr.util.LogListener;
 import org.apache.solr.util.TestInjection;
 import org.apache.solr.util.TimeOut;
 import org.hamcrest.MatcherAssert;
@@ -1517,6 +1525,201 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
     assertTrue(timeTakenInSeconds - approximateTimeInSeconds > 0);
   }
 
+  @Test
+  public void testConcurrentRangedIndexFetch() throws Exception {
+    follower.setTestPort(leaderJetty.getLocalPort());
+    follower.copyConfigFile(CONF_DIR + "solrconfig-follower1.xml", "solrconfig.xml");
+    followerJetty.stop();
+    followerJetty = createAndStartJetty(follower);
+    followerClient.close();
+    followerClient =
+        ReplicationTestHelper.createNewSolrClient(
+            buildUrl(followerJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME);
+
+    leaderClient.deleteByQuery("*:*");
+    followerClient.deleteByQuery("*:*");
+    followerClient.commit();
+    // large enough stored fields for their files to be fetched in several ranges
+    final int totalDocs = TestUtil.nextInt(random(), 17, 53);
+    for (int i = 0; i < totalDocs; i++) {
+      index(leaderClient, "id", i, "name", TestUtil.randomSimpleString(random(), 1000, 5000));
+    }
+    leaderClient.commit();
+
+    NamedList<Object> leaderQueryRsp = rQuery(totalDocs, "*:*", leaderClient);
+    SolrDocumentList leaderQueryResult = (SolrDocumentList) leaderQueryRsp.get("response");
+
+    String fetchUrl =
+        buildUrl(followerJetty.getLocalPort())
+            + "/"
+            + DEFAULT_TEST_CORENAME
+            + ReplicationHandler.PATH
+            + "?command=fetchindex&"
+            + ReplicationHandler.FETCH_CONCURRENCY
+            + "=3&"
+            + ReplicationHandler.FETCH_CHUNK_SIZE_MB
+            + "=0.01&"
+            + ReplicationHandler.LEADER_URL
+            + "="
+            + buildUrl(leaderJetty.getLocalPort())
+            + "/"
+            + DEFAULT_TEST_CORENAME
+            + ReplicationHandler.PATH;
+    InputStream stream = new URL(fetchUrl).openStream();
+    stream.close();
+
+    NamedList<Object> followerQueryRsp = rQuery(totalDocs, "*:*", followerClient);
+    SolrDocumentList followerQueryResult = (SolrDocumentList) followerQueryRsp.get("response");
+    assertEquals(totalDocs, followerQueryResult.getNumFound());
+    assertNull(
+        BaseDistributedSearchTestCase.compare(leaderQueryResult, followerQueryResult, 0, null));
+    assertVersions(leaderClient, followerClient);
+  }
+
+  @Test
+  public void testResumeIndexFetch() throws Exception {
+    doTestResumeIndexFetch(false);
+  }
+
+  @Test
+  public void testResumeIndexFetchOfCorruptedFile() throws Exception {
+    doTestResumeIndexFetch(true);
+  }
+
+  /**
+   * @param corruptPartial whether the partially fetched file differs from the leader's, in which
+   *     case it is fetched again whole by the same fetch
+   */
+  private void doTestResumeIndexFetch(boolean corruptPartial) throws Exception {
+    // the state of a failed fetch is only kept when the index is on the filesystem
+    useFactory(null);
+    leaderJetty.stop();
+    leaderJetty = createAndStartJetty(leader);
+    leaderClient.close();
+    leaderClient =
+        createNewSolrClient(buildUrl(leaderJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME);
+    follower.setTestPort(leaderJetty.getLocalPort());
+    follower.copyConfigFile(CONF_DIR + "solrconfig-follower1.xml", "solrconfig.xml");
+    followerJetty.stop();
+    followerJetty = createAndStartJetty(follower);
+    followerClient.close();
+    followerClient =
+        createNewSolrClient(buildUrl(followerJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME);
+
+    // enough data for the largest file to take a few seconds to fetch at the bandwidth cap below
+    final int totalDocs = 100;
+    for (int i = 0; i < totalDocs; i++) {
+      index(leaderClient, "id", i, "name", TestUtil.randomSimpleString(random(), 5000, 10000));
+    }
+    leaderClient.commit();
+    NamedList<Object> leaderQueryRsp = rQuery(totalDocs, "*:*", leaderClient);
+    SolrDocumentList leaderQueryResult = (SolrDocumentList) leaderQueryRsp.get("response");
+
+    Path leaderIndexDir;
+    IndexCommit commit;
+    try (SolrCore core = leaderJetty.getCoreContainer().getCore(DEFAULT_TEST_CORENAME)) {
+      leaderIndexDir = Paths.get(core.getIndexDir());
+      commit = core.getDeletionPolicy().getLatestCommit();
+    }
+    Path partial = null;
+    for (String name : commit.getFileNames()) {
+      Path file = leaderIndexDir.resolve(name);
+      if (partial == null || file.toFile().length() > partial.toFile().length()) partial = file;
+    }
+    String partialName = partial.getFileName().toString();
+    long partialSize = partial.toFile().length();
+    Path followerDataDir;
+    try (SolrCore core = followerJetty.getCoreContainer().getCore(DEFAULT_TEST_CORENAME)) {
+      followerDataDir = Paths.get(core.getDataDir());
+    }
+
+    // interrupt a throttled fetch by stopping the leader while the largest file is being fetched
+    String fetchUrl =
+        buildUrl(followerJetty.getLocalPort())
+            + "/"
+            + DEFAULT_TEST_CORENAME
+            + ReplicationHandler.PATH
+            + "?wait=true&command=fetchindex&"
+            + ReplicationHandler.MAX_FETCH_PER_SECOND
+            + "=0.2&leaderUrl="
+            + buildUrl(leaderJetty.getLocalPort())
+            + "/"
+            + DEFAULT_TEST_CORENAME
+            + ReplicationHandler.PATH;
+    Thread fetch =
+        new Thread(
+            () -> {
+              try {
+                new URL(fetchUrl).openStream().close();
+              } catch (IOException e) {
+                log.info("The interrupted fetch failed", e);
+              }
+            });
+    fetch.start();
+    Path tmpIndexDir = null;
+    TimeOut timeOut = new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+    while (tmpIndexDir == null) {
+      assertFalse("the largest file wasn't being fetched", timeOut.hasTimedOut());
+      try (DirectoryStream<Path> dirs = Files.newDirectoryStream(followerDataDir, "index.*")) {
+        for (Path dir : dirs) {
+          Path file = dir.resolve(partialName);
+          if (Files.exists(file) && Files.size(file) > 0 && Files.size(file) < partialSize / 2) {
+            tmpIndexDir = dir;
+          }
+        }
+      }
+      Thread.sleep(10);
+    }
+    leaderJetty.stop();
+    fetch.join(TimeUnit.SECONDS.toMillis(60));
+    assertFalse("the interrupted fetch didn't end", fetch.isAlive());
+
+    // the failed fetch saved what it fetched so far
+    Properties state = new Properties();
+    try (Reader reader =
+        Files.newBufferedReader(
+            tmpIndexDir.resolve(IndexFetcher.RESUME_STATE), StandardCharsets.UTF_8)) {
+      state.load(reader);
+    }
+    assertEquals(Long.toString(commit.getGeneration()), state.getProperty("generation"));
+    String partialLength = state.getProperty("partial." + partialName);
+    assertNotNull(state.toString(), partialLength);
+    if (corruptPartial) {
+      Path file = tmpIndexDir.resolve(partialName);
+      byte[] fetchedBytes = Files.readAllBytes(file);
+      fetchedBytes[Integer.parseInt(partialLength) / 2] ^= 1;
+      Files.write(file, fetchedBytes);
+    }
+
+    leaderJetty = createAndStartJetty(leader);
+    leaderClient.close();
+    leaderClient =
+        createNewSolrClient(buildUrl(leaderJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME);
+
+    try (LogListener resumed =
+            LogListener.info(IndexFetcher.class).substring("Resuming the fetch of");
+        LogListener fetchedAgain =
+            LogListener.warn(IndexFetcher.class).substring("fetching it again")) {
+      pullFromTo(leaderJetty, followerJetty);
+      NamedList<Object> followerQueryRsp = rQuery(totalDocs, "*:*", followerClient);
+      SolrDocumentList followerQueryResult = (SolrDocumentList) followerQueryRsp.get("response");
+      assertEquals(totalDocs, followerQueryResult.getNumFound());
+      assertNull(
+          BaseDistributedSearchTestCase.compare(leaderQueryResult, followerQueryResult, 0, null));
+      assertVersions(leaderClient, followerClient);
+      assertEquals(1, resumed.getCount());
+      MatcherAssert.assertThat(resumed.pollMessage(), containsString(partialName));
+      if (corruptPartial) {
+        assertEquals(1, fetchedAgain.getCount());
+        MatcherAssert.assertThat(fetchedAgain.pollMessage(), containsString(partialName));
+      } else {
+        assertEquals(0, fetchedAgain.getCount());
+      }
+    }
+    // either the directory was removed or it is now the index, without the state
+    assertFalse(Files.exists(tmpIndexDir.resolve(IndexFetcher.RESUME_STATE)));
+  }
+
   @Test
   public void doTestIllegalFilePaths() {
     // Loop through the file=, cf=, tlogFile= params and prove that it throws exception for path
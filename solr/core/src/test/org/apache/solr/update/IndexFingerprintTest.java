@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import static org.apache.solr.update.processor.DistributingUpdateProcessorFactory.DISTRIB_UPDATE_PARAM;
+
+import java.io.IOException;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.update.processor.DistributedUpdateProcessor.DistribPhase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class IndexFingerprintTest extends SolrTestCaseJ4 {
+  private static final String FROM_LEADER = DistribPhase.FROMLEADER.toString();
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-tlog.xml", "schema.xml");
+  }
+
+  @Test
+  public void testCachedFingerprintsAfterDeletes() throws Exception {
+    for (int i = 1; i <= 30; i++) {
+      updateJ(
+          jsonAdd(sdoc("id", Integer.toString(i), "_version_", 100L * i)),
+          params(DISTRIB_UPDATE_PARAM, FROM_LEADER));
+      if (i % 10 == 0) assertU(commit());
+    }
+    assertFingerprints(1500L, Long.MAX_VALUE);
+
+    // deleting documents of the segments reuses the fingerprints of all their documents
+    assertU(delI("12"));
+    assertU(commit());
+    assertFingerprints(1500L, Long.MAX_VALUE);
+
+    // deleting the highest versions of segments requires reading them again
+    assertU(delI("20"));
+    assertU(delI("15"));
+    assertU(commit());
+    assertFingerprints(1500L, Long.MAX_VALUE);
+  }
+
+  private void assertFingerprints(long... maxVersions) throws IOException {
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              for (long maxVersion : maxVersions) {
+                // twice, to check cached fingerprints too
+                for (int i = 0; i < 2; i++) {
+                  assertEquals(
+                      computeFingerprint(searcher, maxVersion).toString(),
+                      searcher.getIndexFingerprint(maxVersion).toString());
+                }
+              }
+              return null;
+            });
+  }
+
+  private static IndexFingerprint computeFingerprint(SolrIndexSearcher searcher, long maxVersion)
+      throws IOException {
+    IndexFingerprint f = new IndexFingerprint(maxVersion);
+    for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+      IndexFingerprint.reduce(f, IndexFingerprint.getFingerprint(searcher, ctx, maxVersion));
+    }
+    return f;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+public class RateAdaptiveCommitIntervalPolicyTest extends SolrTestCase {
+
+  private static RateAdaptiveCommitIntervalPolicy newPolicy(
+      int minTime, int targetFreshness, int targetDocs) {
+    NamedList<Object> args = new NamedList<>();
+    args.add(RateAdaptiveCommitIntervalPolicy.MIN_TIME, minTime);
+    args.add(RateAdaptiveCommitIntervalPolicy.TARGET_FRESHNESS, targetFreshness);
+    args.add(RateAdaptiveCommitIntervalPolicy.TARGET_DOCS, targetDocs);
+    RateAdaptiveCommitIntervalPolicy policy = new RateAdaptiveCommitIntervalPolicy();
+    policy.init(args);
+    return policy;
+  }
+
+  @Test
+  public void testDelayFollowsIngestRate() {
+    RateAdaptiveCommitIntervalPolicy policy = newPolicy(1000, 30000, 10000);
+    // 10000 docs at 1000 docs/s
+    assertEquals(10000, policy.getCommitDelay(1000, 0, -1));
+    // 10000 docs at 2000 docs/s
+    assertEquals(5000, policy.getCommitDelay(2000, 0, -1));
+  }
+
+  @Test
+  public void testDelayIsBounded() {
+    RateAdaptiveCommitIntervalPolicy policy = newPolicy(1000, 30000, 10000);
+    // bursts don't commit faster than minTime
+    assertEquals(1000, policy.getCommitDelay(1_000_000, -1, -1));
+    // nor faster than the searcher can be warmed
+    assertEquals(4000, policy.getCommitDelay(1_000_000, 4000, -1));
+    // a trickle of updates still meets the freshness target, including warming
+    assertEquals(30000, policy.getCommitDelay(1, -1, -1));
+    assertEquals(26000, policy.getCommitDelay(1, 4000, -1));
+    assertEquals(30000, policy.getCommitDelay(0, 0, -1));
+    // and maxTime
+    assertEquals(20000, policy.getCommitDelay(1, 0, 20000));
+    // warming slower than the freshness target: no point in opening searchers faster
+    assertEquals(40000, policy.getCommitDelay(1, 40000, -1));
+  }
+
+  @Test
+  public void testInvalidArgs() {
+    expectThrows(SolrException.class, () -> newPolicy(0, 30000, 10000));
+    expectThrows(SolrException.class, () -> newPolicy(1000, 30000, -1));
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.core.PluginInfo;
+import org.apache.solr.core.SolrConfig;
+import org.apache.solr.core.SolrEventListener;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Soft commits driven by the {@link CommitIntervalPolicy} configured in solrconfig.xml */
+public class SoftCommitIntervalPolicyTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-softcommit-policy.xml", "schema.xml");
+  }
+
+  @Test
+  public void testPolicyFromConfig() {
+    SolrConfig.UpdateHandlerInfo updateHandlerInfo =
+        h.getCore().getSolrConfig().getUpdateHandlerInfo();
+    PluginInfo policyInfo = updateHandlerInfo.autoSoftCommitPolicyInfo;
+    assertNotNull(policyInfo);
+    assertEquals("solr.RateAdaptiveCommitIntervalPolicy", policyInfo.className);
+    @SuppressWarnings("unchecked")
+    Map<String, Object> autoSoftCommit =
+        (Map<String, Object>) updateHandlerInfo.toMap(new LinkedHashMap<>()).get("autoSoftCommit");
+    assertSame(policyInfo, autoSoftCommit.get("policy"));
+
+    DirectUpdateHandler2 updateHandler = (DirectUpdateHandler2) h.getCore().getUpdateHandler();
+    assertNull(updateHandler.commitTracker.getIntervalPolicy());
+    CommitIntervalPolicy policy = updateHandler.softCommitTracker.getIntervalPolicy();
+    assertTrue(policy instanceof RateAdaptiveCommitIntervalPolicy);
+    RateAdaptiveCommitIntervalPolicy rateAdaptivePolicy = (RateAdaptiveCommitIntervalPolicy) policy;
+    assertEquals(500, rateAdaptivePolicy.getMinTime());
+    assertEquals(2000, rateAdaptivePolicy.getTargetFreshness());
+    assertEquals(1000000, rateAdaptivePolicy.getTargetDocs());
+  }
+
+  @Test
+  public void testSoftCommitsFollowPolicy() throws Exception {
+    DirectUpdateHandler2 updateHandler = (DirectUpdateHandler2) h.getCore().getUpdateHandler();
+    CommitTracker softTracker = updateHandler.softCommitTracker;
+    BlockingQueue<Long> softCommits = new LinkedBlockingQueue<>();
+    updateHandler.registerSoftCommitCallback(
+        new SolrEventListener() {
+          @Override
+          public void postCommit() {}
+
+          @Override
+          public void postSoftCommit() {
+            softCommits.offer(System.nanoTime());
+          }
+
+          @Override
+          public void newSearcher(
+              SolrIndexSearcher newSearcher, SolrIndexSearcher currentSearcher) {}
+        });
+
+    for (int round = 0; round < 2; round++) {
+      softCommits.clear();
+      long startNanos = System.nanoTime();
+      assertU(adoc("id", Integer.toString(round)));
+
+      // with so few updates, the policy waits for targetFreshness (minus the warm time), which is
+      // much less than maxTime
+      long delay = softTracker.getLastScheduledDelay();
+      assertTrue("delay " + delay, delay >= 500 && delay <= 2000);
+      Long commitNanos = softCommits.poll(30, TimeUnit.SECONDS);
+      assertNotNull("no soft commit before maxTime", commitNanos);
+      long elapsedMs = TimeUnit.NANOSECONDS.toMillis(commitNanos - startNanos);
+      assertTrue("committed after " + elapsedMs + "ms, before " + delay, elapsedMs >= delay);
+    }
+  }
+}
@@ -22,7 +22,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.solr.SolrTestCaseJ4;
@@ -37,6 +39,7 @@ import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.util.RefCounted;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -321,6 +324,70 @@ public class SolrIndexSplitterTest extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testSplitByCoresLinkKeepsParentWriter() throws Exception {
+    assertU(adoc("id", "dorothy"));
+    assertU(adoc("id", "kansas"));
+    assertU(commit());
+    // not committed, so not part of the split
+    assertU(adoc("id", "wizard"));
+    List<DocRouter.Range> ranges = getRanges("dorothy", "kansas");
+
+    RefCounted<IndexWriter> iwRef = h.getCore().getSolrCoreState().getIndexWriter(h.getCore());
+    try {
+      SolrCore core1 =
+          h.getCoreContainer()
+              .create(
+                  "split1",
+                  Map.of("dataDir", indexDir1.getAbsolutePath(), "configSet", "cloud-minimal"));
+      SolrCore core2 =
+          h.getCoreContainer()
+              .create(
+                  "split2",
+                  Map.of("dataDir", indexDir2.getAbsolutePath(), "configSet", "cloud-minimal"));
+      LocalSolrQueryRequest request = lrf.makeRequest("q", "dummy");
+      try {
+        doSplit(
+            new SplitIndexCommand(
+                request,
+                new SolrQueryResponse(),
+                null,
+                List.of(core1, core2),
+                ranges,
+                new PlainIdRouter(),
+                null,
+                null,
+                SolrIndexSplitter.SplitMethod.LINK));
+      } finally {
+        request.close();
+      }
+
+      // the parent kept its IndexWriter and its uncommitted document
+      RefCounted<IndexWriter> afterSplitRef =
+          h.getCore().getSolrCoreState().getIndexWriter(h.getCore());
+      try {
+        assertSame(iwRef.get(), afterSplitRef.get());
+      } finally {
+        afterSplitRef.decref();
+      }
+      assertU(commit());
+      assertJQ(req("q", "*:*"), "/response/numFound==3");
+
+      @SuppressWarnings("resource")
+      final EmbeddedSolrServer server1 = new EmbeddedSolrServer(h.getCoreContainer(), "split1");
+      @SuppressWarnings("resource")
+      final EmbeddedSolrServer server2 = new EmbeddedSolrServer(h.getCoreContainer(), "split2");
+      server1.commit(true, true);
+      server2.commit(true, true);
+      assertEquals(1, server1.query(new SolrQuery("*:*")).getResults().getNumFound());
+      assertEquals(1, server2.query(new SolrQuery("*:*")).getResults().getNumFound());
+    } finally {
+      iwRef.decref();
+      h.getCoreContainer().unload("split2");
+      h.getCoreContainer().unload("split1");
+    }
+  }
+
   @Test
   public void testSplitAlternately() throws Exception {
     doTestSplitAlternately(SolrIndexSplitter.SplitMethod.REWRITE);
@@ -408,6 +475,62 @@ public class SolrIndexSplitterTest extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testSplitManySegments() throws Exception {
+    // the leaves and the partitions are split concurrently
+    int numDocs = 30;
+    for (int i = 0; i < numDocs; i++) {
+      assertU(adoc("id", "doc" + i));
+      if (i % 5 == 4) assertU(commit());
+    }
+    PlainIdRouter router = new PlainIdRouter();
+    List<DocRouter.Range> ranges = router.partitionRange(3, router.fullRange());
+    List<File> indexDirs = List.of(indexDir1, indexDir2, indexDir3);
+
+    LocalSolrQueryRequest request = lrf.makeRequest("q", "dummy");
+    try {
+      SplitIndexCommand command =
+          new SplitIndexCommand(
+              request,
+              new SolrQueryResponse(),
+              indexDirs.stream().map(File::getAbsolutePath).collect(Collectors.toList()),
+              null,
+              ranges,
+              router,
+              null,
+              null,
+              SolrIndexSplitter.SplitMethod.REWRITE);
+      doSplit(command);
+    } finally {
+      request.close();
+    }
+
+    int totalDocs = 0;
+    for (int partition = 0; partition < ranges.size(); partition++) {
+      Directory directory =
+          h.getCore()
+              .getDirectoryFactory()
+              .get(
+                  indexDirs.get(partition).getAbsolutePath(),
+                  DirectoryFactory.DirContext.DEFAULT,
+                  h.getCore().getSolrConfig().indexConfig.lockType);
+      try (DirectoryReader reader = DirectoryReader.open(directory)) {
+        for (int i = 0; i < numDocs; i++) {
+          String id = "doc" + i;
+          int hash = router.sliceHash(id, null, null, null);
+          assertEquals(
+              id + " in partition " + partition,
+              ranges.get(partition).includes(hash) ? 1 : 0,
+              reader.docFreq(new Term("id", id)));
+        }
+        totalDocs += reader.numDocs();
+      } finally {
+        h.getCore().getDirectoryFactory().release(directory);
+      }
+    }
+    assertEquals(numDocs, totalDocs);
+  }
+
   @Test
   public void testSplitByRouteKey() throws Exception {
     doTestSplitByRouteKey(SolrIndexSplitter.SplitMethod.REWRITE);
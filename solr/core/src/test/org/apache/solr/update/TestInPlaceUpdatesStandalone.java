@@ -662,6 +662,36 @@ public class TestInPlaceUpdatesStandalone extends SolrTestCaseJ4 {
             + "}}");
   }
 
+  @Test
+  public void testUpdatingBinaryDocValues() throws Exception {
+    long version1 =
+        addAndGetVersion(
+            sdoc("id", "1", "title_s", "first", "inplace_updatable_binary", "AQID"), null);
+    assertU(commit("softCommit", "false"));
+
+    int docid1 = getDocId("1");
+
+    version1 =
+        addAndAssertVersion(version1, "id", "1", "inplace_updatable_binary", map("set", "BAUG"));
+    // RTG
+    assertJQ(
+        req("qt", "/get", "id", "1", "fl", "id,title_s,inplace_updatable_binary"),
+        "=={'doc':{'id':'1', 'title_s':'first', 'inplace_updatable_binary':'BAUG'}}");
+    assertU(commit("softCommit", "false"));
+
+    assertJQ(
+        req("q", "id:1", "fl", "title_s,inplace_updatable_binary,_version_,[docid]"),
+        "/response/docs/[0]/title_s=='first'",
+        "/response/docs/[0]/inplace_updatable_binary=='BAUG'",
+        "/response/docs/[0]/_version_==" + version1,
+        "/response/docs/[0]/[docid]==" + docid1);
+
+    // binary values can't be incremented, neither in-place nor as a regular atomic update
+    expectThrows(
+        SolrException.class,
+        () -> addAndGetVersion(sdoc("id", "1", "inplace_updatable_binary", map("inc", 1)), null));
+  }
+
   @Test
   public void testUpdateWithValueNull() throws Exception {
     long doc =
@@ -704,6 +734,32 @@ public class TestInPlaceUpdatesStandalone extends SolrTestCaseJ4 {
     assertQ(req("q", "*:*"), "//*[@numFound='0']");
   }
 
+  @Test
+  public void testDBQReopensOnlyAfterDVUpdates() throws Exception {
+    DirectUpdateHandler2 updateHandler = (DirectUpdateHandler2) h.getCore().getUpdateHandler();
+    long version1 =
+        addAndGetVersion(sdoc("id", "1", "title_s", "first", "inplace_updatable_float", "0"), null);
+    addAndGetVersion(sdoc("id", "2", "title_s", "second", "inplace_updatable_float", "0"), null);
+    assertU(delQ("title_s:none"));
+    assertU(commit());
+
+    addAndAssertVersion(
+        version1, "id", "1", "inplace_updatable_float", map("set", 100), "_version_", version1);
+    long skipped = updateHandler.deleteByQueryReopensSkipped.getCount();
+    long timed = updateHandler.deleteByQueryTimer.getCount();
+    // must see the updated docValues
+    assertU(delQ("inplace_updatable_float:100"));
+    assertEquals(skipped, updateHandler.deleteByQueryReopensSkipped.getCount());
+
+    // no docValues updated since then
+    assertU(delQ("title_s:second"));
+    assertEquals(skipped + 1, updateHandler.deleteByQueryReopensSkipped.getCount());
+    assertEquals(timed + 2, updateHandler.deleteByQueryTimer.getCount());
+
+    assertU(commit());
+    assertQ(req("q", "*:*"), "//*[@numFound='0']");
+  }
+
   @Test
   public void testDVUpdatesWithDelete() throws Exception {
     long version1 = 0;
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import static org.apache.solr.update.processor.DistributingUpdateProcessorFactory.DISTRIB_UPDATE_PARAM;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.schema.IndexSchemaFactory;
+import org.apache.solr.update.processor.DistributedUpdateProcessor.DistribPhase;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class VersionRangeFingerprintTest extends SolrTestCaseJ4 {
+  private static final String FROM_LEADER = DistribPhase.FROMLEADER.toString();
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-tlog.xml", "schema-minimal-atomic-stress.xml");
+  }
+
+  @Before
+  public void clearIndex() {
+    assertU(delQ("*:*"));
+    assertU(commit());
+  }
+
+  @Test
+  public void testFingerprints() throws Exception {
+    for (int i = 1; i <= 10; i++) {
+      updateJ(
+          jsonAdd(sdoc("id", "doc" + i, "_version_", 100L * i)),
+          params(DISTRIB_UPDATE_PARAM, FROM_LEADER));
+      if (i == 5) assertU(commit());
+    }
+    assertU(delI("doc3"));
+    assertU(commit());
+
+    List<long[]> ranges =
+        Arrays.asList(new long[] {1, 250}, new long[] {251, 550}, new long[] {551, 2000});
+    List<VersionRangeFingerprint> fingerprints =
+        VersionRangeFingerprint.getFingerprints(h.getCore(), ranges);
+    assertEquals(2, fingerprints.get(0).getNumVersions());
+    // doc3 was deleted
+    assertEquals(2, fingerprints.get(1).getNumVersions());
+    assertEquals(5, fingerprints.get(2).getNumVersions());
+    assertFalse(fingerprints.get(0).matches(fingerprints.get(1)));
+
+    // the fingerprint doesn't depend on how documents are split into segments
+    assertU(optimize());
+    List<VersionRangeFingerprint> optimized =
+        VersionRangeFingerprint.getFingerprints(h.getCore(), ranges);
+    for (int i = 0; i < ranges.size(); i++) {
+      assertTrue(optimized.get(i).matches(fingerprints.get(i)));
+    }
+
+    NamedList<Object> versions = VersionRangeFingerprint.getVersions(h.getCore(), ranges);
+    assertEquals(
+        Arrays.asList("doc1", "doc2", "doc4", "doc5", "doc6", "doc7", "doc8", "doc9", "doc10"),
+        versions.get("ids"));
+    assertEquals(
+        Arrays.asList(100L, 200L, 400L, 500L, 600L, 700L, 800L, 900L, 1000L),
+        versions.get("versions"));
+  }
+
+  @Test
+  public void testUncommittedDocuments() throws Exception {
+    updateJ(
+        jsonAdd(sdoc("id", "doc1", "_version_", 100L)), params(DISTRIB_UPDATE_PARAM, FROM_LEADER));
+    List<long[]> ranges = List.of(new long[] {1, 1000});
+    assertEquals(
+        1, VersionRangeFingerprint.getFingerprints(h.getCore(), ranges).get(0).getNumVersions());
+  }
+
+  @Test
+  public void testInPlaceUpdates() throws Exception {
+    for (int i = 1; i <= 2; i++) {
+      updateJ(
+          jsonAdd(sdoc("id", "doc" + i, "long_dv", 0L, "_version_", 100L * i)),
+          params(DISTRIB_UPDATE_PARAM, FROM_LEADER));
+    }
+    assertU(commit());
+    List<long[]> ranges = List.of(new long[] {1, 1000}, new long[] {1001, Long.MAX_VALUE});
+    List<VersionRangeFingerprint> fingerprints =
+        VersionRangeFingerprint.getFingerprints(h.getCore(), ranges);
+    assertEquals(2, fingerprints.get(0).getNumVersions());
+    assertEquals(0, fingerprints.get(1).getNumVersions());
+
+    // the update changes the version of doc1 in the same segment, without a new document
+    updateJ(jsonAdd(sdoc("id", "doc1", "long_dv", map("inc", 1))), null);
+    assertU(commit());
+    assertJQ(req("q", "id:doc1", "fl", "long_dv"), "/response/docs/[0]/long_dv==1");
+    assertJQ(req("q", "*:*"), "/response/numFound==2");
+    fingerprints = VersionRangeFingerprint.getFingerprints(h.getCore(), ranges);
+    assertEquals(1, fingerprints.get(0).getNumVersions());
+    assertEquals(1, fingerprints.get(1).getNumVersions());
+  }
+
+  @Test
+  public void testRanges() {
+    List<long[]> ranges = VersionRangeFingerprint.parseRanges("1...10,11...20");
+    assertEquals(2, ranges.size());
+    assertArrayEquals(new long[] {11, 20}, ranges.get(1));
+    assertEquals("1...10,11...20", VersionRangeFingerprint.formatRanges(ranges));
+    expectThrows(Exception.class, () -> VersionRangeFingerprint.parseRanges("1..10"));
+
+    // split ranges are contiguous and cover the whole range
+    long low = 1;
+    long high = 12345;
+    List<long[]> split = VersionRangeSync.split(low, high);
+    assertTrue(split.size() <= VersionRangeSync.FANOUT);
+    assertEquals(low, split.get(0)[0]);
+    assertEquals(high, split.get(split.size() - 1)[1]);
+    for (int i = 1; i < split.size(); i++) {
+      assertEquals(split.get(i - 1)[1] + 1, split.get(i)[0]);
+    }
+    assertEquals(3, VersionRangeSync.split(5, 7).size());
+  }
+
+  @Test
+  public void testCanRebuildDocuments() throws Exception {
+    assertTrue(VersionRangeSync.canRebuildDocuments(h.getCore().getLatestSchema()));
+    assertFalse(
+        VersionRangeSync.canRebuildDocuments(
+            IndexSchemaFactory.buildIndexSchema("schema.xml", h.getCore().getSolrConfig())));
+    // multi-valued docValues come back sorted and deduplicated
+    assertFalse(
+        VersionRangeSync.canRebuildDocuments(
+            IndexSchemaFactory.buildIndexSchema(
+                "schema-multivalued-docvalues.xml", h.getCore().getSolrConfig())));
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update.processor;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.Utils;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelUpdateRequestProcessorTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema.xml");
+  }
+
+  @Before
+  public void before() {
+    clearIndex();
+    assertU(commit());
+  }
+
+  @Test
+  public void testUpdatesForSameIdAreApplied() throws Exception {
+    final int numIds = 50;
+    final int numRounds = 5;
+    StringBuilder json = new StringBuilder("[");
+    for (int round = 0; round < numRounds; round++) {
+      for (int id = 0; id < numIds; id++) {
+        if (json.length() > 1) json.append(',');
+        json.append("{\"id\":\"").append(id).append("\",\"val_i\":").append(round).append('}');
+      }
+    }
+    json.append(']');
+
+    updateJ(json.toString(), params(UpdateParams.PARALLELISM, "8", "commit", "true"));
+
+    assertJQ(req("q", "*:*"), "/response/numFound==" + numIds);
+    assertJQ(req("q", "val_i:" + (numRounds - 1)), "/response/numFound==" + numIds);
+  }
+
+  @Test
+  public void testDeleteByQueryIsABarrier() throws Exception {
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < 20; i++) {
+      json.append("\"add\":{\"doc\":{\"id\":\"a").append(i).append("\",\"cat_s\":\"a\"}},");
+    }
+    json.append("\"delete\":{\"query\":\"cat_s:a\"},");
+    for (int i = 0; i < 20; i++) {
+      json.append("\"add\":{\"doc\":{\"id\":\"b").append(i).append("\",\"cat_s\":\"b\"}},");
+    }
+    json.append("\"commit\":{}}");
+
+    updateJ(json.toString(), params(UpdateParams.PARALLELISM, "4"));
+
+    assertJQ(req("q", "cat_s:a"), "/response/numFound==0");
+    assertJQ(req("q", "cat_s:b"), "/response/numFound==20");
+  }
+
+  @Test
+  public void testWorkerResponsesAreMerged() throws Exception {
+    final int numIds = 40;
+    StringBuilder json = new StringBuilder("[");
+    for (int id = 0; id < numIds; id++) {
+      if (json.length() > 1) json.append(',');
+      json.append("{\"id\":\"").append(id).append("\"}");
+    }
+    json.append(']');
+
+    String response =
+        updateJ(
+            json.toString(),
+            params(UpdateParams.PARALLELISM, "4", UpdateParams.VERSIONS, "true", "commit", "true"));
+
+    Map<?, ?> rsp = (Map<?, ?>) Utils.fromJSONString(response);
+    // the versions returned by every worker end up in a single list of id/version pairs
+    List<?> adds = (List<?>) rsp.get("adds");
+    assertEquals(response, 2 * numIds, adds.size());
+    assertJQ(req("q", "*:*"), "/response/numFound==" + numIds);
+  }
+
+  @Test
+  public void testCommandsBeforeAFailureAreApplied() throws Exception {
+    final int numBefore = 100;
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < numBefore; i++) {
+      json.append("{\"id\":\"a").append(i).append("\",\"cat_s\":\"a\"},");
+    }
+    json.append("{\"id\":\"bad\",\"val_i\":\"not a number\"}");
+    for (int i = 0; i < 20; i++) {
+      json.append(",{\"id\":\"b").append(i).append("\",\"cat_s\":\"b\"}");
+    }
+    json.append(']');
+
+    expectThrows(
+        Exception.class, () -> updateJ(json.toString(), params(UpdateParams.PARALLELISM, "4")));
+    assertU(commit());
+
+    // the workers may have started some of the later ones, but none of the earlier ones is skipped
+    assertJQ(req("q", "cat_s:a"), "/response/numFound==" + numBefore);
+    assertJQ(req("q", "id:bad"), "/response/numFound==0");
+  }
+}
@@ -392,6 +392,59 @@ public class TolerantUpdateProcessorTest extends UpdateProcessorTestBase {
     }
   }
 
+  @Test
+  public void testParallelUpdateReportsErrorsOfAllWorkers() throws Exception {
+    List<SolrInputDocument> parallelDocs = new ArrayList<>();
+    List<String> parallelBadIds = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      String id = "parallel" + i;
+      if (i % 10 == 0) {
+        parallelDocs.add(doc(field("id", id), field("weight", "b")));
+        parallelBadIds.add(id);
+      } else {
+        parallelDocs.add(doc(field("id", id), field("text", "the quick brown fox")));
+      }
+    }
+
+    SolrCore core = h.getCore();
+    SolrQueryResponse rsp = new SolrQueryResponse();
+    rsp.add("responseHeader", new SimpleOrderedMap<>());
+    SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams());
+    UpdateRequestProcessor processor =
+        new ParallelUpdateRequestProcessor(
+            core.getUpdateProcessingChain("tolerant-chain-max-errors-10"),
+            req,
+            rsp,
+            4,
+            h.getCoreContainer().getUpdateShardHandler().getUpdateExecutor());
+    try {
+      for (SolrInputDocument doc : parallelDocs) {
+        AddUpdateCommand cmd = new AddUpdateCommand(req);
+        cmd.solrDoc = doc;
+        processor.processAdd(cmd);
+      }
+      processor.finish();
+    } finally {
+      IOUtils.closeQuietly(processor);
+      req.close();
+    }
+
+    // the errors tolerated by every worker chain end up in the header of the request
+    @SuppressWarnings("unchecked")
+    List<SimpleOrderedMap<String>> errors =
+        (List<SimpleOrderedMap<String>>) rsp.getResponseHeader().get("errors");
+    assertNotNull(errors);
+    Set<String> errorIds = new HashSet<>();
+    for (SimpleOrderedMap<String> err : errors) {
+      errorIds.add(err.get("id"));
+    }
+    assertEquals(new HashSet<>(parallelBadIds), errorIds);
+    assertEquals(10, rsp.getResponseHeader().get("maxErrors"));
+
+    assertU(commit());
+    assertQ(req("q", "id:parallel*"), "//result[@numFound='36']");
+  }
+
   private void assertAddsSucceedWithErrors(
       String chain,
       final Collection<SolrInputDocument> docs,
@@ -27,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -55,11 +56,12 @@ public class SolrClientNodeStateProvider implements NodeStateProvider, MapWriter
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private final CloudLegacySolrClient solrClient;
+  // values may be fetched from several nodes concurrently
   protected final Map<String, Map<String, Map<String, List<Replica>>>>
-      nodeVsCollectionVsShardVsReplicaInfo = new HashMap<>();
+      nodeVsCollectionVsShardVsReplicaInfo = new ConcurrentHashMap<>();
 
   @SuppressWarnings({"rawtypes"})
-  private Map<String, Map> nodeVsTags = new HashMap<>();
+  private Map<String, Map> nodeVsTags = new ConcurrentHashMap<>();
 
   public SolrClientNodeStateProvider(CloudLegacySolrClient solrClient) {
     this.solrClient = solrClient;
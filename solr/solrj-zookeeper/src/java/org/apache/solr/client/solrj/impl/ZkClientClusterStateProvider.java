@@ -34,7 +34,6 @@ import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkNodeProps;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.cloud.ZooKeeperException;
-import org.apache.solr.common.util.Utils;
 import org.apache.zookeeper.KeeperException;
 import org.noggit.JSONWriter;
 import org.slf4j.Logger;
@@ -93,7 +92,7 @@ public class ZkClientClusterStateProvider
     if (bytes == null || bytes.length == 0) {
       return new ClusterState(liveNodes, Collections.emptyMap());
     }
-    Map<String, Object> stateMap = (Map<String, Object>) Utils.fromJSON(bytes);
+    Map<String, Object> stateMap = (Map<String, Object>) ClusterState.parseState(bytes);
     Map<String, Object> props = (Map<String, Object>) stateMap.get(coll);
     if (props != null) {
       if (!props.containsKey(ZkStateReader.CONFIGNAME_PROP)) {
@@ -87,6 +87,11 @@ public class SolrZkClient implements Closeable {
     return metrics::writeMap;
   }
 
+  /** The metrics of this client, which {@link ZkStateReader} adds to */
+  ZkMetrics getZkMetrics() {
+    return metrics;
+  }
+
   private final ExecutorService zkCallbackExecutor =
       ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("zkCallback"));
   private final ExecutorService zkConnManagerCallbackExecutor =
@@ -1096,6 +1101,21 @@ public class SolrZkClient implements Closeable {
 
     @JsonProperty public final LongAdder deletes = new LongAdder();
 
+    /** Refreshes of the state of a collection after it changed */
+    @JsonProperty public final LongAdder stateRefreshes = new LongAdder();
+
+    /** Changes of the state of a collection read by an already scheduled refresh */
+    @JsonProperty public final LongAdder stateRefreshesCoalesced = new LongAdder();
+
+    /** New states of a collection notified by an already submitted notification */
+    @JsonProperty public final LongAdder stateNotificationsCoalesced = new LongAdder();
+
+    /** Parsed states of not watched collections only kept in compact form */
+    @JsonProperty public final LongAdder lazyCollectionStatesEvicted = new LongAdder();
+
+    /** Parsed states of not watched collections rebuilt from their compact form */
+    @JsonProperty public final LongAdder lazyCollectionStatesInflated = new LongAdder();
+
     @Override
     public void writeMap(EntryWriter ew) throws IOException {
       ReflectMapWriter.super.writeMap(
@@ -36,11 +36,14 @@ import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
@@ -55,10 +58,12 @@ import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.params.CollectionAdminParams;
 import org.apache.solr.common.params.CoreAdminParams;
 import org.apache.solr.common.util.CommonTestInjection;
+import org.apache.solr.common.util.Compressor;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.ObjectReleaseTracker;
 import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.Utils;
+import org.apache.solr.common.util.ZLibCompressor;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.WatchedEvent;
@@ -171,6 +176,27 @@ public class ZkStateReader implements SolrCloseable {
   private final ConcurrentHashMap<String, LazyCollectionRef> lazyCollectionStates =
       new ConcurrentHashMap<>();
 
+  /**
+   * The maximum number of not actively watched collections whose parsed state is kept. The state of
+   * the least recently used ones is only kept in a compact, serialized form beyond that.
+   */
+  public static final String MAX_CACHED_LAZY_COLLECTIONS_PROP =
+      "solr.zkStateReader.maxCachedLazyCollections";
+
+  private final int maxCachedLazyCollections =
+      Integer.getInteger(MAX_CACHED_LAZY_COLLECTIONS_PROP, 1000);
+
+  /**
+   * Approximate number of lazily loaded collections whose parsed state is kept. It is recounted
+   * whenever the parsed states are evicted, which also forgets refs dropped in the meantime.
+   */
+  private final AtomicInteger parsedLazyCollections = new AtomicInteger();
+
+  /** Whether a thread is evicting the parsed state of lazily loaded collections */
+  private final AtomicBoolean evictingLazyCollections = new AtomicBoolean();
+
+  private final Compressor compactStateCompressor = new ZLibCompressor();
+
   /** Collection properties being actively watched */
   private final ConcurrentHashMap<String, VersionedCollectionProps> watchedCollectionProps =
       new ConcurrentHashMap<>();
@@ -198,6 +224,26 @@ public class ZkStateReader implements SolrCloseable {
 
   private final ExecutorService notifications = ExecutorUtil.newMDCAwareCachedThreadPool("watches");
 
+  /**
+   * How long to wait after a change of the state of a collection before reading it, so that the
+   * changes made in the meantime are read at once, in milliseconds.
+   */
+  public static final String STATE_REFRESH_DELAY_PROP = "solr.zkStateReader.refreshDelayMs";
+
+  private static final long STATE_REFRESH_DELAY_MS = Long.getLong(STATE_REFRESH_DELAY_PROP, 10);
+
+  /** Delays the refreshes of the state of collections */
+  private final ScheduledExecutorService stateRefreshScheduler =
+      Executors.newSingleThreadScheduledExecutor(new SolrNamedThreadFactory("stateRefresh"));
+
+  /** The refreshes of the state of collections that are scheduled but didn't start yet */
+  private final ConcurrentHashMap<String, PendingRefresh> pendingRefreshes =
+      new ConcurrentHashMap<>();
+
+  /** The notifications of state watchers that are submitted but didn't start yet */
+  private final ConcurrentHashMap<String, Notification> pendingNotifications =
+      new ConcurrentHashMap<>();
+
   private Set<LiveNodesListener> liveNodesListeners = ConcurrentHashMap.newKeySet();
 
   private Set<ClusterPropertiesListener> clusterPropertiesListeners = ConcurrentHashMap.newKeySet();
@@ -728,7 +774,14 @@ public class ZkStateReader implements SolrCloseable {
   private class LazyCollectionRef extends ClusterState.CollectionRef {
     private final String collName;
     private volatile long lastUpdateTime;
-    private DocCollection cachedDocCollection;
+    // when get() last returned a state, to pick the least recently used ones to evict
+    private volatile long lastUsedTime;
+    private volatile DocCollection cachedDocCollection;
+
+    // the state once evicted, as compressed JSON, and what can't be rebuilt from it
+    private byte[] compactState;
+    private int compactZNodeVersion;
+    private PerReplicaStates compactPerReplicaStates;
 
     public LazyCollectionRef(String collName) {
       super(null);
@@ -737,32 +790,99 @@ public class ZkStateReader implements SolrCloseable {
     }
 
     @Override
-    public synchronized DocCollection get(boolean allowCached) {
+    public DocCollection get(boolean allowCached) {
+      DocCollection docCollection = getOrFetch(allowCached);
+      if (docCollection != null) {
+        lastUsedTime = System.nanoTime();
+        if (parsedLazyCollections.get() > maxCachedLazyCollections) {
+          evictLeastRecentlyUsedLazyCollections();
+        }
+      }
+      return docCollection;
+    }
+
+    private synchronized DocCollection getOrFetch(boolean allowCached) {
       gets.incrementAndGet();
+      boolean wasParsed = cachedDocCollection != null;
       if (!allowCached
           || lastUpdateTime < 0
           || System.nanoTime() - lastUpdateTime > LAZY_CACHE_TIME) {
         boolean shouldFetch = true;
-        if (cachedDocCollection != null) {
+        if (cachedDocCollection != null || compactState != null) {
           Stat freshStats = null;
           try {
             freshStats = zkClient.exists(DocCollection.getCollectionPath(collName), null, true);
           } catch (Exception e) {
           }
-          if (freshStats != null
-              && !cachedDocCollection.isModified(
-                  freshStats.getVersion(), freshStats.getCversion())) {
-            shouldFetch = false;
+          if (freshStats != null) {
+            if (cachedDocCollection != null) {
+              shouldFetch =
+                  cachedDocCollection.isModified(
+                      freshStats.getVersion(), freshStats.getCversion());
+            } else {
+              int childNodesVersion =
+                  compactPerReplicaStates == null ? 0 : compactPerReplicaStates.cversion;
+              if (freshStats.getVersion() <= compactZNodeVersion
+                  && freshStats.getCversion() <= childNodesVersion) {
+                cachedDocCollection = inflate();
+                shouldFetch = cachedDocCollection == null;
+              }
+            }
           }
         }
         if (shouldFetch) {
           cachedDocCollection = getCollectionLive(collName);
           lastUpdateTime = System.nanoTime();
         }
+        compactState = null;
+        compactPerReplicaStates = null;
+      }
+      if (!wasParsed && cachedDocCollection != null) {
+        parsedLazyCollections.incrementAndGet();
+      } else if (wasParsed && cachedDocCollection == null) {
+        parsedLazyCollections.decrementAndGet();
       }
       return cachedDocCollection;
     }
 
+    boolean isParsed() {
+      return cachedDocCollection != null;
+    }
+
+    /** Only keeps the state in its compact form, until it is used again */
+    synchronized void evict() {
+      if (cachedDocCollection == null) return;
+      compactState = compactStateCompressor.compressBytes(Utils.toJSON(cachedDocCollection));
+      compactZNodeVersion = cachedDocCollection.getZNodeVersion();
+      compactPerReplicaStates = cachedDocCollection.getPerReplicaStates();
+      cachedDocCollection = null;
+      parsedLazyCollections.decrementAndGet();
+      // check it didn't change when it's used again
+      lastUpdateTime = -1;
+      zkClient.getZkMetrics().lazyCollectionStatesEvicted.increment();
+    }
+
+    private DocCollection inflate() {
+      try {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> props =
+            (Map<String, Object>)
+                Utils.fromJSON(compactStateCompressor.decompressBytes(compactState));
+        PerReplicaStates perReplicaStates = compactPerReplicaStates;
+        DocCollection docCollection =
+            ClusterState.collectionFromObjects(
+                collName,
+                props,
+                compactZNodeVersion,
+                perReplicaStates == null ? null : () -> perReplicaStates);
+        zkClient.getZkMetrics().lazyCollectionStatesInflated.increment();
+        return docCollection;
+      } catch (Exception e) {
+        log.warn("Could not read the cached state of collection {}", collName, e);
+        return null;
+      }
+    }
+
     @Override
     public boolean isLazilyLoaded() {
       return true;
@@ -774,6 +894,38 @@ public class ZkStateReader implements SolrCloseable {
     }
   }
 
+  /**
+   * Evicts the parsed state of the least recently used lazily loaded collections beyond {@link
+   * #MAX_CACHED_LAZY_COLLECTIONS_PROP}, keeping a tenth less so that it doesn't have to run again
+   * on the next use. Only one thread evicts at a time, the others carry on with the state they got.
+   * Refs dropped from {@link #lazyCollectionStates} aren't counted anymore once this ran.
+   */
+  private void evictLeastRecentlyUsedLazyCollections() {
+    if (!evictingLazyCollections.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      // snapshot the last used times, they may change while sorting
+      List<Map.Entry<Long, LazyCollectionRef>> parsed = new ArrayList<>();
+      for (LazyCollectionRef ref : lazyCollectionStates.values()) {
+        if (ref.isParsed()) {
+          parsed.add(Map.entry(ref.lastUsedTime, ref));
+        }
+      }
+      int toKeep = maxCachedLazyCollections - maxCachedLazyCollections / 10;
+      int toEvict = Math.max(0, parsed.size() - toKeep);
+      if (toEvict > 0) {
+        parsed.sort(Map.Entry.comparingByKey());
+        for (int i = 0; i < toEvict; i++) {
+          parsed.get(i).getValue().evict();
+        }
+      }
+      parsedLazyCollections.set(parsed.size() - toEvict);
+    } finally {
+      evictingLazyCollections.set(false);
+    }
+  }
+
   // We don't get a Stat or track versions on getChildren() calls, so force linearization.
   private final Object refreshLiveNodesLock = new Object();
   // Ensures that only the latest getChildren fetch gets applied.
@@ -871,6 +1023,7 @@ public class ZkStateReader implements SolrCloseable {
   public void close() {
     this.closed = true;
 
+    stateRefreshScheduler.shutdownNow();
     notifications.shutdownNow();
 
     waitLatches.parallelStream()
@@ -879,6 +1032,7 @@ public class ZkStateReader implements SolrCloseable {
               c.countDown();
             });
 
+    ExecutorUtil.shutdownAndAwaitTermination(stateRefreshScheduler);
     ExecutorUtil.shutdownAndAwaitTermination(notifications);
     ExecutorUtil.shutdownAndAwaitTermination(collectionPropsNotifications);
     if (closeClient) {
@@ -1339,7 +1493,7 @@ public class ZkStateReader implements SolrCloseable {
             liveNodes.size());
       }
 
-      refreshAndWatch(event.getType());
+      scheduleRefresh(this, event.getType());
     }
 
     public void refreshAndWatch() {
@@ -1409,6 +1563,81 @@ public class ZkStateReader implements SolrCloseable {
     }
   }
 
+  /**
+   * Schedules a refresh of the state of a collection after {@link #STATE_REFRESH_DELAY_PROP},
+   * unless one is already scheduled: the changes are then read by that one, i.e. with a single read
+   * and a single notification of the watchers.
+   */
+  private void scheduleRefresh(StateWatcher watcher, EventType eventType) {
+    AtomicBoolean scheduled = new AtomicBoolean(false);
+    PendingRefresh refresh =
+        pendingRefreshes.compute(
+            watcher.coll,
+            (k, v) -> {
+              if (v == null) {
+                v = new PendingRefresh(watcher);
+                scheduled.set(true);
+              } else {
+                zkClient.getZkMetrics().stateRefreshesCoalesced.increment();
+              }
+              v.add(eventType);
+              return v;
+            });
+    if (!scheduled.get()) return;
+    try {
+      stateRefreshScheduler.schedule(
+          () -> {
+            try {
+              notifications.submit(refresh);
+            } catch (RejectedExecutionException e) {
+              // closing
+            }
+          },
+          STATE_REFRESH_DELAY_MS,
+          TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      if (!closed) {
+        log.error("Couldn't schedule the refresh of collection {}", watcher.coll, e);
+      }
+    }
+  }
+
+  /** A refresh of the state of a collection, for one or more changes */
+  private class PendingRefresh implements Runnable {
+    private final StateWatcher watcher;
+    private boolean dataChanged;
+    private boolean childrenChanged;
+
+    PendingRefresh(StateWatcher watcher) {
+      this.watcher = watcher;
+    }
+
+    // called within pendingRefreshes.compute
+    void add(EventType eventType) {
+      if (eventType == EventType.NodeChildrenChanged) {
+        childrenChanged = true;
+      } else {
+        dataChanged = true;
+      }
+    }
+
+    @Override
+    public void run() {
+      // changes from now on are read by another refresh
+      pendingRefreshes.remove(watcher.coll, this);
+      zkClient.getZkMetrics().stateRefreshes.increment();
+      EventType eventType;
+      if (dataChanged && childrenChanged) {
+        eventType = null;
+      } else if (childrenChanged) {
+        eventType = EventType.NodeChildrenChanged;
+      } else {
+        eventType = EventType.NodeDataChanged;
+      }
+      watcher.refreshAndWatch(eventType);
+    }
+  }
+
   /** Watches collection properties */
   class PropsWatcher implements Watcher {
     private final String coll;
@@ -2061,13 +2290,32 @@ public class ZkStateReader implements SolrCloseable {
     }
   }
 
+  /**
+   * Notifies the watchers of a collection of its new state, unless a notification was already
+   * submitted and didn't start yet: that one then notifies them of the new state.
+   */
   private void notifyStateWatchers(String collection, DocCollection collectionState) {
     if (this.closed) {
       return;
     }
+    AtomicBoolean submit = new AtomicBoolean(false);
+    Notification notification =
+        pendingNotifications.compute(
+            collection,
+            (k, v) -> {
+              if (v == null) {
+                submit.set(true);
+                return new Notification(collection, collectionState);
+              }
+              zkClient.getZkMetrics().stateNotificationsCoalesced.increment();
+              v.collectionState = collectionState;
+              return v;
+            });
+    if (!submit.get()) return;
     try {
-      notifications.submit(new Notification(collection, collectionState));
+      notifications.submit(notification);
     } catch (RejectedExecutionException e) {
+      pendingNotifications.remove(collection, notification);
       if (closed == false) {
         log.error("Couldn't run collection notifications for {}", collection, e);
       }
@@ -2077,7 +2325,7 @@ public class ZkStateReader implements SolrCloseable {
   private class Notification implements Runnable {
 
     final String collection;
-    final DocCollection collectionState;
+    volatile DocCollection collectionState;
 
     private Notification(String collection, DocCollection collectionState) {
       this.collection = collection;
@@ -2086,6 +2334,9 @@ public class ZkStateReader implements SolrCloseable {
 
     @Override
     public void run() {
+      // new states from now on are notified by another notification
+      pendingNotifications.remove(collection, this);
+      DocCollection collectionState = this.collectionState;
       List<DocCollectionWatcher> watchers = new ArrayList<>();
       collectionWatches.compute(
           collection,
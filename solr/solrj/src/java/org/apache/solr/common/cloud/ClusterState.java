@@ -18,6 +18,7 @@ package org.apache.solr.common.cloud;
 
 import static org.apache.solr.common.util.Utils.STANDARDOBJBUILDER;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.Collection;
@@ -37,6 +38,7 @@ import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.cloud.DocCollection.CollectionStateProps;
 import org.apache.solr.common.cloud.Replica.ReplicaStateProps;
 import org.apache.solr.common.util.CollectionUtil;
+import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.Utils;
 import org.noggit.JSONParser;
 import org.noggit.JSONWriter;
@@ -55,6 +57,16 @@ public class ClusterState implements MapWriter {
   /** Cluster Prop that is http or https. */
   public static final String URL_SCHEME = "urlScheme";
 
+  /**
+   * System property that, when true, makes the state.json of collections be written with JavaBin
+   * rather than JSON. Readers detect the format of each state.json, so it should only be enabled
+   * once all the nodes and clients of the cluster can read JavaBin state.
+   */
+  public static final String JAVABIN_STATE_PROP = "solr.cloud.javabinState";
+
+  // the first byte written by JavaBinCodec, i.e. its version, which can't start a JSON document
+  private static final byte JAVABIN_VERSION = 2;
+
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private final Map<String, CollectionRef> collectionStates, immutableCollectionStates;
@@ -223,7 +235,8 @@ public class ClusterState implements MapWriter {
    *
    * @param bytes a byte array of a Json representation of a mapping from collection name to the
    *     Json representation of a {@link DocCollection} as written by {@link #write(JSONWriter)}. It
-   *     can represent one or more collections.
+   *     can represent one or more collections. The same mapping written with JavaBin is detected
+   *     and parsed as well.
    * @param liveNodes list of live nodes
    * @return the ClusterState
    */
@@ -233,11 +246,59 @@ public class ClusterState implements MapWriter {
       return new ClusterState(liveNodes, Collections.<String, DocCollection>emptyMap());
     }
     @SuppressWarnings({"unchecked"})
-    Map<String, Object> stateMap =
-        (Map<String, Object>) Utils.fromJSON(bytes, 0, bytes.length, STR_INTERNER_OBJ_BUILDER);
+    Map<String, Object> stateMap = (Map<String, Object>) parseState(bytes);
     return createFromCollectionMap(version, stateMap, liveNodes, prsSupplier);
   }
 
+  /** Whether the given state, as read from ZooKeeper, is encoded with JavaBin rather than JSON */
+  public static boolean isJavabinState(byte[] bytes) {
+    return bytes != null && bytes.length > 0 && bytes[0] == JAVABIN_VERSION;
+  }
+
+  /**
+   * Parses the state of collections as read from ZooKeeper, whether it was written as JSON or as
+   * JavaBin.
+   *
+   * @see #serializeCollectionState(DocCollection)
+   */
+  public static Object parseState(byte[] bytes) {
+    if (isJavabinState(bytes)) {
+      try {
+        return Utils.fromJavabin(bytes);
+      } catch (IOException e) {
+        throw new SolrException(ErrorCode.SERVER_ERROR, "Could not parse collection state", e);
+      }
+    }
+    return Utils.fromJSON(bytes, 0, bytes.length, STR_INTERNER_OBJ_BUILDER);
+  }
+
+  /**
+   * Serializes the state of a collection to be written to its state.json, as JavaBin if {@link
+   * #JAVABIN_STATE_PROP} is true and as JSON otherwise. JavaBin is more compact, as property names
+   * are only written once, and faster to parse.
+   */
+  public static byte[] serializeCollectionState(DocCollection collection) {
+    Map<String, DocCollection> state = Collections.singletonMap(collection.getName(), collection);
+    if (!Boolean.getBoolean(JAVABIN_STATE_PROP)) {
+      return Utils.toJSON(state);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JavaBinCodec codec = new JavaBinCodec(ClusterState::resolveStateObject)) {
+      codec.marshal(state, out);
+    } catch (IOException e) {
+      throw new SolrException(ErrorCode.SERVER_ERROR, "Could not serialize collection state", e);
+    }
+    return out.toByteArray();
+  }
+
+  // objects that JavaBin doesn't know, e.g. hash ranges, are written as their JSON value
+  private static Object resolveStateObject(Object o, JavaBinCodec codec) {
+    if (o instanceof JSONWriter.Writable) {
+      return Utils.fromJSONString(Utils.toJSONString(o));
+    }
+    return o;
+  }
+
   @Deprecated
   public static ClusterState createFromJson(int version, byte[] bytes, Set<String> liveNodes) {
     return createFromJson(version, bytes, liveNodes, null);
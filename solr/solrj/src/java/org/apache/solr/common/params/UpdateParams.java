@@ -57,6 +57,14 @@ public interface UpdateParams {
    */
   public static final String UPDATE_CHAIN = "update.chain";
 
+  /**
+   * Number of threads that may concurrently process the documents of a single update request.
+   * Commands for the same document are still applied in order. Defaults to 1 (no parallelism), and
+   * is capped by the <code>solr.update.maxParallelism</code> system property, which defaults to the
+   * number of available processors.
+   */
+  public static final String PARALLELISM = "update.parallelism";
+
   /** Override the content type used for UpdateLoader * */
   public static final String ASSUME_CONTENT_TYPE = "update.contentType";
 